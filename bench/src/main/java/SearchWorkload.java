@@ -0,0 +1,219 @@
+/*
+ * Workload implementation on top of the engine classes, see bench.Workload.
+ * Maps are generated from a fixed seed so every run searches the same grid.
+ */
+
+import java.awt.Point;
+import java.util.Random;
+
+public class SearchWorkload implements bench.Workload {
+
+  private static final int NODE_SIZE = 25;
+
+  private Grid grid;
+  private Solver solver;
+  private PathFinder pathFinder;
+
+  //null for the queries it cannot run
+  private BaselinePathFinder baseline;
+
+  private int start, end;
+  private Algorithm algorithm;
+  private Heuristic heuristic;
+
+  public void setup(String map, int size, String query) {
+    Random random = new Random(25199);
+    pathFinder = new PathFinder(size, size);
+    grid = pathFinder.getWall();
+
+    if(map.equals("RANDOM")) {
+      randomWalls(random, 0.25);
+    } else if(map.equals("MAZE")) {
+      maze(random);
+    } else if(map.equals("MUD")) {
+      randomWalls(random, 0.25);
+      randomWeights(random, 0.25);
+    } else if(!map.equals("EMPTY")) {
+      throw new IllegalArgumentException("Unknown map " + map);
+    }
+
+    //maze rooms are on even rows and columns, so keep the end on one
+    int last = (size - 1) & ~1;
+    grid.setWall(0, 0, false);
+    grid.setWall(last, last, false);
+    if(!map.equals("MAZE")) {
+      //random walls can shut a corner in, e.g. the end of RANDOM 1024
+      open(0, 0);
+      open(last, last);
+    }
+    start = grid.index(0, 0);
+    end = grid.index(last, last);
+
+    //the same search with a bucket queue instead of the binary heap
+    boolean bucketQueue = query.endsWith("_BUCKET");
+    if(bucketQueue) {
+      query = query.substring(0, query.length() - "_BUCKET".length());
+    }
+
+    if(query.equals("ASTAR_ALT")) {
+      algorithm = Algorithm.ASTAR;
+      heuristic = new LandmarkHeuristic(grid, 8);
+    } else if(query.startsWith("ASTAR_")) {
+      algorithm = Algorithm.ASTAR;
+      heuristic = Heuristics.valueOf(query.substring("ASTAR_".length()));
+    } else {
+      algorithm = Algorithm.valueOf(query);
+      heuristic = Heuristics.OCTILE;
+    }
+
+    solver = new Solver(grid);
+    solver.setBucketQueue(bucketQueue);
+    pathFinder.setBucketQueue(bucketQueue);
+    pathFinder.setAlgorithm(algorithm);
+    pathFinder.setHeuristic(heuristic);
+
+    //the original PathFinder knows no mud, bucket queue or other heuristic
+    boolean octile = heuristic == Heuristics.OCTILE;
+    boolean original = algorithm == Algorithm.DIJKSTRA ||
+        algorithm == Algorithm.ASTAR && (octile ||
+                                         heuristic == Heuristics.MANHATTAN);
+    if(original && !bucketQueue && !grid.hasWeights()) {
+      baseline = new BaselinePathFinder(size, size, octile);
+      baseline.setisDijkstra(algorithm == Algorithm.DIJKSTRA);
+      for(int cell = 0; cell < grid.size(); cell++) {
+        if(grid.isWall(cell)) {
+          baseline.addWall(new Point(grid.getCol(cell) * NODE_SIZE,
+                                     grid.getRow(cell) * NODE_SIZE));
+        }
+      }
+    }
+  }
+
+  public int solve() {
+    return solver.solve(start, end, algorithm, heuristic).getExpanded();
+  }
+
+  public int pathFinder() {
+    pathFinder.reset();
+    pathFinder.setStart(toNode(start));
+    pathFinder.setEnd(toNode(end));
+    pathFinder.setisRun(true);
+
+    while(pathFinder.isRun()) {
+      pathFinder.step();
+    }
+
+    return pathFinder.getFinal().size();
+  }
+
+  public void clearCache() {
+    pathFinder.getCache().clear();
+  }
+
+  public int baseline() {
+    if(baseline == null) {
+      throw new IllegalStateException("No baseline for " + algorithm + " " +
+                                      heuristic);
+    }
+
+    baseline.reset();
+    baseline.setStart(toNode(start));
+    baseline.setEnd(toNode(end));
+    baseline.setisRun(true);
+
+    while(baseline.isRun()) {
+      baseline.aStarPath();
+    }
+
+    return baseline.getFinal().size();
+  }
+
+  private Node toNode(int cell) {
+    return new Node(grid.getCol(cell) * NODE_SIZE, grid.getRow(cell) * NODE_SIZE);
+  }
+
+  /*
+   * Takes the walls off a cell and its neighbors.
+   */
+  private void open(int col, int row) {
+    for(int i = -1; i <= 1; i++) {
+      for(int j = -1; j <= 1; j++) {
+        grid.setWall(col + i, row + j, false);
+      }
+    }
+  }
+
+  private void randomWalls(Random random, double density) {
+    for(int row = 0; row < grid.getRows(); row++) {
+      for(int col = 0; col < grid.getCols(); col++) {
+        if(random.nextDouble() < density) {
+          grid.setWall(col, row, true);
+        }
+      }
+    }
+  }
+
+  /*
+   * Makes a share of the cells mud, 2 to 8 times as slow to cross.
+   */
+  private void randomWeights(Random random, double density) {
+    for(int row = 0; row < grid.getRows(); row++) {
+      for(int col = 0; col < grid.getCols(); col++) {
+        if(random.nextDouble() < density) {
+          grid.setWeight(col, row, 2 + random.nextInt(7));
+        }
+      }
+    }
+  }
+
+  /*
+   * Depth first maze: rooms sit on even rows and columns, everything else
+   * starts as a wall and is knocked down between visited rooms.
+   */
+  private void maze(Random random) {
+    int cols = grid.getCols();
+    int rows = grid.getRows();
+
+    for(int row = 0; row < rows; row++) {
+      for(int col = 0; col < cols; col++) {
+        grid.setWall(col, row, true);
+      }
+    }
+
+    int[] stack = new int[grid.size()];
+    int[] dirs = {2, 0, -2, 0, 0, 2, 0, -2};
+    int top = 0;
+
+    grid.setWall(0, 0, false);
+    stack[top++] = 0;
+
+    while(top > 0) {
+      int cell = stack[top - 1];
+      int col = grid.getCol(cell);
+      int row = grid.getRow(cell);
+
+      //pick a random unvisited room next to this one
+      int options = 0;
+      int choice = -1;
+      for(int d = 0; d < 8; d += 2) {
+        int nextCol = col + dirs[d];
+        int nextRow = row + dirs[d + 1];
+        if(grid.inBounds(nextCol, nextRow) && grid.isWall(nextCol, nextRow) &&
+            random.nextInt(++options) == 0) {
+          choice = d;
+        }
+      }
+
+      if(choice < 0) {
+        top--;
+        continue;
+      }
+
+      int nextCol = col + dirs[choice];
+      int nextRow = row + dirs[choice + 1];
+      grid.setWall(col + dirs[choice] / 2, row + dirs[choice + 1] / 2, false);
+      grid.setWall(nextCol, nextRow, false);
+      stack[top++] = grid.index(nextCol, nextRow);
+    }
+  }
+}
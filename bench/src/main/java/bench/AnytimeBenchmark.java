@@ -0,0 +1,24 @@
+/*
+ * Anytime A* run until it has proved its path the cheapest.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class AnytimeBenchmark extends SearchBenchmark {
+
+  @Param({"ANYTIME_ASTAR"})
+  public String query;
+
+  @Param({"RANDOM", "MAZE", "MUD"})
+  public String map;
+
+  @Param({"256", "1024"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * The engine against BaselinePathFinder, the PathFinder the project started
+ * with, on the queries it knows. Its open list is searched from end to end
+ * for every neighbor, so a query takes seconds at 1024x1024: add
+ * "-p size=1024" to the command line to see that too.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class BaselineBenchmark extends SearchBenchmark {
+
+  @Param({"DIJKSTRA", "ASTAR_OCTILE", "ASTAR_MANHATTAN"})
+  public String query;
+
+  @Param({"EMPTY", "RANDOM", "MAZE"})
+  public String map;
+
+  @Param({"30", "256"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+
+  @Benchmark
+  public int baseline() {
+    return workload.baseline();
+  }
+}
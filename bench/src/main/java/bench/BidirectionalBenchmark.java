@@ -0,0 +1,24 @@
+/*
+ * Dijkstra and A* searching from both ends at once.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class BidirectionalBenchmark extends SearchBenchmark {
+
+  @Param({"BIDIRECTIONAL_DIJKSTRA", "BIDIRECTIONAL_ASTAR"})
+  public String query;
+
+  @Param({"RANDOM", "MAZE", "MUD"})
+  public String map;
+
+  @Param({"256", "1024", "4096"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
@@ -0,0 +1,24 @@
+/*
+ * Breadth first search, which finds the fewest moves and ignores mud.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class BreadthFirstBenchmark extends SearchBenchmark {
+
+  @Param({"BREADTH_FIRST"})
+  public String query;
+
+  @Param({"EMPTY", "RANDOM", "MAZE"})
+  public String map;
+
+  @Param({"256", "1024", "4096"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
@@ -0,0 +1,25 @@
+/*
+ * A* with each heuristic, the landmarks of ALT included, on the maps where
+ * the heuristics differ: obstacles, maze and mud.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class HeuristicBenchmark extends SearchBenchmark {
+
+  @Param({"ASTAR_OCTILE", "ASTAR_CHEBYSHEV", "ASTAR_EUCLIDEAN", "ASTAR_ALT"})
+  public String query;
+
+  @Param({"RANDOM", "MAZE", "MUD"})
+  public String map;
+
+  @Param({"256", "1024"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
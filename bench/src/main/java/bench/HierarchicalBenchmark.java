@@ -0,0 +1,26 @@
+/*
+ * HPA* on the open maps it is made for. The cluster graph is built on the
+ * first query, in the warmup. A maze has an entrance on nearly every
+ * cluster border, so it is left out.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class HierarchicalBenchmark extends SearchBenchmark {
+
+  @Param({"HIERARCHICAL"})
+  public String query;
+
+  @Param({"EMPTY", "RANDOM", "MUD"})
+  public String map;
+
+  @Param({"256", "1024", "4096"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * D* Lite and the flow field, which follow the grid. Nothing changes
+ * between queries, so D* Lite searches from scratch every time and the
+ * flow field is built once in the warmup and then only walked.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class IncrementalBenchmark extends SearchBenchmark {
+
+  @Param({"DSTAR_LITE", "FLOW_FIELD"})
+  public String query;
+
+  @Param({"RANDOM", "MAZE", "MUD"})
+  public String map;
+
+  @Param({"256", "1024"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
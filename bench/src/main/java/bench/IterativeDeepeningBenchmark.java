@@ -0,0 +1,25 @@
+/*
+ * IDA* in its default memory budget. It searches a cell again for every
+ * path to it the table has forgotten, so the maps are kept small.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class IterativeDeepeningBenchmark extends SearchBenchmark {
+
+  @Param({"ITERATIVE_DEEPENING"})
+  public String query;
+
+  @Param({"EMPTY", "RANDOM", "MAZE"})
+  public String map;
+
+  @Param({"30", "256"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Jump Point Search and JPS+ on the maps without mud, with mud Solver runs
+ * A* for them.
+ * JPS+ builds its jump distances on the first query, in the warmup.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class JumpPointBenchmark extends SearchBenchmark {
+
+  @Param({"JUMP_POINT", "JUMP_POINT_PLUS"})
+  public String query;
+
+  @Param({"EMPTY", "RANDOM", "MAZE"})
+  public String map;
+
+  @Param({"256", "1024", "4096"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
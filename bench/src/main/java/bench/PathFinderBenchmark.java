@@ -0,0 +1,40 @@
+/*
+ * Queries stepped through PathFinder one step at a time, the way the GUI
+ * runs them, next to the same queries on the Solver. The difference is what
+ * the GUI adds on top of the search.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class PathFinderBenchmark extends SearchBenchmark {
+
+  @Param({"DIJKSTRA", "ASTAR_OCTILE"})
+  public String query;
+
+  @Param({"RANDOM", "MAZE"})
+  public String map;
+
+  @Param({"256", "1024"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+
+  /*
+   * Measures the search, not the path cache. Each query takes milliseconds,
+   * far more than what a setup per invocation costs JMH.
+   */
+  @Setup(Level.Invocation)
+  public void clearCache() {
+    workload.clearCache();
+  }
+
+  @Benchmark
+  public int pathFinder() {
+    return workload.pathFinder();
+  }
+}
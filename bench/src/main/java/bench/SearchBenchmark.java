@@ -0,0 +1,40 @@
+/*
+ * Base of the benchmarks of the search engine. Every query runs from one
+ * corner of the map to the other on empty, random obstacle, maze or mud
+ * maps. Each subclass is one family of algorithms with the maps and sizes
+ * that make sense for it, so it can be run on its own, e.g.
+ * "java -jar benchmarks.jar ShortestPathBenchmark".
+ * Add "-prof gc" to the command line to get the allocation rate.
+ */
+
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public abstract class SearchBenchmark {
+
+  protected Workload workload;
+
+  /*
+   * Builds the workload, from the @Setup of the subclass which holds the
+   * @Param fields.
+   */
+  protected void createWorkload(String map, int size, String query)
+      throws Exception {
+    workload = (Workload) Class.forName("SearchWorkload")
+        .getDeclaredConstructor().newInstance();
+    workload.setup(map, size, query);
+  }
+
+  @Benchmark
+  public int solver() {
+    return workload.solve();
+  }
+}
@@ -0,0 +1,26 @@
+/*
+ * Dijkstra and A* with the octile and manhattan heuristics, on the binary
+ * heap and on a bucket queue, on every map from 30x30 up to 4096x4096.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class ShortestPathBenchmark extends SearchBenchmark {
+
+  @Param({"DIJKSTRA", "DIJKSTRA_BUCKET", "ASTAR_OCTILE",
+      "ASTAR_OCTILE_BUCKET", "ASTAR_MANHATTAN"})
+  public String query;
+
+  @Param({"EMPTY", "RANDOM", "MAZE", "MUD"})
+  public String map;
+
+  @Param({"30", "256", "1024", "4096"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
@@ -0,0 +1,24 @@
+/*
+ * Any-angle Lazy Theta*, on open maps where the lines are long.
+ */
+
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+public class ThetaStarBenchmark extends SearchBenchmark {
+
+  @Param({"THETA_STAR"})
+  public String query;
+
+  @Param({"EMPTY", "RANDOM", "MUD"})
+  public String map;
+
+  @Param({"256", "1024"})
+  public int size;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    createWorkload(map, size, query);
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * A search query set up for benchmarking. The engine classes live in the
+ * default package, which JMH benchmarks cannot use, so SearchBenchmark reaches
+ * them through this interface.
+ */
+
+package bench;
+
+public interface Workload {
+
+  /*
+   * Builds a size x size map of the given kind ("EMPTY", "RANDOM", "MAZE" or
+   * "MUD") and prepares a corner to corner query: "ASTAR_" followed by a
+   * heuristic name, or any other Algorithm name which then uses the octile
+   * heuristic. "_BUCKET" at the end runs it on a bucket queue. The end is
+   * the same for every run, so FLOW_FIELD builds its field once in the
+   * warmup and then only walks the path.
+   */
+  void setup(String map, int size, String query);
+
+  /*
+   * Runs the query on the headless Solver, returns the nodes expanded.
+   */
+  int solve();
+
+  /*
+   * Runs the query the way the GUI does, one PathFinder step at a time.
+   * Returns the length of the final path.
+   */
+  int pathFinder();
+
+  /*
+   * Empties the path cache of the PathFinder, so pathFinder() runs the
+   * search instead of handing back the path it found last time.
+   */
+  void clearCache();
+
+  /*
+   * Runs the query on BaselinePathFinder, the PathFinder the project started
+   * with. It only knows DIJKSTRA, ASTAR_OCTILE and ASTAR_MANHATTAN, and
+   * no mud. Returns the length of the final path.
+   */
+  int baseline();
+}
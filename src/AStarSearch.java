@@ -0,0 +1,101 @@
+/*
+ * A* pathfinding algorithm. Tries to explore the fewest number of nodes to
+ * reach the end node, guided by the heuristic cost function h. With a zero
+ * heuristic this is Dijkstra's algorithm.
+ * Moves go to the 8 neighbors of a cell, a diagonal move is not allowed to
+ * cut the corner of a wall.
+ */
+
+public class AStarSearch extends GridSearch {
+
+  public AStarSearch(Grid grid) {
+    super(grid);
+  }
+
+  /*
+   * Uses the given open list, e.g. a BucketQueue when every cost is a whole
+   * number.
+   */
+  public AStarSearch(Grid grid, OpenList open) {
+    super(grid, open);
+  }
+
+  protected void init() {
+    space.setNode(start, 0, start);
+    open.add(start, estimate(grid.getCol(start), grid.getRow(start)), 0);
+  }
+
+  public boolean step() {
+    if(isFinished()) {
+      return false;
+    }
+
+    //get node with lowest F cost off the open list
+    int current = open.poll();
+
+    //if no min node, then no path
+    if(current < 0) {
+      finish(false);
+      return false;
+    }
+
+    //if min node is the end, then we have the shortest path
+    if(current == end) {
+      finish(true);
+      return false;
+    }
+
+    space.close(current);
+    expanded++;
+
+    int col = grid.getCol(current);
+    int row = grid.getRow(current);
+    double g = space.getG(current);
+
+    //calculate costs for the 8 possible adjacent nodes to current
+    for(int i = -1; i <= 1; i++) {
+      for(int j = -1; j <= 1; j++) {
+
+        //skip the current node we are exploring
+        if(i == 0 && j == 0) {
+          continue;
+        }
+
+        int xCoord = col + i;
+        int yCoord = row + j;
+        boolean diagonal = i != 0 && j != 0;
+
+        //checks to see if the neighbor node is outside the grid or a wall,
+        //and does not allow for a diagonal jump across a wall
+        if(isWall(xCoord, yCoord) || diagonal &&
+            (isWall(xCoord, row) || isWall(col, yCoord))) {
+          continue;
+        }
+
+        int neighbor = grid.index(xCoord, yCoord);
+
+        //neighbors already in the closed list are never visited again
+        if(space.isClosed(neighbor)) {
+          continue;
+        }
+
+        double gCost = g + grid.moveCost(col, row, i, j);
+
+        //if node in open and we found lower gCost, update it
+        if(open.contains(neighbor)) {
+          if(gCost < open.getG(neighbor)) {
+            space.setNode(neighbor, gCost, current);
+            open.decreaseKey(neighbor, gCost + estimate(xCoord, yCoord), gCost);
+          }
+          continue;
+        }
+
+        //if neighbor not visited, then add to open list
+        space.setNode(neighbor, gCost, current);
+        open.add(neighbor, gCost + estimate(xCoord, yCoord), gCost);
+      }
+    }
+
+    return true;
+  }
+}
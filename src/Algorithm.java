@@ -0,0 +1,33 @@
+/*
+ * The path finding algorithms a Solver can run.
+ */
+
+public enum Algorithm {
+  DIJKSTRA,
+  ASTAR,
+  // jump point search needs every cell to cost the same, A* runs instead
+  // while the grid has weights
+  JUMP_POINT,
+  // jump point search with straight jumps precomputed for the whole grid
+  JUMP_POINT_PLUS,
+  BIDIRECTIONAL_DIJKSTRA,
+  BIDIRECTIONAL_ASTAR,
+  // A* over clusters of the grid (HPA*), fast but not always the shortest path
+  HIERARCHICAL,
+  // D* Lite, repairs its last search when walls change instead of starting over
+  DSTAR_LITE,
+  // follows a flow field of the costs to the end, built once per end and
+  // kept up to date, so queries to the same end need no search
+  FLOW_FIELD,
+  // fewest moves by breadth first search over bitsets of the walls, counts a
+  // diagonal move as one and ignores weights
+  BREADTH_FIRST,
+  // anytime A* (ARA*), a fast path first that gets cheaper while time allows
+  ANYTIME_ASTAR,
+  // iterative deepening A* (IDA*), the cheapest path in a fixed memory budget
+  // instead of memory for every cell
+  ITERATIVE_DEEPENING,
+  // any-angle Lazy Theta*, straight lines between the corners of the walls
+  // instead of moves between neighbors, always with the EUCLIDEAN heuristic
+  THETA_STAR
+}
@@ -0,0 +1,281 @@
+/*
+ * Anytime Repairing A* (ARA*, Likhachev, Gordon and Thrun). A* with the
+ * heuristic inflated by a factor epsilon finds a path fast that costs at
+ * most epsilon times the cheapest one. The search then lowers epsilon and
+ * goes on from where it stopped instead of starting over: the costs found so
+ * far are kept and only the cells whose cost went down since they were
+ * expanded are looked at again. Every pass ends with a path at least as
+ * cheap as the last, handed to the AnytimeListener with its bound, and the
+ * last pass with epsilon 1 ends with the cheapest path.
+ * Within a pass a cell is expanded at most once. A cell that gets cheaper
+ * after that is kept aside as inconsistent and put back on the open list
+ * for the next pass.
+ * Parents only ever get cheaper, so the path back from the end costs at
+ * most its G cost and the path is built and costed from the parents.
+ * With a time limit the search stops once the time is up, with a path at
+ * least as good as the last one handed out, or at the first path if none
+ * was found by then.
+ */
+
+import java.util.Arrays;
+
+public class AnytimeAStarSearch extends GridSearch {
+
+  public static final double DEFAULT_EPSILON = 3;
+  public static final double DEFAULT_EPSILON_STEP = 0.5;
+
+  //expansions between looks at the clock
+  private static final int CLOCK_STEPS = 64;
+
+  private double initialEpsilon = DEFAULT_EPSILON;
+  private double epsilonStep = DEFAULT_EPSILON_STEP;
+  private double epsilon;
+
+  //pass each cell was last expanded in, a cell is closed for this pass only
+  private final int[] expandedIn;
+  private int pass;
+
+  //cells that got cheaper after they were expanded in this pass
+  private int[] inconsistent;
+  private int inconsistentCount;
+  private final int[] inconsistentIn;
+
+  //the search stops once past this, 0 for never
+  private long timeLimit, deadline;
+
+  //told about every better path, null when nobody listens
+  private AnytimeListener listener;
+
+  private double bestCost, bound;
+
+  public AnytimeAStarSearch(Grid grid) {
+    super(grid);
+
+    expandedIn = new int[grid.size()];
+    inconsistentIn = new int[grid.size()];
+    inconsistent = new int[64];
+  }
+
+  protected void init() {
+    nextStamp();
+    epsilon = initialEpsilon;
+    inconsistentCount = 0;
+    bestCost = Double.POSITIVE_INFINITY;
+    bound = Double.POSITIVE_INFINITY;
+    deadline = timeLimit > 0 ? System.nanoTime() + timeLimit : 0;
+
+    space.setNode(start, 0, start);
+    open.add(start, key(start, 0), 0);
+  }
+
+  private double key(int cell, double g) {
+    return g + epsilon * estimate(grid.getCol(cell), grid.getRow(cell));
+  }
+
+  public boolean step() {
+    if(isFinished()) {
+      return false;
+    }
+
+    if(bestCost < Double.POSITIVE_INFINITY && expanded % CLOCK_STEPS == 0 &&
+        isPastDeadline()) {
+      finish(true);
+      return false;
+    }
+
+    //the pass is over once no cell on the open list can lead to a cheaper
+    //path to the end, with the heuristic inflated
+    if(open.isEmpty() || space.getG(end) <= open.getF(open.peek())) {
+      return endPass();
+    }
+
+    int current = open.poll();
+    expandedIn[current] = pass;
+    space.close(current);
+    expanded++;
+
+    int col = grid.getCol(current);
+    int row = grid.getRow(current);
+    double g = space.getG(current);
+
+    for(int i = -1; i <= 1; i++) {
+      for(int j = -1; j <= 1; j++) {
+        if(i == 0 && j == 0) {
+          continue;
+        }
+
+        int xCoord = col + i;
+        int yCoord = row + j;
+        boolean diagonal = i != 0 && j != 0;
+
+        if(isWall(xCoord, yCoord) || diagonal &&
+            (isWall(xCoord, row) || isWall(col, yCoord))) {
+          continue;
+        }
+
+        int neighbor = grid.index(xCoord, yCoord);
+        double gCost = g + grid.moveCost(col, row, i, j);
+        if(gCost >= space.getG(neighbor)) {
+          continue;
+        }
+
+        space.setNode(neighbor, gCost, current);
+
+        //expanded in this pass already, it waits for the next one
+        if(expandedIn[neighbor] == pass) {
+          if(inconsistentIn[neighbor] != pass) {
+            inconsistentIn[neighbor] = pass;
+            if(inconsistentCount == inconsistent.length) {
+              inconsistent = Arrays.copyOf(inconsistent, 2 * inconsistentCount);
+            }
+            inconsistent[inconsistentCount++] = neighbor;
+          }
+        } else if(open.contains(neighbor)) {
+          open.decreaseKey(neighbor, key(neighbor, gCost), gCost);
+        } else {
+          open.add(neighbor, key(neighbor, gCost), gCost);
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /*
+   * Hands the path of the pass to the listener and starts the next pass
+   * with a lower epsilon, unless epsilon is down to 1 or time is up.
+   */
+  private boolean endPass() {
+    double cost = space.getG(end);
+    if(cost == Double.POSITIVE_INFINITY) {
+      finish(false);
+      return false;
+    }
+
+    //no path can cost less than the lowest g + h of the cells left
+    double lowest = cost;
+    for(int i = 0; i < open.size(); i++) {
+      lowest = Math.min(lowest, unweighted(open.get(i)));
+    }
+    for(int i = 0; i < inconsistentCount; i++) {
+      lowest = Math.min(lowest, unweighted(inconsistent[i]));
+    }
+    double passBound = Math.min(epsilon, lowest > 0 ? cost / lowest : 1);
+
+    if(cost < bestCost || passBound < bound) {
+      bestCost = cost;
+      bound = Math.min(bound, passBound);
+      solution();
+      if(listener != null) {
+        int[] path = constructPath();
+        listener.pathImproved(new SearchResult(true, path, costOf(path),
+                                               expanded), bound);
+      }
+    }
+
+    if(epsilon <= 1 || bound <= 1 || isPastDeadline()) {
+      finish(true);
+      return false;
+    }
+
+    nextPass();
+    return true;
+  }
+
+  private boolean isPastDeadline() {
+    return deadline != 0 && System.nanoTime() - deadline >= 0;
+  }
+
+  protected double pathCost() {
+    return costOf(constructPath());
+  }
+
+  private double costOf(int[] path) {
+    double cost = 0;
+    for(int i = 1; i < path.length; i++) {
+      int col = grid.getCol(path[i - 1]);
+      int row = grid.getRow(path[i - 1]);
+      cost += grid.moveCost(col, row, grid.getCol(path[i]) - col,
+                            grid.getRow(path[i]) - row);
+    }
+    return cost;
+  }
+
+  private double unweighted(int cell) {
+    return space.getG(cell) + estimate(grid.getCol(cell), grid.getRow(cell));
+  }
+
+  /*
+   * Lowers epsilon, moves the inconsistent cells back on the open list and
+   * gives every cell on it the key of the new epsilon. Closed cells open up
+   * again.
+   */
+  private void nextPass() {
+    epsilon = Math.max(1, epsilon - epsilonStep);
+
+    int[] cells = Arrays.copyOf(inconsistent, inconsistentCount +
+                                open.size());
+    int count = inconsistentCount;
+    while(!open.isEmpty()) {
+      cells[count++] = open.poll();
+    }
+
+    nextStamp();
+    inconsistentCount = 0;
+    for(int i = 0; i < count; i++) {
+      double g = space.getG(cells[i]);
+      open.add(cells[i], key(cells[i], g), g);
+    }
+  }
+
+  /*
+   * Moves on to the stamp of a new pass, clearing the stamps before they
+   * wrap around.
+   */
+  private void nextStamp() {
+    if(pass == Integer.MAX_VALUE) {
+      Arrays.fill(expandedIn, 0);
+      Arrays.fill(inconsistentIn, 0);
+      pass = 0;
+    }
+    pass++;
+  }
+
+  /*
+   * Epsilon of the first pass and how much it drops with every pass after.
+   */
+  public void setEpsilon(double initial, double step) {
+    if(initial < 1 || step <= 0) {
+      throw new IllegalArgumentException("Epsilon " + initial + " step " +
+                                         step);
+    }
+    initialEpsilon = initial;
+    epsilonStep = step;
+  }
+
+  /*
+   * Stops at the end of the first pass past this many nanoseconds from
+   * begin(), 0 to go on until the path is the cheapest.
+   */
+  public void setTimeLimit(long nanos) {
+    timeLimit = nanos;
+  }
+
+  public void setPathListener(AnytimeListener listener) {
+    this.listener = listener;
+  }
+
+  /*
+   * Epsilon of the pass running now.
+   */
+  public double getEpsilon() {
+    return epsilon;
+  }
+
+  /*
+   * Bound of the best path so far, infinite before the first.
+   */
+  public double getBound() {
+    return bound;
+  }
+}
@@ -0,0 +1,11 @@
+/*
+ * Told about every path an AnytimeAStarSearch finds, each one cheaper than
+ * the last, while the search carries on looking for a better one. The bound
+ * says how far off the path can be at worst: it costs at most bound times
+ * the cheapest path, 1 once it is the cheapest.
+ */
+
+public interface AnytimeListener {
+
+  void pathImproved(SearchResult result, double bound);
+}
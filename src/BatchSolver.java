@@ -0,0 +1,161 @@
+/*
+ * Solves many queries on the same grid in parallel on a ForkJoinPool.
+ * The grid is only read while a batch runs and must not be changed until
+ * solveAll() returns. Every task takes a Solver no other task is using,
+ * which keeps its open list and search space from one query to the next,
+ * and hands it back when done. The solvers are kept for the next batch, so
+ * there are never more of them than tasks that ran at once, however many
+ * threads the pools had. Some of their searches follow the grid, close()
+ * lets go of it once the batch solver is no longer needed.
+ */
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class BatchSolver {
+
+  //queries solved by one task before it stops splitting the batch
+  private static final int BATCH_SIZE = 8;
+
+  private final Grid grid;
+  private final ForkJoinPool pool;
+
+  //solvers no task is using
+  private final ConcurrentLinkedQueue<Solver> idle =
+      new ConcurrentLinkedQueue<Solver>();
+
+  //shared by the solvers of all threads, null when not used
+  private volatile PathCache cache;
+
+  //read by all threads, the grid does not change during a batch
+  private volatile ComponentIndex components;
+
+  //told about the searches of all threads, has to be thread safe
+  private volatile SearchListener listener;
+
+  public BatchSolver(Grid grid) {
+    this(grid, ForkJoinPool.commonPool());
+  }
+
+  public BatchSolver(Grid grid, ForkJoinPool pool) {
+    this.grid = grid;
+    this.pool = pool;
+  }
+
+  /*
+   * Finds a path from starts[i] to ends[i] for every i, result i being the
+   * answer to query i.
+   */
+  public SearchResult[] solveAll(int[] starts, int[] ends, Algorithm algorithm,
+                                 Heuristic heuristic) {
+    if(starts.length != ends.length) {
+      throw new IllegalArgumentException("Got " + starts.length +
+                                         " starts but " + ends.length + " ends");
+    }
+
+    SearchResult[] results = new SearchResult[starts.length];
+    pool.invoke(new Batch(starts, ends, results, algorithm, heuristic, 0,
+                          starts.length));
+    return results;
+  }
+
+  /*
+   * Caches results across all threads and batches, null to stop caching.
+   */
+  public void setCache(PathCache cache) {
+    this.cache = cache;
+  }
+
+  public PathCache getCache() {
+    return cache;
+  }
+
+  /*
+   * Answers unreachable queries without searching, null to search anyway.
+   */
+  public void setComponents(ComponentIndex components) {
+    this.components = components;
+  }
+
+  public ComponentIndex getComponents() {
+    return components;
+  }
+
+  /*
+   * Hands the counters of every search to the listener, e.g. a SearchStats.
+   * It is called from the worker threads. null to stop.
+   */
+  public void setListener(SearchListener listener) {
+    this.listener = listener;
+  }
+
+  public SearchListener getListener() {
+    return listener;
+  }
+
+  public Grid getGrid() {
+    return grid;
+  }
+
+  /*
+   * Closes the solvers kept between batches, which stops their searches
+   * from following the grid. Not while a batch runs.
+   */
+  public void close() {
+    for(Solver solver = idle.poll(); solver != null; solver = idle.poll()) {
+      solver.close();
+    }
+  }
+
+  /*
+   * Task solving the queries from index from up to index to, split in two
+   * until the pieces are small.
+   */
+  private class Batch extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int[] starts, ends;
+    private final SearchResult[] results;
+    private final Algorithm algorithm;
+    private final Heuristic heuristic;
+    private final int from, to;
+
+    Batch(int[] starts, int[] ends, SearchResult[] results, Algorithm algorithm,
+          Heuristic heuristic, int from, int to) {
+      this.starts = starts;
+      this.ends = ends;
+      this.results = results;
+      this.algorithm = algorithm;
+      this.heuristic = heuristic;
+      this.from = from;
+      this.to = to;
+    }
+
+    protected void compute() {
+      if(to - from <= BATCH_SIZE) {
+        Solver solver = idle.poll();
+        if(solver == null) {
+          solver = new Solver(grid);
+        }
+
+        try {
+          solver.setCache(cache);
+          solver.setListener(listener);
+          solver.setComponents(components);
+          for(int i = from; i < to; i++) {
+            results[i] = solver.solve(starts[i], ends[i], algorithm, heuristic);
+          }
+        } finally {
+          idle.add(solver);
+        }
+        return;
+      }
+
+      int mid = (from + to) >>> 1;
+      invokeAll(new Batch(starts, ends, results, algorithm, heuristic, from, mid),
+                new Batch(starts, ends, results, algorithm, heuristic, mid, to));
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Bidirectional Dijkstra and A*. One search grows forward from the start node
+ * and a second one backward from the end node, always expanding the side with
+ * the smaller open list. Whenever a node reached by one side is reached by
+ * the other, the path through it is a candidate. The search stops once no
+ * path left in the open lists can beat the best candidate:
+ * - with a zero heuristic (Dijkstra) when the lowest G costs of both open
+ *   lists add up to at least the best path,
+ * - with A* when the lowest F cost of either open list is at least the best
+ *   path, which holds as long as the heuristic never overestimates.
+ * The forward side uses the open list and search space of GridSearch.
+ */
+
+public class BidirectionalSearch extends GridSearch {
+
+  private final SearchSpace reverseSpace;
+
+  //metered like the forward list while a listener is set
+  private OpenList reverseOpen;
+  private final OpenList reverseList;
+
+  //best path found so far goes through meet, -1 until the sides meet
+  private int meet;
+  private double best;
+
+  public BidirectionalSearch(Grid grid) {
+    super(grid);
+
+    reverseOpen = reverseList = new BinaryHeap(grid.size());
+    reverseSpace = new SearchSpace(grid.size());
+  }
+
+  protected void init() {
+    reverseOpen.clear();
+    reverseSpace.reset();
+    meet = -1;
+    best = Double.POSITIVE_INFINITY;
+
+    if(start == end) {
+      best = 0;
+      finish(true);
+      return;
+    }
+
+    space.setNode(start, 0, start);
+    open.add(start, estimate(grid.getCol(start), grid.getRow(start)), 0);
+
+    reverseSpace.setNode(end, 0, end);
+    reverseOpen.add(end, heuristic.estimate(grid.getCol(end), grid.getRow(end),
+                                            grid.getCol(start),
+                                            grid.getRow(start)), 0);
+  }
+
+  public boolean step() {
+    if(isFinished()) {
+      return false;
+    }
+
+    if(isDone()) {
+      finish(meet >= 0);
+      return false;
+    }
+
+    if(open.size() <= reverseOpen.size()) {
+      expand(open, space, reverseOpen, reverseSpace, grid.getCol(end),
+             grid.getRow(end));
+    } else {
+      expand(reverseOpen, reverseSpace, open, space, grid.getCol(start),
+             grid.getRow(start));
+    }
+
+    return true;
+  }
+
+  /*
+   * Checks the stopping rule. An empty open list means that side has seen
+   * everything it can reach.
+   */
+  private boolean isDone() {
+    if(open.isEmpty() || reverseOpen.isEmpty()) {
+      return true;
+    }
+
+    if(meet < 0) {
+      return false;
+    }
+
+    if(heuristic == Heuristics.ZERO) {
+      return open.getG(open.peek()) + reverseOpen.getG(reverseOpen.peek()) >=
+          best;
+    }
+
+    return Math.max(open.getF(open.peek()), reverseOpen.getF(
+                    reverseOpen.peek())) >= best;
+  }
+
+  /*
+   * Expands the best node of one side, the same way AStarSearch does, and
+   * looks for a meeting with the other side.
+   */
+  private void expand(OpenList open, SearchSpace space, OpenList otherOpen,
+                      SearchSpace otherSpace, int goalCol, int goalRow) {
+    int current = open.poll();
+    space.close(current);
+    expanded++;
+
+    int col = grid.getCol(current);
+    int row = grid.getRow(current);
+    double g = space.getG(current);
+
+    for(int i = -1; i <= 1; i++) {
+      for(int j = -1; j <= 1; j++) {
+
+        if(i == 0 && j == 0) {
+          continue;
+        }
+
+        int xCoord = col + i;
+        int yCoord = row + j;
+        boolean diagonal = i != 0 && j != 0;
+
+        if(isWall(xCoord, yCoord) || diagonal &&
+            (isWall(xCoord, row) || isWall(col, yCoord))) {
+          continue;
+        }
+
+        int neighbor = grid.index(xCoord, yCoord);
+
+        if(space.isClosed(neighbor)) {
+          continue;
+        }
+
+        double gCost = g + grid.moveCost(col, row, i, j);
+
+        //a node the other side has reached joins the two halves of a path
+        if(otherOpen.contains(neighbor) || otherSpace.isClosed(neighbor)) {
+          double cost = gCost + otherSpace.getG(neighbor);
+          if(cost < best) {
+            best = cost;
+            meet = neighbor;
+            solution();
+          }
+        }
+
+        if(open.contains(neighbor)) {
+          if(gCost < open.getG(neighbor)) {
+            space.setNode(neighbor, gCost, current);
+            open.decreaseKey(neighbor, gCost + heuristic.estimate(xCoord,
+                             yCoord, goalCol, goalRow), gCost);
+          }
+          continue;
+        }
+
+        space.setNode(neighbor, gCost, current);
+        open.add(neighbor, gCost + heuristic.estimate(xCoord, yCoord, goalCol,
+                 goalRow), gCost);
+      }
+    }
+  }
+
+  protected double pathCost() {
+    return best;
+  }
+
+  /*
+   * Stitches the forward half of the path, start to meet, to the backward
+   * half, meet to end.
+   */
+  protected int[] constructPath() {
+    if(start == end) {
+      return new int[] {start};
+    }
+
+    int forward = 1;
+    for(int cell = meet; cell != start; cell = space.getParent(cell)) {
+      forward++;
+    }
+
+    int backward = 0;
+    for(int cell = meet; cell != end; cell = reverseSpace.getParent(cell)) {
+      backward++;
+    }
+
+    int[] path = new int[forward + backward];
+    for(int i = forward - 1, cell = meet; i >= 0; i--) {
+      path[i] = cell;
+      cell = space.getParent(cell);
+    }
+
+    for(int i = forward, cell = meet; i < path.length; i++) {
+      cell = reverseSpace.getParent(cell);
+      path[i] = cell;
+    }
+
+    return path;
+  }
+
+  public OpenList getReverseOpen() {
+    return reverseOpen;
+  }
+
+  public void setListener(SearchListener listener) {
+    super.setListener(listener);
+    reverseOpen = meter(reverseList);
+  }
+
+  public void setChangeLog(ChangeLog log) {
+    super.setChangeLog(log);
+    reverseOpen.setChangeLog(log);
+    reverseSpace.setChangeLog(log);
+  }
+
+  public SearchSpace getReverseSpace() {
+    return reverseSpace;
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Open list for the grid searches. It is a binary min-heap of cell indices
+ * (row * columns + column) with an extra slot table, so a cell can be found
+ * in the heap without scanning it.
+ * Nodes are ordered by their F cost and ties are broken on the lower G cost.
+ * Works with any costs, see BucketQueue for a faster list when they are
+ * whole numbers.
+ */
+
+import java.util.Arrays;
+
+public class BinaryHeap implements OpenList {
+
+  private int[] heap;     // cell index stored at every heap position
+  private double[] f, g;  // keys of the cell stored at every heap position
+  private int[] slot;     // heap position of every cell, -1 when not in the heap
+  private int size;
+
+  //told about cells joining and leaving the list, null when nobody watches
+  private ChangeLog log;
+
+  public BinaryHeap(int capacity) {
+    heap = new int[capacity];
+    f = new double[capacity];
+    g = new double[capacity];
+    slot = new int[capacity];
+    Arrays.fill(slot, -1);
+  }
+
+  public void ensureCapacity(int capacity) {
+    if(capacity <= slot.length) {
+      return;
+    }
+
+    int old = slot.length;
+    heap = Arrays.copyOf(heap, capacity);
+    f = Arrays.copyOf(f, capacity);
+    g = Arrays.copyOf(g, capacity);
+    slot = Arrays.copyOf(slot, capacity);
+    Arrays.fill(slot, old, capacity, -1);
+  }
+
+  public void setChangeLog(ChangeLog log) {
+    this.log = log;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(int cell) {
+    return slot[cell] >= 0;
+  }
+
+  public int peek() {
+    return size == 0 ? -1 : heap[0];
+  }
+
+  public int get(int i) {
+    return heap[i];
+  }
+
+  public double getF(int cell) {
+    return f[slot[cell]];
+  }
+
+  public double getG(int cell) {
+    return g[slot[cell]];
+  }
+
+  public void add(int cell, double fCost, double gCost) {
+    int i = size++;
+    heap[i] = cell;
+    f[i] = fCost;
+    g[i] = gCost;
+    slot[cell] = i;
+    siftUp(i);
+
+    if(log != null) {
+      log.mark(cell);
+    }
+  }
+
+  public void decreaseKey(int cell, double fCost, double gCost) {
+    int i = slot[cell];
+    f[i] = fCost;
+    g[i] = gCost;
+    siftUp(i);
+  }
+
+  public void update(int cell, double fCost, double gCost) {
+    int i = slot[cell];
+    f[i] = fCost;
+    g[i] = gCost;
+    siftUp(i);
+    siftDown(slot[cell]);
+  }
+
+  public void remove(int cell) {
+    int i = slot[cell];
+    slot[cell] = -1;
+    size--;
+
+    if(log != null) {
+      log.mark(cell);
+    }
+
+    if(i < size) {
+      int last = heap[size];
+      move(size, i);
+      siftUp(i);
+      siftDown(slot[last]);
+    }
+  }
+
+  public int poll() {
+    if(size == 0) {
+      return -1;
+    }
+
+    int min = heap[0];
+    slot[min] = -1;
+    size--;
+
+    if(log != null) {
+      log.mark(min);
+    }
+
+    if(size > 0) {
+      move(size, 0);
+      siftDown(0);
+    }
+
+    return min;
+  }
+
+  public void clear() {
+    for(int i = 0; i < size; i++) {
+      slot[heap[i]] = -1;
+
+      if(log != null) {
+        log.mark(heap[i]);
+      }
+    }
+    size = 0;
+  }
+
+  private boolean less(int i, int j) {
+    if(f[i] != f[j]) {
+      return f[i] < f[j];
+    }
+    return g[i] < g[j];
+  }
+
+  private void siftUp(int i) {
+    while(i > 0) {
+      int parent = (i - 1) >>> 1;
+      if(!less(i, parent)) {
+        break;
+      }
+      swap(i, parent);
+      i = parent;
+    }
+  }
+
+  private void siftDown(int i) {
+    int half = size >>> 1;
+    while(i < half) {
+      int child = 2 * i + 1;
+      if(child + 1 < size && less(child + 1, child)) {
+        child++;
+      }
+      if(!less(child, i)) {
+        break;
+      }
+      swap(i, child);
+      i = child;
+    }
+  }
+
+  private void swap(int i, int j) {
+    int cell = heap[i];
+    double fCost = f[i];
+    double gCost = g[i];
+
+    move(j, i);
+
+    heap[j] = cell;
+    f[j] = fCost;
+    g[j] = gCost;
+    slot[cell] = j;
+  }
+
+  private void move(int from, int to) {
+    heap[to] = heap[from];
+    f[to] = f[from];
+    g[to] = g[from];
+    slot[heap[to]] = to;
+  }
+}
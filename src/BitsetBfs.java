@@ -0,0 +1,368 @@
+/*
+ * Breadth first search over the wall bits of a Grid, 64 cells at a time.
+ * The frontier and the cells seen are bitsets laid out like the walls, a
+ * row starting on a fresh word, and a whole layer is found with shifts, ands
+ * and ors over the words: a cell joins the next layer if it is free, not
+ * seen yet and next to a frontier cell. Diagonal neighbors need both cells
+ * beside the move free, which is the frontier shifted down or up and masked
+ * with the free cells, then shifted sideways and masked again.
+ * Every move counts as one, so this gives the fewest moves, not the
+ * cheapest path. The layer of every cell seen is kept modulo 3 in two more
+ * bitsets, which is enough to walk back: the neighbors of a cell are at
+ * most one layer apart, so the one a layer below is the one with the layer
+ * before modulo 3.
+ * Only rows next to the frontier are looked at, and only the words next to
+ * frontier words, found from a bit per frontier word that is not 0. The
+ * cells already seen inside a growing frontier are never read again, and a
+ * thin frontier winding through a maze costs a few words per layer.
+ */
+
+import java.util.Arrays;
+
+public class BitsetBfs {
+
+  //the 8 moves, straight ones first
+  private static final int[] MOVE_X = {1, 0, -1, 0, 1, -1, -1, 1};
+  private static final int[] MOVE_Y = {0, 1, 0, -1, 1, 1, -1, -1};
+
+  private final Grid grid;
+  private final int rows, words;
+
+  //words of the summary of a row, a bit per frontier word
+  private final int summaryWords;
+
+  //the bits of the last word of a row that are columns
+  private final long lastMask;
+
+  //frontier of the layer just found and the one being found
+  private long[] frontier, next;
+  private final long[] seen;
+
+  //layer modulo 3 of every cell seen, low and high bit
+  private final long[] layerLow, layerHigh;
+
+  //rows holding frontier cells, and which frontier words of every row are
+  //not 0
+  private int[] active, nextActive;
+  private int activeCount, nextCount;
+  private long[] summary, nextSummary;
+
+  //stamp of the layer each row was last queued for
+  private final int[] rowStamp;
+
+  private int layer;
+  private long reached;
+
+  public BitsetBfs(Grid grid) {
+    this.grid = grid;
+    rows = grid.getRows();
+    words = grid.getWordsPerRow();
+
+    summaryWords = (words + 63) >>> 6;
+
+    int bits = grid.getCols() & 63;
+    lastMask = bits == 0 ? -1L : (1L << bits) - 1;
+
+    frontier = new long[rows * words];
+    next = new long[frontier.length];
+    seen = new long[frontier.length];
+    layerLow = new long[frontier.length];
+    layerHigh = new long[frontier.length];
+
+    active = new int[rows];
+    nextActive = new int[rows];
+    summary = new long[rows * summaryWords];
+    nextSummary = new long[summary.length];
+    rowStamp = new int[rows];
+  }
+
+  /*
+   * Starts over from a free cell, which is layer 0.
+   */
+  public void begin(int start) {
+    clearFrontier();
+    Arrays.fill(seen, 0L);
+    Arrays.fill(layerLow, 0L);
+    Arrays.fill(layerHigh, 0L);
+    Arrays.fill(rowStamp, 0);
+
+    int col = grid.getCol(start);
+    int row = grid.getRow(start);
+    int word = row * words + (col >>> 6);
+    frontier[word] = 1L << col;
+    seen[word] = 1L << col;
+    summary[row * summaryWords + (col >>> 12)] = 1L << (col >>> 6);
+    active[0] = row;
+    activeCount = 1;
+
+    layer = 0;
+    reached = 1;
+  }
+
+  /*
+   * Finds the next layer. Returns false if it is empty, when every cell that
+   * can be reached has been.
+   */
+  public boolean expand() {
+    layer++;
+    nextCount = 0;
+
+    //cells of this layer are marked with the layer modulo 3
+    int mod = layer % 3;
+    boolean low = (mod & 1) != 0;
+    boolean high = (mod & 2) != 0;
+
+    for(int i = 0; i < activeCount; i++) {
+      int row = active[i];
+      for(int y = Math.max(row - 1, 0); y <= Math.min(row + 1, rows - 1);
+          y++) {
+        if(rowStamp[y] != layer) {
+          rowStamp[y] = layer;
+          expandRow(y, low, high);
+        }
+      }
+    }
+
+    //the old frontier is cleared and becomes the next one
+    clearFrontier();
+
+    long[] swap = frontier;
+    frontier = next;
+    next = swap;
+
+    int[] rowSwap = active;
+    active = nextActive;
+    nextActive = rowSwap;
+    activeCount = nextCount;
+
+    swap = summary;
+    summary = nextSummary;
+    nextSummary = swap;
+
+    return activeCount > 0;
+  }
+
+  /*
+   * Zeroes the words of the frontier that are not 0 and their summary.
+   */
+  private void clearFrontier() {
+    for(int i = 0; i < activeCount; i++) {
+      int row = active[i];
+      for(int k = 0; k < summaryWords; k++) {
+        long bits = summary[row * summaryWords + k];
+        while(bits != 0) {
+          int w = (k << 6) + Long.numberOfTrailingZeros(bits);
+          frontier[row * words + w] = 0;
+          bits &= bits - 1;
+        }
+        summary[row * summaryWords + k] = 0;
+      }
+    }
+  }
+
+  /*
+   * Finds the cells of row y in the next layer, looking only at the words
+   * next to the frontier words of the rows around it.
+   */
+  private void expandRow(int y, boolean low, boolean high) {
+    for(int k = 0; k < summaryWords; k++) {
+      //frontier words above, in and below the row, spread to their
+      //neighbors
+      long near = around(y, k);
+      near |= near << 1 | near >>> 1 | around(y, k - 1) >>> 63 |
+          around(y, k + 1) << 63;
+
+      while(near != 0) {
+        int w = (k << 6) + Long.numberOfTrailingZeros(near);
+        near &= near - 1;
+        if(w < words) {
+          expandWord(y, w, low, high);
+        }
+      }
+    }
+  }
+
+  private long around(int y, int k) {
+    if(k < 0 || k >= summaryWords) {
+      return 0;
+    }
+
+    long bits = summary[y * summaryWords + k];
+    if(y > 0) {
+      bits |= summary[(y - 1) * summaryWords + k];
+    }
+    if(y < rows - 1) {
+      bits |= summary[(y + 1) * summaryWords + k];
+    }
+    return bits;
+  }
+
+  private void expandWord(int y, int w, boolean low, boolean high) {
+    long middle = free(y, w);
+    long free = middle & ~seen[y * words + w];
+    if(free == 0) {
+      return;
+    }
+    long left = free(y, w - 1);
+    long right = free(y, w + 1);
+
+    //sideways in the row
+    long cells = (frontier(y, w) << 1 | frontier(y, w - 1) >>> 63 |
+                  frontier(y, w) >>> 1 | frontier(y, w + 1) << 63);
+
+    //down from the row above and diagonally down past the free cells on
+    //both sides of the move, then the same up from the row below
+    cells |= reach(y - 1, w, left, middle, right);
+    cells |= reach(y + 1, w, left, middle, right);
+
+    cells &= free;
+    if(cells == 0) {
+      return;
+    }
+
+    int index = y * words + w;
+    next[index] = cells;
+    seen[index] |= cells;
+    if(low) {
+      layerLow[index] |= cells;
+    }
+    if(high) {
+      layerHigh[index] |= cells;
+    }
+    reached += Long.bitCount(cells);
+
+    if(!hasNext(y)) {
+      nextActive[nextCount++] = y;
+    }
+    nextSummary[y * summaryWords + (w >>> 6)] |= 1L << w;
+  }
+
+  private boolean hasNext(int y) {
+    for(int k = 0; k < summaryWords; k++) {
+      if(nextSummary[y * summaryWords + k] != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /*
+   * Cells of word w of a row reached from the frontier of row from, one row
+   * above or below: straight, or diagonally when the cell beside the move in
+   * both rows is free. left, middle and right are the free cells of words
+   * w - 1, w and w + 1 of the row.
+   */
+  private long reach(int from, int w, long left, long middle, long right) {
+    if(from < 0 || from >= rows) {
+      return 0;
+    }
+
+    //frontier cells whose straight neighbor in the row is free
+    middle &= frontier(from, w);
+    left &= frontier(from, w - 1);
+    right &= frontier(from, w + 1);
+
+    long diagonal = (middle << 1 | left >>> 63 | middle >>> 1 | right << 63) &
+        free(from, w);
+    return middle | diagonal;
+  }
+
+  private long frontier(int row, int w) {
+    return w < 0 || w >= words ? 0 : frontier[row * words + w];
+  }
+
+  private long free(int row, int w) {
+    if(w < 0 || w >= words) {
+      return 0;
+    }
+    return ~grid.getWallWord(row, w) & (w == words - 1 ? lastMask : -1L);
+  }
+
+  public boolean isReached(int cell) {
+    return bit(seen, cell);
+  }
+
+  private boolean bit(long[] bits, int cell) {
+    int col = grid.getCol(cell);
+    return (bits[grid.getRow(cell) * words + (col >>> 6)] & 1L << col) != 0;
+  }
+
+  /*
+   * Layer of a reached cell modulo 3.
+   */
+  private int layerMod(int cell) {
+    return (bit(layerLow, cell) ? 1 : 0) | (bit(layerHigh, cell) ? 2 : 0);
+  }
+
+  /*
+   * Cells from the start to a reached cell, which is in the last layer
+   * found. Walks back through the layers preferring straight moves, so of
+   * the paths with the fewest moves it takes one with few diagonals.
+   */
+  public int[] path(int end) {
+    int[] path = new int[layer + 1];
+    int cell = end;
+
+    for(int i = layer; i > 0; i--) {
+      path[i] = cell;
+      int want = (i + 2) % 3;
+      int col = grid.getCol(cell);
+      int row = grid.getRow(cell);
+      int previous = -1;
+
+      for(int d = 0; d < 8 && previous < 0; d++) {
+        int x = col + MOVE_X[d];
+        int y = row + MOVE_Y[d];
+        if(grid.isWall(x, y) || grid.isWall(x, row) || grid.isWall(col, y)) {
+          continue;
+        }
+
+        int other = grid.index(x, y);
+        if(isReached(other) && layerMod(other) == want) {
+          previous = other;
+        }
+      }
+      cell = previous;
+    }
+
+    path[0] = cell;
+    return path;
+  }
+
+  /*
+   * Layers found so far, the moves from the start to the last one.
+   */
+  public int getLayer() {
+    return layer;
+  }
+
+  /*
+   * Cells reached so far, the start included.
+   */
+  public long getReached() {
+    return reached;
+  }
+
+  /*
+   * Rows holding cells of the last layer found, for walking it.
+   */
+  public int getFrontierRows() {
+    return activeCount;
+  }
+
+  public int getFrontierRow(int i) {
+    return active[i];
+  }
+
+  /*
+   * Cells of the last layer in one word of a row, bit (col & 63) of word
+   * (col >>> 6).
+   */
+  public long getFrontierWord(int row, int word) {
+    return frontier[row * words + word];
+  }
+
+  public Grid getGrid() {
+    return grid;
+  }
+}
@@ -0,0 +1,236 @@
+/*
+ * Open list for whole number costs (Dial's algorithm). Instead of a heap it
+ * keeps one bucket per F cost, each a doubly linked list of cells threaded
+ * through per cell arrays, so adding, moving and removing a cell is O(1) and
+ * poll() only has to walk up to the next bucket that is not empty.
+ * The buckets form a ring over the costs from the lowest one in the list.
+ * With the move costs of a grid and a consistent heuristic the costs in the
+ * list never spread far, and the ring grows when they do.
+ * F costs have to be whole numbers, which holds for Dijkstra and for A* with
+ * any heuristic but EUCLIDEAN. Within a bucket the last cell added comes out
+ * first.
+ */
+
+import java.util.Arrays;
+
+public class BucketQueue implements OpenList {
+
+  private static final int NONE = -1;
+
+  private int[] head;     // first cell of every bucket, NONE when empty
+  private int mask;       // bucket of cost k is k & mask
+
+  private int[] next, prev;  // neighbors of a cell in its bucket
+  private int[] key;         // F cost of every cell in the list
+  private double[] g;
+
+  //cells in the list, for size() and get(), and the position of every cell
+  //in it, NONE when not in the list
+  private int[] items, position;
+  private int size;
+
+  //no cell in the list has a cost below low or above high
+  private int low, high;
+
+  //told about cells joining and leaving the list, null when nobody watches
+  private ChangeLog log;
+
+  public BucketQueue(int capacity) {
+    head = new int[256];
+    Arrays.fill(head, NONE);
+    mask = head.length - 1;
+
+    next = new int[capacity];
+    prev = new int[capacity];
+    key = new int[capacity];
+    g = new double[capacity];
+    items = new int[capacity];
+    position = new int[capacity];
+    Arrays.fill(position, NONE);
+  }
+
+  public void ensureCapacity(int capacity) {
+    if(capacity <= position.length) {
+      return;
+    }
+
+    int old = position.length;
+    next = Arrays.copyOf(next, capacity);
+    prev = Arrays.copyOf(prev, capacity);
+    key = Arrays.copyOf(key, capacity);
+    g = Arrays.copyOf(g, capacity);
+    items = Arrays.copyOf(items, capacity);
+    position = Arrays.copyOf(position, capacity);
+    Arrays.fill(position, old, capacity, NONE);
+  }
+
+  public void setChangeLog(ChangeLog log) {
+    this.log = log;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(int cell) {
+    return position[cell] != NONE;
+  }
+
+  public int peek() {
+    if(size == 0) {
+      return NONE;
+    }
+
+    while(head[low & mask] == NONE) {
+      low++;
+    }
+    return head[low & mask];
+  }
+
+  public int get(int i) {
+    return items[i];
+  }
+
+  public double getF(int cell) {
+    return key[cell];
+  }
+
+  public double getG(int cell) {
+    return g[cell];
+  }
+
+  public void add(int cell, double fCost, double gCost) {
+    position[cell] = size;
+    items[size++] = cell;
+    g[cell] = gCost;
+    link(cell, toKey(fCost));
+
+    if(log != null) {
+      log.mark(cell);
+    }
+  }
+
+  public void decreaseKey(int cell, double fCost, double gCost) {
+    update(cell, fCost, gCost);
+  }
+
+  public void update(int cell, double fCost, double gCost) {
+    unlink(cell);
+    g[cell] = gCost;
+    link(cell, toKey(fCost));
+  }
+
+  public void remove(int cell) {
+    unlink(cell);
+
+    //the last cell of the list takes the place of the removed one
+    int last = items[--size];
+    items[position[cell]] = last;
+    position[last] = position[cell];
+    position[cell] = NONE;
+
+    if(log != null) {
+      log.mark(cell);
+    }
+  }
+
+  public int poll() {
+    int cell = peek();
+    if(cell != NONE) {
+      remove(cell);
+    }
+    return cell;
+  }
+
+  public void clear() {
+    for(int i = 0; i < size; i++) {
+      int cell = items[i];
+      head[key[cell] & mask] = NONE;
+      position[cell] = NONE;
+
+      if(log != null) {
+        log.mark(cell);
+      }
+    }
+    size = 0;
+  }
+
+  private static int toKey(double fCost) {
+    int k = (int) fCost;
+    if(k != fCost) {
+      throw new IllegalArgumentException("BucketQueue needs whole number " +
+                                         "costs, got " + fCost);
+    }
+    return k;
+  }
+
+  /*
+   * Puts a cell at the front of the bucket for cost k, growing the ring if
+   * the costs in the list would no longer fit in it.
+   */
+  private void link(int cell, int k) {
+    if(size == 1) {
+      low = high = k;
+    } else {
+      low = Math.min(low, k);
+      high = Math.max(high, k);
+    }
+
+    key[cell] = k;
+
+    //growing puts every cell in the list back, this one included
+    if(high - low > mask) {
+      grow(high - low + 1);
+      return;
+    }
+
+    int first = head[k & mask];
+    prev[cell] = NONE;
+    next[cell] = first;
+    if(first != NONE) {
+      prev[first] = cell;
+    }
+    head[k & mask] = cell;
+  }
+
+  private void unlink(int cell) {
+    if(prev[cell] == NONE) {
+      head[key[cell] & mask] = next[cell];
+    } else {
+      next[prev[cell]] = next[cell];
+    }
+
+    if(next[cell] != NONE) {
+      prev[next[cell]] = prev[cell];
+    }
+  }
+
+  /*
+   * Doubles the ring until span costs fit and puts every cell back in.
+   */
+  private void grow(int span) {
+    int length = head.length;
+    while(length < span) {
+      length *= 2;
+    }
+
+    head = new int[length];
+    Arrays.fill(head, NONE);
+    mask = length - 1;
+
+    for(int i = 0; i < size; i++) {
+      int cell = items[i];
+      int first = head[key[cell] & mask];
+      prev[cell] = NONE;
+      next[cell] = first;
+      if(first != NONE) {
+        prev[first] = cell;
+      }
+      head[key[cell] & mask] = cell;
+    }
+  }
+}
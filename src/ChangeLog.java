@@ -0,0 +1,62 @@
+/*
+ * Cells whose look on screen changed since the GUI last drew them. Searches,
+ * the grid and the path finder mark cells as they change them, and the
+ * controller redraws just those cells instead of the whole grid.
+ * Each cell is logged once however often it changes between two frames.
+ */
+
+import java.util.Arrays;
+
+public class ChangeLog {
+
+  private final long[] marked;
+  private int[] cells;
+  private int count;
+
+  //set when everything has to be drawn again
+  private boolean all;
+
+  public ChangeLog(int size) {
+    marked = new long[(size + 63) >>> 6];
+    cells = new int[64];
+  }
+
+  public void mark(int cell) {
+    if(all || (marked[cell >>> 6] & (1L << cell)) != 0) {
+      return;
+    }
+
+    marked[cell >>> 6] |= 1L << cell;
+    if(count == cells.length) {
+      cells = Arrays.copyOf(cells, 2 * count);
+    }
+    cells[count++] = cell;
+  }
+
+  public void markAll() {
+    all = true;
+  }
+
+  public boolean isAll() {
+    return all;
+  }
+
+  public int size() {
+    return count;
+  }
+
+  public int get(int i) {
+    return cells[i];
+  }
+
+  /*
+   * Forgets the logged cells, called once they have been drawn.
+   */
+  public void clear() {
+    for(int i = 0; i < count; i++) {
+      marked[cells[i] >>> 6] &= ~(1L << cells[i]);
+    }
+    count = 0;
+    all = false;
+  }
+}
@@ -0,0 +1,425 @@
+/*
+ * Abstract graph used by HierarchicalSearch (HPA*). The grid is cut into
+ * square clusters. Where two clusters touch, every open stretch of their
+ * border is an entrance: short ones get one transition in the middle, long
+ * ones get one at each end. The cells on both sides of a transition are the
+ * nodes of the graph, linked across the border by a straight move and to the
+ * other nodes of their own cluster by the cost of the shortest path that
+ * stays inside the cluster.
+ * Changes to a cell only mark the cluster they happen in, and the borders the
+ * cell lies on, as dirty. Those are rebuilt on the next update().
+ * Read up on it from: https://webdocs.cs.ualberta.ca/~mmueller/ps/hpastar.pdf
+ */
+
+import java.util.Arrays;
+
+public class ClusterGraph implements Grid.Listener {
+
+  public static final int DEFAULT_CLUSTER_SIZE = 16;
+
+  //entrances at least this long get a transition at each end
+  private static final int LONG_ENTRANCE = 6;
+
+  private final Grid grid;
+  private final int size;
+  private final int clusterCols, clusterRows;
+
+  //transitions on the east and south border of every cluster, stored as pairs
+  //of cells: the one in this cluster and the one in the neighbor cluster
+  private final int[][] east, south;
+
+  //nodes of every cluster and the cost between each two of them
+  private final int[][] nodes;
+  private final double[][] costs;
+
+  private final boolean[] dirtyCluster, dirtyEast, dirtySouth;
+  private boolean dirty;
+
+  //search restricted to one cluster, cells indexed inside the cluster
+  private final OpenList localOpen;
+  private final SearchSpace local;
+  private int localCluster, localSource;
+
+  public ClusterGraph(Grid grid, int size) {
+    this.grid = grid;
+    this.size = size;
+
+    clusterCols = (grid.getCols() + size - 1) / size;
+    clusterRows = (grid.getRows() + size - 1) / size;
+
+    int clusters = clusterCols * clusterRows;
+    east = new int[clusters][];
+    south = new int[clusters][];
+    nodes = new int[clusters][];
+    costs = new double[clusters][];
+
+    dirtyCluster = new boolean[clusters];
+    dirtyEast = new boolean[clusters];
+    dirtySouth = new boolean[clusters];
+    Arrays.fill(dirtyCluster, true);
+    Arrays.fill(dirtyEast, true);
+    Arrays.fill(dirtySouth, true);
+    dirty = true;
+
+    localOpen = new BinaryHeap(size * size);
+    local = new SearchSpace(size * size);
+    localCluster = -1;
+
+    grid.addListener(this);
+  }
+
+  /*
+   * Stops following the grid, the graph must not be used after this.
+   */
+  public void close() {
+    grid.removeListener(this);
+  }
+
+  public int getClusterSize() {
+    return size;
+  }
+
+  public int clusterOf(int cell) {
+    return (grid.getRow(cell) / size) * clusterCols + grid.getCol(cell) / size;
+  }
+
+  /*
+   * Index of a cell inside its cluster.
+   */
+  public int localIndex(int cell) {
+    return (grid.getRow(cell) % size) * size + grid.getCol(cell) % size;
+  }
+
+  /*
+   * Marks the cluster holding the cell dirty, along with each border the cell
+   * lies on, since its entrances may have changed.
+   */
+  public void cellChanged(int col, int row) {
+    int cx = col / size;
+    int cy = row / size;
+    int cluster = cy * clusterCols + cx;
+
+    dirtyCluster[cluster] = true;
+    dirty = true;
+
+    if(col % size == 0 && cx > 0) {
+      dirtyEast[cluster - 1] = true;
+    }
+    if(col % size == size - 1) {
+      dirtyEast[cluster] = true;
+    }
+    if(row % size == 0 && cy > 0) {
+      dirtySouth[cluster - clusterCols] = true;
+    }
+    if(row % size == size - 1) {
+      dirtySouth[cluster] = true;
+    }
+
+    if(localCluster == cluster) {
+      localCluster = -1;
+    }
+  }
+
+  public void gridChanged() {
+    Arrays.fill(dirtyCluster, true);
+    Arrays.fill(dirtyEast, true);
+    Arrays.fill(dirtySouth, true);
+    dirty = true;
+    localCluster = -1;
+  }
+
+  /*
+   * Rebuilds the dirty borders, then the nodes and costs of every cluster
+   * that is dirty or next to a rebuilt border.
+   */
+  public void update() {
+    if(!dirty) {
+      return;
+    }
+
+    for(int cluster = 0; cluster < nodes.length; cluster++) {
+      int cx = cluster % clusterCols;
+      int cy = cluster / clusterCols;
+
+      if(dirtyEast[cluster]) {
+        east[cluster] = cx + 1 < clusterCols ? buildBorder(cx, cy, 1, 0) :
+            new int[0];
+        dirtyEast[cluster] = false;
+        dirtyCluster[cluster] = true;
+        if(cx + 1 < clusterCols) {
+          dirtyCluster[cluster + 1] = true;
+        }
+      }
+
+      if(dirtySouth[cluster]) {
+        south[cluster] = cy + 1 < clusterRows ? buildBorder(cx, cy, 0, 1) :
+            new int[0];
+        dirtySouth[cluster] = false;
+        dirtyCluster[cluster] = true;
+        if(cy + 1 < clusterRows) {
+          dirtyCluster[cluster + clusterCols] = true;
+        }
+      }
+    }
+
+    for(int cluster = 0; cluster < nodes.length; cluster++) {
+      if(dirtyCluster[cluster]) {
+        buildCluster(cluster);
+        dirtyCluster[cluster] = false;
+      }
+    }
+
+    localCluster = -1;
+    dirty = false;
+  }
+
+  /*
+   * Finds the transitions on the east (dx = 1) or south (dy = 1) border of a
+   * cluster.
+   */
+  private int[] buildBorder(int cx, int cy, int dx, int dy) {
+    //first cell of the border on this side and the step along the border
+    int col = dx != 0 ? Math.min((cx + 1) * size, grid.getCols()) - 1 : cx * size;
+    int row = dy != 0 ? Math.min((cy + 1) * size, grid.getRows()) - 1 : cy * size;
+    int length = dx != 0 ? Math.min(size, grid.getRows() - row) :
+        Math.min(size, grid.getCols() - col);
+
+    int[] transitions = new int[4 * length];
+    int count = 0;
+    int run = -1;
+
+    for(int i = 0; i <= length; i++) {
+      int x = col + dy * i;
+      int y = row + dx * i;
+      boolean open = i < length && !grid.isWall(x, y) && !grid.isWall(x + dx,
+                                                                     y + dy);
+
+      if(open && run < 0) {
+        run = i;
+      } else if(!open && run >= 0) {
+        int last = i - 1;
+
+        if(last - run + 1 >= LONG_ENTRANCE) {
+          count = addTransition(transitions, count, col + dy * run, row + dx * run,
+                                dx, dy);
+          count = addTransition(transitions, count, col + dy * last, row + dx *
+                                last, dx, dy);
+        } else {
+          int mid = (run + last) / 2;
+          count = addTransition(transitions, count, col + dy * mid, row + dx * mid,
+                                dx, dy);
+        }
+        run = -1;
+      }
+    }
+
+    return Arrays.copyOf(transitions, count);
+  }
+
+  private int addTransition(int[] transitions, int count, int col, int row,
+                            int dx, int dy) {
+    transitions[count] = grid.index(col, row);
+    transitions[count + 1] = grid.index(col + dx, row + dy);
+    return count + 2;
+  }
+
+  /*
+   * Collects the nodes of a cluster from its 4 borders and finds the cost
+   * between every two of them.
+   */
+  private void buildCluster(int cluster) {
+    int cx = cluster % clusterCols;
+    int cy = cluster / clusterCols;
+
+    int[] found = new int[0];
+    found = collect(found, east[cluster], 0);
+    found = collect(found, south[cluster], 0);
+    if(cx > 0) {
+      found = collect(found, east[cluster - 1], 1);
+    }
+    if(cy > 0) {
+      found = collect(found, south[cluster - clusterCols], 1);
+    }
+
+    Arrays.sort(found);
+    int count = 0;
+    for(int i = 0; i < found.length; i++) {
+      if(i == 0 || found[i] != found[i - 1]) {
+        found[count++] = found[i];
+      }
+    }
+    found = Arrays.copyOf(found, count);
+
+    double[] cost = new double[count * count];
+    for(int i = 0; i < count; i++) {
+      search(cluster, found[i]);
+      for(int j = 0; j < count; j++) {
+        cost[i * count + j] = getLocalCost(found[j]);
+      }
+    }
+
+    nodes[cluster] = found;
+    costs[cluster] = cost;
+  }
+
+  /*
+   * Appends the cells of one side of the transitions: 0 for the first cell of
+   * each pair, 1 for the second.
+   */
+  private static int[] collect(int[] found, int[] transitions, int side) {
+    int[] all = Arrays.copyOf(found, found.length + transitions.length / 2);
+    for(int i = 0; i < transitions.length; i += 2) {
+      all[found.length + i / 2] = transitions[i + side];
+    }
+    return all;
+  }
+
+  public int[] getNodes(int cluster) {
+    return nodes[cluster];
+  }
+
+  /*
+   * Cost of the shortest path between node i and node j of a cluster that
+   * stays inside it, infinite when there is none.
+   */
+  public double getCost(int cluster, int i, int j) {
+    return costs[cluster][i * nodes[cluster].length + j];
+  }
+
+  /*
+   * Position of a cell in the node list of its cluster, -1 if it is no node.
+   */
+  public int nodeIndex(int cluster, int cell) {
+    int[] list = nodes[cluster];
+    for(int i = 0; i < list.length; i++) {
+      if(list[i] == cell) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * Fills out with the cells linked to a node across cluster borders and
+   * returns how many there are. out needs room for 4 cells.
+   */
+  public int partners(int cell, int[] out) {
+    int cluster = clusterOf(cell);
+    int cx = cluster % clusterCols;
+    int cy = cluster / clusterCols;
+
+    int count = 0;
+    count = partners(east[cluster], cell, 0, out, count);
+    count = partners(south[cluster], cell, 0, out, count);
+    if(cx > 0) {
+      count = partners(east[cluster - 1], cell, 1, out, count);
+    }
+    if(cy > 0) {
+      count = partners(south[cluster - clusterCols], cell, 1, out, count);
+    }
+    return count;
+  }
+
+  private static int partners(int[] transitions, int cell, int side, int[] out,
+                              int count) {
+    for(int i = 0; i < transitions.length; i += 2) {
+      if(transitions[i + side] == cell) {
+        out[count++] = transitions[i + 1 - side];
+      }
+    }
+    return count;
+  }
+
+  /*
+   * Dijkstra from source over the cells of one cluster only. The results are
+   * read with getLocalCost() and getLocalPath().
+   */
+  public void search(int cluster, int source) {
+    if(localCluster == cluster && localSource == source) {
+      return;
+    }
+
+    int x0 = (cluster % clusterCols) * size;
+    int y0 = (cluster / clusterCols) * size;
+    int x1 = Math.min(x0 + size, grid.getCols());
+    int y1 = Math.min(y0 + size, grid.getRows());
+
+    local.reset();
+    localOpen.clear();
+
+    int first = localIndex(source);
+    local.setNode(first, 0, first);
+    localOpen.add(first, 0, 0);
+
+    while(!localOpen.isEmpty()) {
+      int current = localOpen.poll();
+      local.close(current);
+
+      int col = x0 + current % size;
+      int row = y0 + current / size;
+
+      for(int i = -1; i <= 1; i++) {
+        for(int j = -1; j <= 1; j++) {
+          int xCoord = col + i;
+          int yCoord = row + j;
+          boolean diagonal = i != 0 && j != 0;
+
+          if((i == 0 && j == 0) || xCoord < x0 || yCoord < y0 || xCoord >= x1 ||
+              yCoord >= y1) {
+            continue;
+          }
+
+          if(grid.isWall(xCoord, yCoord) || diagonal &&
+              (grid.isWall(xCoord, row) || grid.isWall(col, yCoord))) {
+            continue;
+          }
+
+          int neighbor = (yCoord - y0) * size + (xCoord - x0);
+          double gCost = local.getG(current) + grid.moveCost(col, row, i, j);
+
+          if(local.isClosed(neighbor) || gCost >= local.getG(neighbor)) {
+            continue;
+          }
+
+          if(localOpen.contains(neighbor)) {
+            localOpen.decreaseKey(neighbor, gCost, gCost);
+          } else {
+            localOpen.add(neighbor, gCost, gCost);
+          }
+          local.setNode(neighbor, gCost, current);
+        }
+      }
+    }
+
+    localCluster = cluster;
+    localSource = source;
+  }
+
+  /*
+   * Cost from the source of the last search() to a cell of the same cluster.
+   */
+  public double getLocalCost(int cell) {
+    return local.getG(localIndex(cell));
+  }
+
+  /*
+   * Cells from the source of the last search() to target, both included.
+   */
+  public int[] getLocalPath(int target) {
+    int x0 = (localCluster % clusterCols) * size;
+    int y0 = (localCluster / clusterCols) * size;
+
+    int length = 1;
+    for(int i = localIndex(target); local.getParent(i) != i;
+        i = local.getParent(i)) {
+      length++;
+    }
+
+    int[] path = new int[length];
+    for(int k = length - 1, i = localIndex(target); k >= 0; k--) {
+      path[k] = grid.index(x0 + i % size, y0 + i / size);
+      i = local.getParent(i);
+    }
+    return path;
+  }
+}
@@ -0,0 +1,402 @@
+/*
+ * Labels every free cell of a Grid with the connected component it belongs
+ * to, so that whether the end can be reached from the start is known before
+ * a search wastes time draining everything reachable from the start.
+ * Diagonal moves may not cut corners, so both cells next to a diagonal move
+ * are free and its two ends are already joined through them: the components
+ * of the 8 way moves are the 4 way connected regions of free cells.
+ * Labels are the nodes of a union-find structure and the component of a cell
+ * is the root of its label. The index follows wall changes without being
+ * built again:
+ * - a removed wall joins the labels of its free neighbors,
+ * - an added wall can only split its component if its free neighbors are not
+ *   joined around it. Then a search from each of them runs in lockstep until
+ *   all but one have met or run out, and the ones that ran out, the smaller
+ *   pieces, get new labels.
+ * Queries only read, so several threads can ask while the grid is left alone.
+ */
+
+import java.util.Arrays;
+
+public class ComponentIndex implements Grid.Listener {
+
+  private static final int WALL = -1;
+
+  //offsets of the 8 cells around a cell in ring order, starting top left
+  private static final int[] RING_COL = {-1, 0, 1, 1, 1, 0, -1, -1};
+  private static final int[] RING_ROW = {-1, -1, -1, 0, 1, 1, 1, 0};
+
+  private final Grid grid;
+
+  //label of every cell, WALL for walls
+  private final int[] label;
+
+  //union-find over the labels
+  private int[] parent, rank;
+  private int labels;
+
+  //lockstep searches of a split, one per free neighbor of the new wall
+  private final int[][] queue = new int[4][];
+  private final int[] head = new int[4], tail = new int[4];
+  private final int[] group = new int[4];
+  private final boolean[] done = new boolean[4];
+
+  //cells seen by the current split and which of its searches saw them
+  private final int[] seen;
+  private final byte[] owner;
+  private int epoch;
+
+  public ComponentIndex(Grid grid) {
+    this.grid = grid;
+
+    label = new int[grid.size()];
+    seen = new int[grid.size()];
+    owner = new byte[grid.size()];
+    for(int i = 0; i < queue.length; i++) {
+      queue[i] = new int[64];
+    }
+
+    build();
+    grid.addListener(this);
+  }
+
+  /*
+   * Stops following the grid, the index must not be used after this.
+   */
+  public void close() {
+    grid.removeListener(this);
+  }
+
+  /*
+   * True if a path from a to b exists, which needs both cells to be free.
+   */
+  public boolean connected(int a, int b) {
+    return label[a] != WALL && label[b] != WALL && root(label[a]) ==
+        root(label[b]);
+  }
+
+  /*
+   * Component of a cell, the same number for every cell of a component until
+   * the next wall change. -1 for walls.
+   */
+  public int componentOf(int cell) {
+    return label[cell] == WALL ? WALL : root(label[cell]);
+  }
+
+  public void cellChanged(int col, int row) {
+    int cell = grid.index(col, row);
+    boolean wall = grid.isWall(col, row);
+
+    //weight changes do not matter
+    if(wall == (label[cell] == WALL)) {
+      return;
+    }
+
+    if(wall) {
+      addWall(col, row);
+    } else {
+      removeWall(col, row);
+    }
+
+    //labels pile up with every change, start over before they take too much
+    if(labels > 2 * grid.size() + 64) {
+      build();
+    }
+  }
+
+  public void gridChanged() {
+    build();
+  }
+
+  /*
+   * Labels every free cell from scratch.
+   */
+  private void build() {
+    Arrays.fill(label, WALL);
+    parent = new int[Math.max(16, grid.size() / 4)];
+    rank = new int[parent.length];
+    labels = 0;
+
+    int[] cells = queue[0];
+    for(int start = 0; start < grid.size(); start++) {
+      if(label[start] != WALL || grid.isWall(start)) {
+        continue;
+      }
+
+      int id = newLabel();
+      label[start] = id;
+      cells[0] = start;
+      int end = 1;
+
+      for(int i = 0; i < end; i++) {
+        int col = grid.getCol(cells[i]);
+        int row = grid.getRow(cells[i]);
+
+        for(int d = 1; d < 8; d += 2) {
+          int x = col + RING_COL[d];
+          int y = row + RING_ROW[d];
+          if(grid.isWall(x, y) || label[grid.index(x, y)] != WALL) {
+            continue;
+          }
+
+          if(end == cells.length) {
+            cells = Arrays.copyOf(cells, 2 * end);
+          }
+          cells[end++] = grid.index(x, y);
+          label[grid.index(x, y)] = id;
+        }
+      }
+    }
+    queue[0] = cells;
+  }
+
+  /*
+   * The cell joins the component of every free neighbor, which all become
+   * one.
+   */
+  private void removeWall(int col, int row) {
+    int id = WALL;
+
+    for(int d = 1; d < 8; d += 2) {
+      int x = col + RING_COL[d];
+      int y = row + RING_ROW[d];
+      if(grid.isWall(x, y)) {
+        continue;
+      }
+
+      int other = label[grid.index(x, y)];
+      id = id == WALL ? other : union(id, other);
+    }
+
+    label[grid.index(col, row)] = id == WALL ? newLabel() : id;
+  }
+
+  /*
+   * Walks the ring of cells around the new wall: free neighbors in one free
+   * stretch of the ring are still joined around it. If they all are, the
+   * component did not split. Otherwise one neighbor of each stretch starts a
+   * search to find out which of them are still joined the long way round.
+   */
+  private void addWall(int col, int row) {
+    label[grid.index(col, row)] = WALL;
+
+    int firstWall = -1;
+    for(int k = 0; k < 8 && firstWall < 0; k++) {
+      if(grid.isWall(col + RING_COL[k], row + RING_ROW[k])) {
+        firstWall = k;
+      }
+    }
+    if(firstWall < 0) {
+      return;
+    }
+
+    int[] seeds = new int[4];
+    int count = 0;
+    boolean inStretch = false;
+    boolean seeded = false;
+
+    for(int n = 1; n <= 8; n++) {
+      int k = (firstWall + n) & 7;
+      int x = col + RING_COL[k];
+      int y = row + RING_ROW[k];
+
+      if(grid.isWall(x, y)) {
+        inStretch = false;
+        continue;
+      }
+
+      if(!inStretch) {
+        inStretch = true;
+        seeded = false;
+      }
+
+      //the orthogonal neighbors are the ones the cell was joined through
+      if((k & 1) == 1 && !seeded) {
+        seeds[count++] = grid.index(x, y);
+        seeded = true;
+      }
+    }
+
+    if(count > 1) {
+      split(seeds, count);
+    }
+  }
+
+  /*
+   * Breadth first searches from the seeds, one cell each in turn. Searches
+   * that meet belong to the same piece. A piece whose searches all run out
+   * first is cut off from the others and gets a new label; the last piece
+   * keeps the old one, so the largest piece is never walked in full.
+   */
+  private void split(int[] seeds, int count) {
+    if(++epoch == Integer.MAX_VALUE) {
+      Arrays.fill(seen, 0);
+      epoch = 1;
+    }
+
+    for(int g = 0; g < count; g++) {
+      queue[g][0] = seeds[g];
+      head[g] = 0;
+      tail[g] = 1;
+      group[g] = g;
+      done[g] = false;
+      seen[seeds[g]] = epoch;
+      owner[seeds[g]] = (byte) g;
+    }
+
+    int pieces = count;
+    while(pieces > 1) {
+      for(int g = 0; g < count && pieces > 1; g++) {
+        if(done[g]) {
+          continue;
+        }
+
+        if(head[g] == tail[g]) {
+          done[g] = true;
+          if(isCutOff(g, count)) {
+            relabel(g, count);
+            pieces--;
+          }
+          continue;
+        }
+
+        int cell = queue[g][head[g]++];
+        int col = grid.getCol(cell);
+        int row = grid.getRow(cell);
+
+        for(int d = 1; d < 8; d += 2) {
+          int x = col + RING_COL[d];
+          int y = row + RING_ROW[d];
+          if(grid.isWall(x, y)) {
+            continue;
+          }
+
+          int neighbor = grid.index(x, y);
+          if(seen[neighbor] == epoch) {
+            int other = group[owner[neighbor]];
+            if(other != group[g]) {
+              join(group[g], other, count);
+              pieces--;
+            }
+            continue;
+          }
+
+          seen[neighbor] = epoch;
+          owner[neighbor] = (byte) g;
+          if(tail[g] == queue[g].length) {
+            queue[g] = Arrays.copyOf(queue[g], 2 * tail[g]);
+          }
+          queue[g][tail[g]++] = neighbor;
+        }
+      }
+    }
+  }
+
+  /*
+   * True once every search of the piece search g belongs to has run out.
+   */
+  private boolean isCutOff(int g, int count) {
+    for(int i = 0; i < count; i++) {
+      if(group[i] == group[g] && !done[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void join(int from, int to, int count) {
+    for(int i = 0; i < count; i++) {
+      if(group[i] == from) {
+        group[i] = to;
+      }
+    }
+  }
+
+  /*
+   * Gives every cell the searches of a piece have seen a new label and takes
+   * those searches out of the running.
+   */
+  private void relabel(int g, int count) {
+    int id = newLabel();
+    int piece = group[g];
+
+    for(int i = 0; i < count; i++) {
+      if(group[i] != piece) {
+        continue;
+      }
+
+      for(int k = 0; k < tail[i]; k++) {
+        label[queue[i][k]] = id;
+      }
+      group[i] = -1;
+    }
+  }
+
+  private int newLabel() {
+    if(labels == parent.length) {
+      parent = Arrays.copyOf(parent, 2 * labels);
+      rank = Arrays.copyOf(rank, 2 * labels);
+    }
+
+    parent[labels] = labels;
+    rank[labels] = 0;
+    return labels++;
+  }
+
+  /*
+   * Root of a label without touching the structure, so readers on other
+   * threads are safe. Union by rank keeps the trees shallow.
+   */
+  private int root(int id) {
+    while(parent[id] != id) {
+      id = parent[id];
+    }
+    return id;
+  }
+
+  /*
+   * Joins two labels and returns the root of the result. Paths are halved
+   * on the way up, which only happens while the grid is being changed.
+   */
+  private int union(int a, int b) {
+    a = compress(a);
+    b = compress(b);
+    if(a == b) {
+      return a;
+    }
+
+    if(rank[a] < rank[b]) {
+      int swap = a;
+      a = b;
+      b = swap;
+    }
+    parent[b] = a;
+    if(rank[a] == rank[b]) {
+      rank[a]++;
+    }
+    return a;
+  }
+
+  private int compress(int id) {
+    while(parent[id] != id) {
+      parent[id] = parent[parent[id]];
+      id = parent[id];
+    }
+    return id;
+  }
+
+  /*
+   * Number of components, counting every label that is still a root.
+   */
+  public int getComponents() {
+    boolean[] used = new boolean[labels];
+    int count = 0;
+    for(int cell = 0; cell < label.length; cell++) {
+      if(label[cell] != WALL && !used[root(label[cell])]) {
+        used[root(label[cell])] = true;
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -4,15 +4,20 @@
  * No state information is saved in this class, all the above data is saved in the object of pathfinder class.
  * This class sets the data fields and renders the values by fetching them whenever needed.
  */
-import java.util.ArrayList;
-import java.util.PriorityQueue;
-import java.util.Set;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
 import javax.swing.*;
 
 public class Controller extends JPanel implements ActionListener,
-                              MouseListener, KeyListener, MouseMotionListener {
+                              MouseListener, KeyListener, MouseMotionListener,
+                              MouseWheelListener {
   //PathFinder class will store all the information like wall nodes, start node, final path, etc
   private PathFinder path;
   // added a Jpanel frame
@@ -25,17 +30,112 @@ public class Controller extends JPanel implements ActionListener,
   private Node end;
 
   private char keyPress;
-  private boolean isOctile;
-  private boolean isManhattan;
 
   private static final int WIDTH = 750;
   private static final int HEIGHT = 750;
   private static final int NODE_SIZE = 25;
 
-  public Controller() {   
+  //largest grid that can be asked for on the command line
+  private static final int MAX_SIZE = 4096;
 
-    isOctile = true;
-    isManhattan = false;
+  //what a cell shows, a higher kind is drawn over a lower one
+  private static final int OUTSIDE = -1;
+  private static final int NONE = 0;
+  private static final int MUD = 1;
+  private static final int REVERSE_CLOSED = 2;
+  private static final int CLOSED = 3;
+  private static final int WALL = 4;
+  private static final int OPEN = 5;
+  private static final int REVERSE_OPEN = 6;
+  private static final int PATH = 7;
+  private static final int START = 8;
+  private static final int END = 9;
+
+  private static final Color BACKGROUND = new Color(40, 42, 54);
+
+  //color of every kind, indexed by kind + 1
+  private static final Color[] KIND_COLORS = {
+    new Color(20, 21, 27),    //outside
+    BACKGROUND,
+    new Color(98, 114, 164),  //mud
+    new Color(189, 147, 249), //reverse closed
+    new Color(253, 90, 90),   //closed
+    new Color(228, 31, 13),   //wall
+    new Color(80, 250, 123),  //open
+    new Color(241, 250, 140), //reverse open
+    new Color(35, 228, 15),   //path
+    new Color(8, 228, 228),   //start
+    new Color(228, 35, 225)   //end
+  };
+
+  //cells smaller than this are drawn without grid lines
+  private static final int GRID_LINES = 6;
+
+  //milliseconds a frame waits for the worker to let go of the lock
+  private static final int FRAME_WAIT = 20;
+
+  //cells smaller than this are drawn without flow field arrows
+  private static final int ARROW_SIZE = 12;
+  private static final int NO_ARROW = -1;
+
+  //weight of the cells painted with the t key
+  private static final int MUD_WEIGHT = 4;
+
+  //file the grid is saved to and loaded from, in the Moving AI format
+  private static final String MAP_FILE = "grid.map";
+
+  //JMX name of the search counters, see jconsole
+  private static final String STATS_NAME = "pathfinder:type=SearchStats";
+
+  //steps taken per frame at startup
+  private static final int STEPS_PER_FRAME = 1;
+
+  //the grid as last drawn, see paint()
+  private BufferedImage buffer;
+
+  //the part of the grid on screen, changed views are drawn in full
+  private Viewport viewport;
+  private boolean viewChanged;
+
+  //tiles on screen, the tiles to draw and their kinds, read under the lock
+  private int tilesX, tilesY;
+  private int[] drawTiles = new int[0];
+  private int[] drawKinds = new int[0];
+
+  //arrow of every tile to draw, (dy + 1) * 3 + dx + 1 or NO_ARROW
+  private int[] drawArrows = new int[0];
+
+  //stamp of the frame each tile was last queued in, to queue it once
+  private int[] tileStamp = new int[0];
+  private int stamp;
+
+  //cells looked at along each side of a zoomed out tile
+  private static final int SAMPLES = 3;
+
+  //kinds of the sampled cells of a zoomed out tile
+  private final int[] kindCount = new int[OPEN];
+
+  //zoomed out, the highest kind of each tile that shows through the rest,
+  //from the path, the open lists, start and end, OUTSIDE for none
+  private int[] tileShown = new int[0];
+
+  //lists the colors come from, taken once per frame
+  private int startCell, endCell;
+  private OpenList openList, reverseOpenList;
+  private SearchSpace closedList, reverseClosedList;
+
+  //flow field to the end drawn as arrows, null while hidden or not built
+  //by the worker yet
+  private boolean showFlow;
+  private FlowField flow;
+
+  //where a right button drag that moves the view was last seen
+  private Point dragFrom;
+
+  //runs the search off the EDT
+  private SearchWorker worker;
+
+  public Controller(int cols, int rows) {
 
     setLayout(null);           //No, we could not have worked with gridlayout :(
     pane = new JPanel();
@@ -44,6 +144,7 @@ public class Controller extends JPanel implements ActionListener,
     addMouseListener(this);
     addKeyListener(this);
     addMouseMotionListener(this);
+    addMouseWheelListener(this);
 
     timer = new Timer(100, this);
 
@@ -57,7 +158,15 @@ public class Controller extends JPanel implements ActionListener,
     frame.setLocationRelativeTo(null);
     frame.setVisible(true);                      //This finally renders the frame.
 
-    path = new PathFinder(this);
+    viewport = new Viewport(cols, rows, WIDTH, HEIGHT);
+    path = new PathFinder(cols, rows);
+    try {
+      path.getStats().register(STATS_NAME);
+    } catch(JMException ex) {
+      System.out.println("Could not register " + STATS_NAME + ": " + ex);
+    }
+    worker = new SearchWorker(path, STEPS_PER_FRAME);
+    worker.start();
 
     //show changes to frame 
     this.revalidate();
@@ -72,73 +181,455 @@ public class Controller extends JPanel implements ActionListener,
   }
 
   /*
-	We need to override the paint method to create our own graphics
-  */
+   * The visible part of the grid is drawn into a back buffer the size of the
+   * window, which is kept between frames. Only the tiles holding cells
+   * logged as changed are drawn into it again, then just the area they
+   * cover is copied to the screen. Moving or zooming the view draws it all.
+   */
   @Override
   public void paint(Graphics g) {
-    //Draw grid on the screen( a matrix with rows = window_height/NODE_SIZE and columns = window_width/NODE_SIZE)
-    g.setColor(Color.lightGray);
-    for(int j = 0; j < this.getHeight(); j += NODE_SIZE) {          //
-      for(int i = 0; i < this.getWidth(); i += NODE_SIZE) {
-
-        g.setColor(new Color(40, 42, 54));
-        g.fillRect(i, j, NODE_SIZE, NODE_SIZE);
-        g.setColor(Color.black);
-        g.drawRect(i, j, NODE_SIZE, NODE_SIZE);
+    //the frame can be shown before the path finder exists
+    if(path == null) {
+      return;
+    }
+
+    render();
+    g.drawImage(buffer, 0, 0, null);
+  }
+
+  /*
+   * Draws the changed tiles into the back buffer and asks Swing to repaint
+   * the rectangle around them.
+   */
+  private void refresh() {
+    Rectangle dirty = render();
+    if(dirty != null) {
+      repaint(dirty);
+    }
+  }
+
+  /*
+   * Brings the back buffer up to date, returns the area that changed or null
+   * if nothing did.
+   * The colors of the changed tiles are read while holding the lock, so they
+   * all come from the same moment of the search; drawing happens after it is
+   * released.
+   */
+  private Rectangle render() {
+    ChangeLog changes = path.getChanges();
+    int width = Math.max(getWidth(), 1);
+    int height = Math.max(getHeight(), 1);
+    boolean all;
+    int count;
+
+    //the worker holds the lock while it builds a flow field, which can take
+    //a while, the frame is skipped then instead of holding up the EDT
+    try {
+      if(!path.getLock().tryLock(FRAME_WAIT, TimeUnit.MILLISECONDS)) {
+        return null;
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+    try {
+      if(buffer == null || buffer.getWidth() != width ||
+          buffer.getHeight() != height) {
+        buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        viewport.setSize(width, height);
+        viewChanged = true;
+      }
+
+      if(viewChanged) {
+        changes.markAll();
+        viewChanged = false;
+      }
+
+      if(readFlow()) {
+        changes.markAll();
+      }
+
+      all = changes.isAll();
+      if(!all && changes.size() == 0) {
+        return null;
+      }
+
+      tilesX = (width + viewport.getTileSize() - 1) / viewport.getTileSize();
+      tilesY = (height + viewport.getTileSize() - 1) / viewport.getTileSize();
+      if(tilesX * tilesY > tileStamp.length) {
+        tileStamp = new int[tilesX * tilesY];
+        drawTiles = new int[tilesX * tilesY];
+        drawKinds = new int[tilesX * tilesY];
+        drawArrows = new int[tilesX * tilesY];
+        tileShown = new int[tilesX * tilesY];
+      }
+
+      readLists();
+      if(viewport.getBlock() > 1) {
+        readShown();
+      }
+      count = all ? allTiles() : changedTiles(changes);
+      changes.clear();
+    } finally {
+      path.getLock().unlock();
+    }
+
+    return draw(count, all);
+  }
+
+  /*
+   * Takes the lists the colors come from off the path finder, once per frame
+   * instead of once per cell.
+   */
+  private void readLists() {
+    startCell = start == null ? -1 : path.cellOf(start.getX(), start.getY());
+    endCell = end == null ? -1 : path.cellOf(end.getX(), end.getY());
+    openList = path.getOpen();
+    reverseOpenList = path.getReverseOpen();
+    closedList = path.getClosed();
+    reverseClosedList = path.getReverseClosed();
+  }
+
+  /*
+   * Puts the cells that show through a zoomed out tile on their tiles. They
+   * are few, so walking them costs less than looking for them in every
+   * cell of every tile.
+   */
+  private void readShown() {
+    Arrays.fill(tileShown, 0, tilesX * tilesY, OUTSIDE);
+    show(startCell, START);
+    show(endCell, END);
+
+    for(int cell = path.nextOnPath(0); cell >= 0; cell = path.nextOnPath(
+        cell + 1)) {
+      show(cell, PATH);
+    }
+    if(openList != null) {
+      for(int i = 0; i < openList.size(); i++) {
+        show(openList.get(i), OPEN);
+      }
+    }
+    if(reverseOpenList != null) {
+      for(int i = 0; i < reverseOpenList.size(); i++) {
+        show(reverseOpenList.get(i), REVERSE_OPEN);
+      }
+    }
+  }
+
+  private void show(int cell, int kind) {
+    if(cell < 0) {
+      return;
+    }
+
+    Grid grid = path.getWall();
+    int tx = viewport.tileX(grid.getCol(cell));
+    int ty = viewport.tileY(grid.getRow(cell));
+    if(tx >= 0 && ty >= 0 && tx < tilesX && ty < tilesY) {
+      int tile = ty * tilesX + tx;
+      tileShown[tile] = Math.max(tileShown[tile], kind);
+    }
+  }
+
+  /*
+   * Tells the worker which flow field to keep up to date and takes the one
+   * it built, if any. Returns true if the arrows may have changed.
+   */
+  private boolean readFlow() {
+    int goal = showFlow && end != null ? path.cellOf(end.getX(), end.getY()) :
+        -1;
+    path.setFlowGoal(goal);
+
+    FlowField field = path.getFlowField();
+    boolean changed = field != flow;
+    flow = field;
+    return changed;
+  }
+
+  private int allTiles() {
+    int count = 0;
+    for(int ty = 0; ty < tilesY; ty++) {
+      for(int tx = 0; tx < tilesX; tx++) {
+        drawTiles[count] = ty * tilesX + tx;
+        drawArrows[count] = tileArrow(tx, ty);
+        drawKinds[count++] = tileKind(tx, ty);
+      }
+    }
+    return count;
+  }
+
+  /*
+   * Tiles holding the logged cells, each once, leaving out the ones off the
+   * screen.
+   */
+  private int changedTiles(ChangeLog changes) {
+    Grid grid = path.getWall();
+    int count = 0;
+
+    if(++stamp == Integer.MAX_VALUE) {
+      Arrays.fill(tileStamp, 0);
+      stamp = 1;
+    }
+
+    for(int i = 0; i < changes.size(); i++) {
+      int cell = changes.get(i);
+      int tx = viewport.tileX(grid.getCol(cell));
+      int ty = viewport.tileY(grid.getRow(cell));
+      if(tx < 0 || ty < 0 || tx >= tilesX || ty >= tilesY) {
+        continue;
       }
+
+      int tile = ty * tilesX + tx;
+      if(tileStamp[tile] != stamp) {
+        tileStamp[tile] = stamp;
+        drawTiles[count] = tile;
+        drawArrows[count] = tileArrow(tx, ty);
+        drawKinds[count++] = tileKind(tx, ty);
+      }
+    }
+    return count;
+  }
+
+  /*
+   * Draws the tiles read under the lock. One pixel tiles are written into
+   * the buffer directly, bigger ones are drawn as cells.
+   */
+  private Rectangle draw(int count, boolean all) {
+    int size = viewport.getTileSize();
+    Rectangle dirty = null;
+
+    if(size == 1) {
+      int[] pixels = ((DataBufferInt) buffer.getRaster().getDataBuffer())
+          .getData();
+      for(int i = 0; i < count; i++) {
+        int x = drawTiles[i] % tilesX;
+        int y = drawTiles[i] / tilesX;
+        pixels[y * buffer.getWidth() + x] = KIND_COLORS[drawKinds[i] + 1]
+            .getRGB();
+
+        if(!all) {
+          Rectangle bounds = new Rectangle(x, y, 1, 1);
+          dirty = dirty == null ? bounds : dirty.union(bounds);
+        }
+      }
+    } else {
+      Graphics g = buffer.getGraphics();
+      for(int i = 0; i < count; i++) {
+        int x = (drawTiles[i] % tilesX) * size;
+        int y = (drawTiles[i] / tilesX) * size;
+        drawCell(g, x, y, size, drawKinds[i]);
+        if(drawArrows[i] != NO_ARROW) {
+          drawArrow(g, x, y, size, drawArrows[i]);
+        }
+
+        if(!all) {
+          Rectangle bounds = new Rectangle(x, y, size, size);
+          dirty = dirty == null ? bounds : dirty.union(bounds);
+        }
+      }
+      g.dispose();
+    }
+
+    return all ? new Rectangle(0, 0, buffer.getWidth(), buffer.getHeight()) :
+        dirty;
+  }
+
+  /*
+   * Draws one cell: its square on the grid and, on top of it, the color of
+   * the list it is in, if any. A cell only draws the grid lines on its top
+   * and left, so it never draws over its neighbors. Cells too small for the
+   * grid lines are just filled.
+   */
+  private void drawCell(Graphics g, int x, int y, int size, int kind) {
+    if(kind == OUTSIDE || size < GRID_LINES) {
+      g.setColor(KIND_COLORS[kind + 1]);
+      g.fillRect(x, y, size, size);
+      return;
     }
 
-    //draw the wall nodes by fetching from the pathFinder
-    Set<Point> wallList = path.getWall();
-    g.setColor(new Color(228, 31, 13));
-    for(Point pt : wallList) {
-      int xCoord = (int) pt.getX();
-      int yCoord = (int) pt.getY();
+    g.setColor(BACKGROUND);
+    g.fillRect(x, y, size, size);
+    g.setColor(Color.black);
+    g.drawLine(x, y, x + size - 1, y);
+    g.drawLine(x, y, x, y + size - 1);
 
-      g.fillRect(xCoord + 1, yCoord + 1, NODE_SIZE - 2, NODE_SIZE - 2);
+    if(kind != NONE) {
+      g.setColor(KIND_COLORS[kind + 1]);
+      g.fillRect(x + 1, y + 1, size - 2, size - 2);
     }
+  }
+
+  /*
+   * Points from the middle of a cell towards the next cell of the flow
+   * field, with a dot at the head.
+   */
+  private void drawArrow(Graphics g, int x, int y, int size, int arrow) {
+    int dx = arrow % 3 - 1;
+    int dy = arrow / 3 - 1;
+    int middleX = x + size / 2;
+    int middleY = y + size / 2;
+    int length = size * 3 / 10;
+
+    g.setColor(Color.black);
+    g.drawLine(middleX - dx * length, middleY - dy * length, middleX + dx *
+               length, middleY + dy * length);
+    g.fillRect(middleX + dx * length - 1, middleY + dy * length - 1, 3, 3);
+  }
+
+  /*
+   * The flow field arrow of a tile, only drawn on free cells big enough to
+   * hold one.
+   */
+  private int tileArrow(int tx, int ty) {
+    if(flow == null || viewport.getTileSize() < ARROW_SIZE) {
+      return NO_ARROW;
+    }
+
+    Grid grid = path.getWall();
+    int col = viewport.getCol0() + tx;
+    int row = viewport.getRow0() + ty;
+    if(!grid.inBounds(col, row)) {
+      return NO_ARROW;
+    }
+
+    int next = flow.next(grid.index(col, row));
+    if(next < 0) {
+      return NO_ARROW;
+    }
+    return (grid.getRow(next) - row + 1) * 3 + grid.getCol(next) - col + 1;
+  }
 
-    //draw closed list
-    Set<Point> closedList = path.getClosed();
-    g.setColor(new Color(253, 90, 90));
-    for(Point pt : closedList) {
-      int xCoord = (int) pt.getX();
-      int yCoord = (int) pt.getY();
+  /*
+   * What a tile shows. Zoomed out a tile covers a block of cells: a cell on
+   * the path, an open list or the start or end shows through, otherwise the
+   * tile takes the kind most of its cells have, so walls and closed areas
+   * keep their shape. Only SAMPLES x SAMPLES cells spread over the block
+   * are looked at, so a full redraw costs about the same at every zoom
+   * level instead of a look at every cell of the grid.
+   */
+  private int tileKind(int tx, int ty) {
+    Grid grid = path.getWall();
+    int block = viewport.getBlock();
+    int col0 = viewport.getCol0() + tx * block;
+    int row0 = viewport.getRow0() + ty * block;
+
+    if(block == 1) {
+      return grid.inBounds(col0, row0) ? cellKind(grid.index(col0, row0)) :
+          OUTSIDE;
+    }
+
+    int shown = tileShown[ty * tilesX + tx];
+    if(shown != OUTSIDE) {
+      return shown;
+    }
+
+    //the part of the block on the grid
+    int left = Math.max(col0, 0);
+    int top = Math.max(row0, 0);
+    int width = Math.min(col0 + block, grid.getCols()) - left;
+    int height = Math.min(row0 + block, grid.getRows()) - top;
+    if(width <= 0 || height <= 0) {
+      return OUTSIDE;
+    }
+
+    //the middle cells of up to SAMPLES strips across it each way
+    Arrays.fill(kindCount, 0);
+    int samplesX = Math.min(width, SAMPLES);
+    int samplesY = Math.min(height, SAMPLES);
+    for(int i = 0; i < samplesY; i++) {
+      int row = top + (2 * i + 1) * height / (2 * samplesY);
+      for(int j = 0; j < samplesX; j++) {
+        int col = left + (2 * j + 1) * width / (2 * samplesX);
+        kindCount[groundKind(col, row)]++;
+      }
+    }
+
+    int most = NONE;
+    for(int kind = NONE; kind < OPEN; kind++) {
+      if(kindCount[kind] >= kindCount[most]) {
+        most = kind;
+      }
+    }
+    return most;
+  }
+
+  /*
+   * The list a cell is in, the higher kinds drawn over the lower ones. The
+   * backward half of a bidirectional search has its own colors.
+   */
+  private int cellKind(int cell) {
+    if(cell == endCell) {
+      return END;
+    }
+    if(cell == startCell) {
+      return START;
+    }
+    if(path.isOnPath(cell)) {
+      return PATH;
+    }
 
-      g.fillRect(xCoord + 1, yCoord + 1, NODE_SIZE - 2, NODE_SIZE - 2);
+    if(reverseOpenList != null && reverseOpenList.contains(cell)) {
+      return REVERSE_OPEN;
+    }
+    if(openList != null && openList.contains(cell)) {
+      return OPEN;
     }
+    Grid grid = path.getWall();
+    return groundKind(grid.getCol(cell), grid.getRow(cell));
+  }
 
-    //draw open list
-    PriorityQueue<Node> openList = path.getOpen();
-    g.setColor(new Color(80, 250, 123));
-    for(Node e : openList) {
-      g.fillRect(e.getX() + 1, e.getY() + 1, NODE_SIZE - 2, NODE_SIZE - 2);
+  /*
+   * The kind of a cell below the ones that show through: wall, closed, mud
+   * or nothing.
+   */
+  private int groundKind(int col, int row) {
+    Grid grid = path.getWall();
+    if(grid.isWall(col, row)) {
+      return WALL;
     }
 
-    //Fetch the final path( check how we developed the final path in PathFinder class) and draw it
-    ArrayList<Node> finalPath = path.getFinal();
-    g.setColor(new Color(35, 228, 15));
-    for(int i = 0; i < finalPath.size(); i++) {
-      g.fillRect(finalPath.get(i).getX() + 1, finalPath.get(i).getY() + 1,
-                 NODE_SIZE - 2, NODE_SIZE - 2);
+    int cell = grid.index(col, row);
+    if(closedList != null && closedList.isClosed(cell)) {
+      return CLOSED;
+    }
+    if(reverseClosedList != null && reverseClosedList.isClosed(cell)) {
+      return REVERSE_CLOSED;
     }
 
-    //draw the start node
-    if(start != null) {
-      g.setColor(new Color(8, 228, 228));
-      g.fillRect(start.getX() + 1, start.getY() + 1, NODE_SIZE - 2, NODE_SIZE -
-          2);
+    if(grid.getWeight(col, row) > 1) {
+      return MUD;
     }
+    return NONE;
+  }
 
-    //draw the end node
-    if(end != null) {
-      g.setColor(new Color(228, 35, 225));
-      g.fillRect(end.getX() + 1, end.getY() + 1, NODE_SIZE - 2, NODE_SIZE - 2);
+  /*
+   * Logs the cell of a start or end node, so it is drawn again.
+   */
+  private void markNode(Node node) {
+    if(node != null) {
+      path.getChanges().mark(path.cellOf(node.getX(), node.getY()));
     }
   }
 
+  /*
+   * Keys and mouse clicks change the path finder, so they wait for the lock
+   * while the worker is in the middle of its steps.
+   */
   @Override
   public void keyPressed(KeyEvent e) {
+    path.getLock().lock();
+    try {
+      handleKey(e);
+    } finally {
+      path.getLock().unlock();
+    }
+  }
+
+  private void handleKey(KeyEvent e) {
+    //moving the view keeps the mode the mouse is in
+    if(navigate(e)) {
+      return;
+    }
+
     //get keyPress to know if we should make start, end, or delete 
     keyPress = e.getKeyChar();
 
@@ -177,7 +668,7 @@ public class Controller extends JPanel implements ActionListener,
 
       case '1':
         if(!path.isRun()) {
-          path.setisDijkstra(true);
+          path.setAlgorithm(Algorithm.DIJKSTRA);
           System.out.println("Begin Dijkstra.\n");
 
         }
@@ -185,21 +676,103 @@ public class Controller extends JPanel implements ActionListener,
 
       case '2':
         if(!path.isRun()) {
-          path.setisDijkstra(false);
+          path.setAlgorithm(Algorithm.ASTAR);
           System.out.println("Begin A-Star\n");
         }
         break;
+
+      case '3':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.JUMP_POINT);
+          System.out.println("Begin Jump Point Search\n");
+        }
+        break;
+
+      case '4':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.JUMP_POINT_PLUS);
+          System.out.println("Begin Jump Point Search+\n");
+        }
+        break;
+
+      case '5':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.BIDIRECTIONAL_DIJKSTRA);
+          System.out.println("Begin Bidirectional Dijkstra\n");
+        }
+        break;
+
+      case '6':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.BIDIRECTIONAL_ASTAR);
+          System.out.println("Begin Bidirectional A-Star\n");
+        }
+        break;
+
+      case '7':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.HIERARCHICAL);
+          System.out.println("Begin Hierarchical A-Star\n");
+        }
+        break;
+
+      case '8':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.DSTAR_LITE);
+          System.out.println("Begin D* Lite\n");
+        }
+        break;
+
+      case '9':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.FLOW_FIELD);
+          System.out.println("Begin Flow Field\n");
+        }
+        break;
+
+      case '0':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.BREADTH_FIRST);
+          System.out.println("Begin Breadth First Search\n");
+        }
+        break;
+
+      case 'y':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.ANYTIME_ASTAR);
+          System.out.println("Begin Anytime A-Star\n");
+        }
+        break;
+
+      case 'i':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.ITERATIVE_DEEPENING);
+          System.out.println("Begin Iterative Deepening A-Star\n");
+        }
+        break;
+
+      case 'v':
+        if(!path.isRun()) {
+          path.setAlgorithm(Algorithm.THETA_STAR);
+          System.out.println("Begin Theta-Star\n");
+        }
+        break;
+
+      case 'w':
+        //show or hide the arrows of the flow field to the end
+        showFlow = !showFlow;
+        refresh();
+        break;
       
       case 'c':
         //command to clear and reset
         path.reset();
-        repaint();
+        refresh();
         break;
 
       case 'm':
         if(!path.isRun()) {
-          isManhattan = true;
-          isOctile = false;
+          path.setHeuristic(Heuristics.MANHATTAN);
 
           System.out.println("Use MANHATTAN\n");
         }
@@ -207,36 +780,167 @@ public class Controller extends JPanel implements ActionListener,
 
       case 'o':
         if(!path.isRun()) {
-          isOctile = true;
-          isManhattan = false;
+          path.setHeuristic(Heuristics.OCTILE);
 
           System.out.println("Use OCTILE\n");
         }
 
         break;
 
+      case 'k':
+        if(!path.isRun()) {
+          path.setHeuristic(Heuristics.CHEBYSHEV);
+
+          System.out.println("Use CHEBYSHEV\n");
+        }
+        break;
+
+      case 'r':
+        if(!path.isRun()) {
+          path.setHeuristic(Heuristics.EUCLIDEAN);
+
+          System.out.println("Use EUCLIDEAN\n");
+        }
+        break;
+
+      case 'a':
+        if(!path.isRun()) {
+          path.setHeuristic(path.getLandmarks());
+
+          System.out.println("Use ALT landmarks\n");
+        }
+        break;
+
+      case 'q':
+        if(!path.isRun()) {
+          path.setBucketQueue(!path.isBucketQueue());
+
+          System.out.println(path.isBucketQueue() ? "Use bucket queue\n" :
+                             "Use binary heap\n");
+        }
+        break;
+
+      case 'x':
+        //save the walls
+        try {
+          MapIO.writeMap(path.getWall(), Paths.get(MAP_FILE));
+          System.out.println("Saved " + MAP_FILE + "\n");
+        } catch(IOException ex) {
+          System.out.println("Could not save " + MAP_FILE + ": " + ex + "\n");
+        }
+        break;
+
+      case 'l':
+        //load the walls saved before, or any map of the same size
+        if(!path.isRun()) {
+          try {
+            path.loadWalls(MapIO.readMap(Paths.get(MAP_FILE)));
+            System.out.println("Loaded " + MAP_FILE + "\n");
+          } catch(IOException | IllegalArgumentException ex) {
+            System.out.println("Could not load " + MAP_FILE + ": " + ex + "\n");
+          }
+        }
+        break;
+
+      case '+':
+      case '=':
+        //more steps per frame, double each time
+        if(worker.getBudget() != SearchWorker.UNLIMITED) {
+          worker.setBudget(Math.min(worker.getBudget() * 2, 1 << 20));
+        }
+        System.out.println("Steps per frame: " + worker.getBudget() + "\n");
+        break;
+
+      case '-':
+        if(worker.getBudget() != SearchWorker.UNLIMITED) {
+          worker.setBudget(Math.max(worker.getBudget() / 2, 1));
+        }
+        System.out.println("Steps per frame: " + worker.getBudget() + "\n");
+        break;
+
+      case 'u':
+        //run flat out, or go back to a step per frame
+        if(worker.getBudget() == SearchWorker.UNLIMITED) {
+          worker.setBudget(STEPS_PER_FRAME);
+          System.out.println("Steps per frame: " + STEPS_PER_FRAME + "\n");
+        } else {
+          worker.setBudget(SearchWorker.UNLIMITED);
+          System.out.println("Steps per frame: unlimited\n");
+        }
+        break;
+
       default:
     }
 
   }
 
+  /*
+   * Arrow keys move the view by a quarter of the window, '[' and ']' zoom out
+   * and in around its middle and 'f' fits the whole grid in it. Returns
+   * false for any other key.
+   */
+  private boolean navigate(KeyEvent e) {
+    int dx = viewport.getWidth() / 4;
+    int dy = viewport.getHeight() / 4;
+
+    switch(e.getKeyCode()) {
+      case KeyEvent.VK_LEFT:
+        viewChanged |= viewport.pan(-dx, 0);
+        break;
+      case KeyEvent.VK_RIGHT:
+        viewChanged |= viewport.pan(dx, 0);
+        break;
+      case KeyEvent.VK_UP:
+        viewChanged |= viewport.pan(0, -dy);
+        break;
+      case KeyEvent.VK_DOWN:
+        viewChanged |= viewport.pan(0, dy);
+        break;
+      default:
+        switch(e.getKeyChar()) {
+          case '[':
+            viewChanged |= viewport.zoom(-1, 2 * dx, 2 * dy);
+            break;
+          case ']':
+            viewChanged |= viewport.zoom(1, 2 * dx, 2 * dy);
+            break;
+          case 'f':
+            viewport.fit();
+            viewChanged = true;
+            break;
+          default:
+            return false;
+        }
+    }
+
+    refresh();
+    return true;
+  }
+
   /*
    * Handler for mouse events
    */
   public void gridWork(MouseEvent e) {
+      //the start and end may move, their old cells are drawn again
+      markNode(start);
+      markNode(end);
 
-      //if mouse click was left click
-      if (e.getButton() == MouseEvent.BUTTON1) {
+      //the cell under the mouse, nodes sit at NODE_SIZE pixels per cell
+      //whatever the zoom
+      int col = viewport.colAt(e.getX());
+      int row = viewport.rowAt(e.getY());
+      int x = col * NODE_SIZE;
+      int y = row * NODE_SIZE;
 
-          //mouse clicks not exactly at node point of creation, so find remainder
-          int xOver = e.getX() % NODE_SIZE;
-          int yOver = e.getY() % NODE_SIZE;
+      //if mouse click was left click inside the grid
+      if (e.getButton() == MouseEvent.BUTTON1 &&
+          path.getWall().inBounds(col, row)) {
 
           //s key and left mouse makes start node
           if (keyPress == 's') {
 
-              int xTmp = e.getX() - xOver;
-              int yTmp = e.getY() - yOver;
+              int xTmp = x;
+              int yTmp = y;
 
               //if start is null, the create a new start node.
               //check if the position already has a wall or end node presend there
@@ -269,13 +973,16 @@ public class Controller extends JPanel implements ActionListener,
 
               }
 
-              repaint();
+              //a D* Lite search follows the start without starting over
+              if (start != null) {
+                  path.moveStart(start);
+              }
 
               //e key and left mouse makes end node
           } else if (keyPress == 'e') {
 
-              int xTmp = e.getX() - xOver;
-              int yTmp = e.getY() - yOver;
+              int xTmp = x;
+              int yTmp = y;
 
               //same as start node
               if (end == null) {
@@ -305,13 +1012,11 @@ public class Controller extends JPanel implements ActionListener,
 
               }
 
-              repaint();
-
               //d key and left mouse deletes nodes
           } else if (keyPress == 'd') {
               //check if the curr node is start, end or a wall and set it to null
-              int nodeX = e.getX() - xOver;
-              int nodeY = e.getY() - yOver;
+              int nodeX = x;
+              int nodeY = y;
 
               if (start != null && start.equals(new Node(nodeX, nodeY))) {
                   start = null;
@@ -319,14 +1024,18 @@ public class Controller extends JPanel implements ActionListener,
                   end = null;
               } else {
                   path.removeWall(new Point(nodeX, nodeY));
+                  path.setWeight(new Point(nodeX, nodeY), 1);
               }
 
-              repaint();
+              //t key and left mouse makes the cell mud, slow to cross
+          } else if (keyPress == 't') {
+              path.setWeight(new Point(x, y),
+                             MUD_WEIGHT);
 
               //Create walls by simply clicking on the nodes.
           } else {
               //create walls and add to wall list
-              Node tmpWall = new Node(e.getX() - xOver, e.getY() - yOver);
+              Node tmpWall = new Node(x, y);
 
               if (start == null && end == null) {
                   path.addWall(new Point(tmpWall.getX(), tmpWall.getY()));
@@ -335,18 +1044,26 @@ public class Controller extends JPanel implements ActionListener,
               if (!(tmpWall.equals(start)) && !(tmpWall.equals(end))) {
                   path.addWall(new Point(tmpWall.getX(), tmpWall.getY()));
               }
-
-              repaint();
           }
       }
+
+      markNode(start);
+      markNode(end);
+      refresh();
   }
 
       @Override
       public void mouseClicked (MouseEvent e){
           //all mouse clicks to change grid somehow
           //call the generic mouse EventHandler function on any kind of mouse click when the algorithm is not running
-          if (!path.isRun()) {
-              gridWork(e);
+          //D* Lite repairs its search, so the grid can be changed while it runs
+          path.getLock().lock();
+          try {
+              if (!path.isRun() || path.isIncremental()) {
+                  gridWork(e);
+              }
+          } finally {
+              path.getLock().unlock();
           }
       }
 
@@ -355,14 +1072,9 @@ public class Controller extends JPanel implements ActionListener,
           // set a timer delay of 50
           timer.setDelay(50);
 
-          if (path.isRun() && !path.isComplete() && !path.isPause()) {
-              path.aStarPath();
-          }
-          repaint();
-      }
-
-      public boolean isOctile () {
-          return isOctile;
+          //the worker takes this frame's steps, the last ones are drawn
+          worker.frame();
+          refresh();
       }
 
       @Override
@@ -372,8 +1084,24 @@ public class Controller extends JPanel implements ActionListener,
 
       @Override
       public void mouseDragged (MouseEvent e){
-          if (!path.isRun()) {
-              gridWork(e);
+          //the right button drags the view around
+          if (SwingUtilities.isRightMouseButton(e)) {
+              if (dragFrom != null && viewport.pan(dragFrom.x - e.getX(),
+                                                   dragFrom.y - e.getY())) {
+                  dragFrom = e.getPoint();
+                  viewChanged = true;
+                  refresh();
+              }
+              return;
+          }
+
+          path.getLock().lock();
+          try {
+              if (!path.isRun() || path.isIncremental()) {
+                  gridWork(e);
+              }
+          } finally {
+              path.getLock().unlock();
           }
       }
 
@@ -395,12 +1123,36 @@ public class Controller extends JPanel implements ActionListener,
 
       @Override
       public void mousePressed (MouseEvent e){
+          dragFrom = e.getPoint();
+      }
+
+      /*
+       * The wheel zooms in and out around the mouse.
+       */
+      @Override
+      public void mouseWheelMoved (MouseWheelEvent e){
+          if (viewport.zoom(-e.getWheelRotation(), e.getX(), e.getY())) {
+              viewChanged = true;
+              refresh();
+          }
       }
 
       @Override
       public void mouseReleased (MouseEvent e){
       }
+      /*
+       * Takes the number of columns and rows of the grid, 30 x 30 by default.
+       */
       public static void main (String[]args){
-          new Controller();
+          int cols = args.length > 0 ? Integer.parseInt(args[0]) : WIDTH /
+              NODE_SIZE;
+          int rows = args.length > 1 ? Integer.parseInt(args[1]) : cols;
+
+          if (cols < 1 || rows < 1 || cols > MAX_SIZE || rows > MAX_SIZE) {
+              System.out.println("The grid can be 1 to " + MAX_SIZE +
+                                 " cells wide and high");
+              return;
+          }
+          new Controller(cols, rows);
       }
 }
@@ -0,0 +1,355 @@
+/*
+ * D* Lite (Koenig and Likhachev). The search runs backwards from the end node
+ * and keeps, for every cell, its cost to the end (g) and a one step lookahead
+ * on that cost (rhs). When walls change, only the cells around the change get
+ * their lookahead fixed and put back on the open list, and the search carries
+ * on from there: the rest of the old search is reused instead of thrown away.
+ * The start can also move along the path without starting over, keys are
+ * offset by km so the open list does not have to be reordered.
+ * A cell is on the open list when g and rhs differ, keyed by
+ * [min(g, rhs) + h + km, min(g, rhs)], which the open list orders as F and G.
+ * With the ALT heuristic a change starts the search over instead, its
+ * landmark costs have to be built again first.
+ */
+
+import java.util.Arrays;
+
+public class DStarLiteSearch extends GridSearch implements Grid.Listener {
+
+  private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+  //cost to the end node, and the one step lookahead on it
+  private final double[] g, rhs;
+
+  //added to every key when the start moved, and where it was at the time
+  private double km;
+  private int last;
+
+  //cells whose walls changed since the last step
+  private int[] changed;
+  private int changedCount;
+
+  //active once the search is set up, restart when too much changed to repair
+  private boolean active, restart;
+
+  public DStarLiteSearch(Grid grid) {
+    super(grid);
+
+    g = new double[grid.size()];
+    rhs = new double[grid.size()];
+    changed = new int[16];
+
+    grid.addListener(this);
+  }
+
+  public void begin(int start, int end, Heuristic heuristic) {
+    active = false;
+    restart = false;
+    changedCount = 0;
+
+    super.begin(start, end, heuristic);
+  }
+
+  protected void init() {
+    Arrays.fill(g, INFINITY);
+    Arrays.fill(rhs, INFINITY);
+    km = 0;
+    last = start;
+    active = true;
+
+    rhs[end] = 0;
+    open.add(end, toStart(end), 0);
+  }
+
+  /*
+   * Stops following the grid, for a search that is no longer needed. It can
+   * still begin() new searches, but no longer repair them.
+   */
+  public void close() {
+    grid.removeListener(this);
+  }
+
+  /*
+   * Remembers the cell, the search is repaired on the next step.
+   */
+  public void cellChanged(int col, int row) {
+    //a search that failed before it started is started again
+    if(!active) {
+      restart = heuristic != null;
+      return;
+    }
+    if(restart) {
+      return;
+    }
+
+    //ALT costs are from the old grid and may no longer be a lower bound,
+    //the keys queued with them cannot be repaired
+    if(heuristic instanceof LandmarkHeuristic) {
+      restart = true;
+      return;
+    }
+
+    //past this point starting over is cheaper than repairing
+    if(changedCount == grid.size()) {
+      restart = true;
+      return;
+    }
+
+    if(changedCount == changed.length) {
+      changed = Arrays.copyOf(changed, 2 * changed.length);
+    }
+    changed[changedCount++] = grid.index(col, row);
+  }
+
+  /*
+   * Too much changed to repair, the search starts over on the next step.
+   */
+  public void gridChanged() {
+    restart = heuristic != null;
+  }
+
+  /*
+   * Moves the start node, e.g. as an agent walks along the path. The search
+   * carries on from its current state on the next step. Keys queued so far
+   * hold h to the old start, which can be more than h to the new one, so km
+   * goes up by h between the two starts to keep every key a lower bound.
+   */
+  public void moveStart(int cell) {
+    if(!active) {
+      begin(cell, end, heuristic);
+      return;
+    }
+
+    start = cell;
+    km += heuristic.estimate(grid.getCol(last), grid.getRow(last),
+        grid.getCol(start), grid.getRow(start));
+    last = start;
+    expanded = 0;
+    resume();
+  }
+
+  public boolean step() {
+    if(restart) {
+      begin(start, end, heuristic);
+    } else if(changedCount > 0) {
+      applyChanges();
+    }
+
+    if(isFinished()) {
+      return false;
+    }
+
+    //done once nothing on the open list can lower the cost of the start
+    int top = open.peek();
+    double startG = Math.min(g[start], rhs[start]);
+    if(top < 0 || !less(open.getF(top), open.getG(top), startG + km, startG)
+        && rhs[start] <= g[start]) {
+      finish(rhs[start] != INFINITY);
+      return false;
+    }
+
+    //the key is stale if the start moved since it was queued
+    double newG = Math.min(g[top], rhs[top]);
+    double newF = newG + toStart(top) + km;
+    if(less(open.getF(top), open.getG(top), newF, newG)) {
+      open.update(top, newF, newG);
+      return true;
+    }
+
+    open.poll();
+    expanded++;
+
+    int col = grid.getCol(top);
+    int row = grid.getRow(top);
+
+    if(g[top] > rhs[top]) {
+      //cost went down: settle it and offer it to the neighbors
+      g[top] = rhs[top];
+      space.close(top);
+
+      for(int i = -1; i <= 1; i++) {
+        for(int j = -1; j <= 1; j++) {
+          double cost = moveCost(col, row, i, j);
+          int neighbor = grid.index(col + i, row + j);
+
+          if(cost != INFINITY && neighbor != end
+              && g[top] + cost < rhs[neighbor]) {
+            rhs[neighbor] = g[top] + cost;
+            updateVertex(neighbor);
+          }
+        }
+      }
+    } else {
+      //cost went up: neighbors that went through this cell look again
+      double old = g[top];
+      g[top] = INFINITY;
+
+      for(int i = -1; i <= 1; i++) {
+        for(int j = -1; j <= 1; j++) {
+          double cost = moveCost(col, row, i, j);
+          int neighbor = grid.index(col + i, row + j);
+
+          if(cost != INFINITY && neighbor != end
+              && rhs[neighbor] == old + cost) {
+            rhs[neighbor] = lookahead(neighbor);
+            updateVertex(neighbor);
+          }
+        }
+      }
+      updateVertex(top);
+    }
+
+    return true;
+  }
+
+  /*
+   * A wall changes the moves into and out of its cell and the diagonal moves
+   * around its corners, which all start in the 3x3 block around it. A weight
+   * only changes the moves into and out of its cell.
+   */
+  private void applyChanges() {
+    km += heuristic.estimate(grid.getCol(last), grid.getRow(last),
+        grid.getCol(start), grid.getRow(start));
+    last = start;
+
+    for(int k = 0; k < changedCount; k++) {
+      int col = grid.getCol(changed[k]);
+      int row = grid.getRow(changed[k]);
+
+      for(int i = -1; i <= 1; i++) {
+        for(int j = -1; j <= 1; j++) {
+          if(!grid.inBounds(col + i, row + j)) {
+            continue;
+          }
+
+          int cell = grid.index(col + i, row + j);
+          if(cell != end) {
+            rhs[cell] = lookahead(cell);
+          }
+          updateVertex(cell);
+        }
+      }
+    }
+
+    changedCount = 0;
+    expanded = 0;
+    resume();
+  }
+
+  /*
+   * Puts a cell on the open list if g and rhs differ, takes it off otherwise.
+   */
+  private void updateVertex(int cell) {
+    if(g[cell] != rhs[cell]) {
+      double gKey = Math.min(g[cell], rhs[cell]);
+      double fKey = gKey + toStart(cell) + km;
+
+      if(open.contains(cell)) {
+        open.update(cell, fKey, gKey);
+      } else {
+        open.add(cell, fKey, gKey);
+      }
+    } else if(open.contains(cell)) {
+      open.remove(cell);
+    }
+  }
+
+  /*
+   * Lowest cost of reaching the end through one of the neighbors.
+   */
+  private double lookahead(int cell) {
+    int col = grid.getCol(cell);
+    int row = grid.getRow(cell);
+
+    if(isWall(col, row)) {
+      return INFINITY;
+    }
+
+    double best = INFINITY;
+    for(int i = -1; i <= 1; i++) {
+      for(int j = -1; j <= 1; j++) {
+        double cost = moveCost(col, row, i, j);
+        if(cost != INFINITY) {
+          best = Math.min(best, cost + g[grid.index(col + i, row + j)]);
+        }
+      }
+    }
+    return best;
+  }
+
+  /*
+   * Cost of the move by (i, j), infinite if it is not allowed. Moves are the
+   * same both ways, so this is also the cost of coming back.
+   */
+  private double moveCost(int col, int row, int i, int j) {
+    int xCoord = col + i;
+    int yCoord = row + j;
+
+    if(i == 0 && j == 0 || isWall(xCoord, yCoord)) {
+      return INFINITY;
+    }
+
+    if(i != 0 && j != 0 && (isWall(xCoord, row) ||
+                            isWall(col, yCoord))) {
+      return INFINITY;
+    }
+    return grid.moveCost(col, row, i, j);
+  }
+
+  private double toStart(int cell) {
+    return heuristic.estimate(grid.getCol(cell), grid.getRow(cell),
+        grid.getCol(start), grid.getRow(start));
+  }
+
+  private static boolean less(double f1, double g1, double f2, double g2) {
+    return f1 < f2 || f1 == f2 && g1 < g2;
+  }
+
+  /*
+   * There are no parents, the path follows the cheapest neighbor from the
+   * start down to the end.
+   */
+  protected int[] constructPath() {
+    int[] path = new int[16];
+    int length = 0;
+    int cell = start;
+    path[length++] = cell;
+
+    while(cell != end && length <= grid.size()) {
+      int col = grid.getCol(cell);
+      int row = grid.getRow(cell);
+      int next = -1;
+      double best = INFINITY;
+
+      for(int i = -1; i <= 1; i++) {
+        for(int j = -1; j <= 1; j++) {
+          double cost = moveCost(col, row, i, j);
+          if(cost == INFINITY) {
+            continue;
+          }
+
+          int neighbor = grid.index(col + i, row + j);
+          if(cost + g[neighbor] < best) {
+            best = cost + g[neighbor];
+            next = neighbor;
+          }
+        }
+      }
+
+      if(next < 0) {
+        break;
+      }
+
+      if(length == path.length) {
+        path = Arrays.copyOf(path, 2 * length);
+      }
+      path[length++] = cell = next;
+    }
+
+    return Arrays.copyOf(path, length);
+  }
+
+  protected double pathCost() {
+    return rhs[start];
+  }
+}
@@ -0,0 +1,587 @@
+/*
+ * Cost from every cell to one goal cell, and the first move of the cheapest
+ * path from there: a flow field. Built once with a Dijkstra backwards from
+ * the goal, it answers a query from any start by following the moves, with
+ * no search at all, which pays off when many units head for the same cell.
+ * Moves cost the same both ways, so the cost from the goal is the cost to
+ * it.
+ * The grid is cut in square tiles and the field is built by relaxing tiles:
+ * a tile runs Dijkstra over its own cells, starting from the costs it
+ * already has and the ones its neighbors offer across its border, and wakes
+ * the tiles around it when its border got cheaper. Tiles are processed in
+ * four rounds by the parity of their column and row, so the tiles of one
+ * round never touch and run in parallel on a ForkJoinPool, and the tiles
+ * offered the lowest costs go first, so the wave mostly reaches a tile from
+ * the right side. It stops when no tile is awake, with the same costs a
+ * plain Dijkstra gives.
+ * When the grid changes, the cells whose path went through a changed cell
+ * are cut loose and only their tiles and the tiles around the change are
+ * relaxed again.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class FlowField implements Grid.Listener {
+
+  public static final int UNREACHED = Integer.MAX_VALUE;
+  public static final int DEFAULT_TILE_SIZE = 64;
+
+  //the 8 moves, a cell stores the index of its first move or NONE
+  private static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+  private static final int[] DY = {0, 1, 1, 1, 0, -1, -1, -1};
+  private static final byte NONE = -1;
+
+  //tiles handed to one task before it stops splitting
+  private static final int TILES_PER_TASK = 4;
+
+  private final Grid grid;
+  private final ForkJoinPool pool;
+  private final int tile, tileCols, tileRows;
+
+  private final int[] distance;
+  private final byte[] move;
+  private int goal = -1;
+
+  //lowest cost offered to every tile since it was last relaxed, UNREACHED
+  //while it is not awake
+  private final AtomicIntegerArray low;
+
+  //tiles relaxed since the moves were last set
+  private final boolean[] touched;
+
+  //tiles whose costs were reset, which start from all their cells instead
+  //of from their border
+  private final boolean[] reset;
+
+  //cells changed since the last update, all of them past this point
+  private int[] changed = new int[16];
+  private int changedCount;
+  private boolean rebuild = true;
+
+  //open list of every thread, indexed inside a tile
+  private final ThreadLocal<OpenList> local;
+
+  public FlowField(Grid grid) {
+    this(grid, DEFAULT_TILE_SIZE, ForkJoinPool.commonPool());
+  }
+
+  public FlowField(Grid grid, final int tile, ForkJoinPool pool) {
+    this.grid = grid;
+    this.tile = tile;
+    this.pool = pool;
+
+    tileCols = (grid.getCols() + tile - 1) / tile;
+    tileRows = (grid.getRows() + tile - 1) / tile;
+    low = new AtomicIntegerArray(tileCols * tileRows);
+    touched = new boolean[low.length()];
+    reset = new boolean[low.length()];
+    for(int t = 0; t < low.length(); t++) {
+      low.set(t, UNREACHED);
+    }
+
+    distance = new int[grid.size()];
+    move = new byte[grid.size()];
+
+    local = new ThreadLocal<OpenList>() {
+      protected OpenList initialValue() {
+        return new BucketQueue(tile * tile);
+      }
+    };
+
+    grid.addListener(this);
+  }
+
+  /*
+   * Stops following the grid, the field must not be used after this.
+   */
+  public void close() {
+    grid.removeListener(this);
+  }
+
+  /*
+   * Points the field at a new goal. The field is built on the next update().
+   */
+  public synchronized void setGoal(int goal) {
+    if(goal != this.goal) {
+      this.goal = goal;
+      rebuild = true;
+    }
+  }
+
+  public int getGoal() {
+    return goal;
+  }
+
+  public synchronized void cellChanged(int col, int row) {
+    if(rebuild) {
+      return;
+    }
+
+    if(changedCount == grid.size()) {
+      rebuild = true;
+      return;
+    }
+
+    if(changedCount == changed.length) {
+      changed = Arrays.copyOf(changed, 2 * changed.length);
+    }
+    changed[changedCount++] = grid.index(col, row);
+  }
+
+  public synchronized void gridChanged() {
+    rebuild = true;
+  }
+
+  /*
+   * Brings the field up to date with the goal and the grid. Reading it while
+   * it updates is not safe.
+   */
+  public synchronized void update() {
+    if(goal < 0) {
+      return;
+    }
+
+    //a goal that was a wall has no costs to repair from
+    if(rebuild || grid.isWall(goal) || distance[goal] != 0) {
+      Arrays.fill(distance, UNREACHED);
+      Arrays.fill(move, NONE);
+      Arrays.fill(touched, true);
+      Arrays.fill(reset, true);
+      if(!grid.isWall(goal)) {
+        distance[goal] = 0;
+        wake(grid.getCol(goal), grid.getRow(goal));
+      }
+    } else if(changedCount > 0) {
+      repair();
+    }
+
+    rebuild = false;
+    changedCount = 0;
+
+    relax();
+    setMoves();
+  }
+
+  /*
+   * Cuts loose every cell whose path to the goal used a changed cell or a
+   * move that changed, so its cost can go up, and wakes the tiles that have
+   * to find them a new one. Costs that can only go down are found by waking
+   * the tiles around the change.
+   */
+  private void repair() {
+    int[] queue = new int[64];
+    int count = 0;
+
+    for(int k = 0; k < changedCount; k++) {
+      int col = grid.getCol(changed[k]);
+      int row = grid.getRow(changed[k]);
+
+      for(int i = -1; i <= 1; i++) {
+        for(int j = -1; j <= 1; j++) {
+          if(!grid.inBounds(col + i, row + j)) {
+            continue;
+          }
+
+          int cell = grid.index(col + i, row + j);
+          int m = move[cell];
+          boolean stale = i == 0 && j == 0 || m != NONE &&
+              (grid.index(col + i + DX[m], row + j + DY[m]) == changed[k] ||
+               !canMove(col + i, row + j, m));
+
+          if(stale && cell != goal && distance[cell] != UNREACHED) {
+            distance[cell] = UNREACHED;
+            queue = push(queue, count++, cell);
+          }
+        }
+      }
+
+      //a removed wall or a cheaper cell opens moves between settled cells
+      wake(col, row);
+      touch(col, row);
+    }
+
+    //everything that moved through a cut loose cell is cut loose too
+    for(int k = 0; k < count; k++) {
+      int col = grid.getCol(queue[k]);
+      int row = grid.getRow(queue[k]);
+      touch(col, row);
+
+      for(int m = 0; m < 8; m++) {
+        int x = col + DX[m];
+        int y = row + DY[m];
+        if(!grid.inBounds(x, y)) {
+          continue;
+        }
+
+        int cell = grid.index(x, y);
+        int back = move[cell];
+        if(distance[cell] != UNREACHED && back != NONE && x + DX[back] == col
+            && y + DY[back] == row) {
+          distance[cell] = UNREACHED;
+          queue = push(queue, count++, cell);
+        }
+      }
+    }
+  }
+
+  private static int[] push(int[] queue, int count, int cell) {
+    if(count == queue.length) {
+      queue = Arrays.copyOf(queue, 2 * count);
+    }
+    queue[count] = cell;
+    return queue;
+  }
+
+  /*
+   * Wakes the tile of a cell and the tiles around it.
+   */
+  private void wake(int col, int row) {
+    int tx = col / tile;
+    int ty = row / tile;
+
+    for(int y = Math.max(ty - 1, 0); y <= Math.min(ty + 1, tileRows - 1); y++) {
+      for(int x = Math.max(tx - 1, 0); x <= Math.min(tx + 1, tileCols - 1);
+          x++) {
+        lower(y * tileCols + x, 0);
+      }
+    }
+  }
+
+  /*
+   * Wakes the tiles around a tile, but not the tile itself, with the lowest
+   * cost its border got.
+   */
+  private void wakeAround(int t, int cost) {
+    int tx = t % tileCols;
+    int ty = t / tileCols;
+
+    for(int y = Math.max(ty - 1, 0); y <= Math.min(ty + 1, tileRows - 1); y++) {
+      for(int x = Math.max(tx - 1, 0); x <= Math.min(tx + 1, tileCols - 1);
+          x++) {
+        if(x != tx || y != ty) {
+          lower(y * tileCols + x, cost);
+        }
+      }
+    }
+  }
+
+  private void touch(int col, int row) {
+    int t = (row / tile) * tileCols + col / tile;
+    lower(t, 0);
+    reset[t] = true;
+  }
+
+  /*
+   * Wakes a tile with a cost, keeping the lowest one. Tiles of one round may
+   * wake the same tile at once.
+   */
+  private void lower(int t, int cost) {
+    int old = low.get(t);
+    while(cost < old && !low.compareAndSet(t, old, cost)) {
+      old = low.get(t);
+    }
+  }
+
+  /*
+   * Relaxes the awake tiles until none is awake. Tiles offered the lowest
+   * costs go first, those within the cost of crossing a tile of the lowest
+   * one, a round per parity of tile column and row. Taken in any order,
+   * tiles would be relaxed from the wrong side first and then again and
+   * again as cheaper costs come in.
+   */
+  private void relax() {
+    int[] tiles = new int[low.length()];
+    int window = tile * Grid.STRAIGHT_COST;
+
+    while(true) {
+      int lowest = UNREACHED;
+      for(int t = 0; t < low.length(); t++) {
+        lowest = Math.min(lowest, low.get(t));
+      }
+      if(lowest == UNREACHED) {
+        return;
+      }
+
+      for(int parity = 0; parity < 4; parity++) {
+        int count = 0;
+        for(int ty = parity >> 1; ty < tileRows; ty += 2) {
+          for(int tx = parity & 1; tx < tileCols; tx += 2) {
+            int t = ty * tileCols + tx;
+            if(low.get(t) - lowest < window) {
+              low.set(t, UNREACHED);
+              touched[t] = true;
+              tiles[count++] = t;
+            }
+          }
+        }
+
+        if(count > 0) {
+          pool.invoke(new TileTask(tiles, 0, count, false));
+        }
+      }
+    }
+  }
+
+  /*
+   * Relaxes a range of the tiles of one round, or sets the moves of their
+   * cells.
+   */
+  private class TileTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int[] tiles;
+    private final int from, to;
+    private final boolean moves;
+
+    TileTask(int[] tiles, int from, int to, boolean moves) {
+      this.tiles = tiles;
+      this.from = from;
+      this.to = to;
+      this.moves = moves;
+    }
+
+    protected void compute() {
+      if(to - from > TILES_PER_TASK) {
+        int mid = (from + to) >>> 1;
+        invokeAll(new TileTask(tiles, from, mid, moves),
+                  new TileTask(tiles, mid, to, moves));
+        return;
+      }
+
+      OpenList open = moves ? null : local.get();
+      for(int i = from; i < to; i++) {
+        if(moves) {
+          setMoves(tiles[i]);
+        } else {
+          relaxTile(tiles[i], open);
+        }
+      }
+    }
+  }
+
+  /*
+   * Dijkstra over the cells of one tile, after its border cells took what
+   * their neighbors outside offer. It starts from the border cells that got
+   * cheaper, or from every cost the tile has if it was reset. Wakes the tiles
+   * around it if a border cell got cheaper. Only writes the costs of its own
+   * tile.
+   */
+  private void relaxTile(int t, OpenList open) {
+    int x0 = (t % tileCols) * tile;
+    int y0 = (t / tileCols) * tile;
+    int x1 = Math.min(x0 + tile, grid.getCols());
+    int y1 = Math.min(y0 + tile, grid.getRows());
+    int cheapest = UNREACHED;
+
+    boolean all = reset[t];
+    reset[t] = false;
+    open.clear();
+
+    for(int row = y0; row < y1; row++) {
+      //the inside of a tile woken by its neighbors is still settled, only
+      //its border has to be looked at
+      boolean edge = row == y0 || row == y1 - 1;
+      int step = all || edge ? 1 : Math.max(x1 - x0 - 1, 1);
+
+      for(int col = x0; col < x1; col += step) {
+        int cell = grid.index(col, row);
+        boolean better = false;
+        if(grid.isWall(col, row)) {
+          continue;
+        }
+
+        if(col == x0 || col == x1 - 1 || edge) {
+          for(int m = 0; m < 8; m++) {
+            int x = col + DX[m];
+            int y = row + DY[m];
+            if(x >= x0 && x < x1 && y >= y0 && y < y1 || !canMove(col, row,
+                                                                  m)) {
+              continue;
+            }
+
+            int other = distance[grid.index(x, y)];
+            if(other != UNREACHED && other + grid.moveCost(col, row, DX[m],
+                DY[m]) < distance[cell]) {
+              distance[cell] = other + grid.moveCost(col, row, DX[m], DY[m]);
+              better = true;
+              cheapest = Math.min(cheapest, distance[cell]);
+            }
+          }
+        }
+
+        if(all ? distance[cell] != UNREACHED : better) {
+          open.add((row - y0) * tile + col - x0, distance[cell],
+                   distance[cell]);
+        }
+      }
+    }
+
+    while(!open.isEmpty()) {
+      int current = open.poll();
+      int col = x0 + current % tile;
+      int row = y0 + current / tile;
+      int cost = distance[grid.index(col, row)];
+
+      for(int m = 0; m < 8; m++) {
+        int x = col + DX[m];
+        int y = row + DY[m];
+        if(x < x0 || x >= x1 || y < y0 || y >= y1 || !canMove(col, row, m)) {
+          continue;
+        }
+
+        int cell = grid.index(x, y);
+        int next = cost + grid.moveCost(col, row, DX[m], DY[m]);
+        if(next >= distance[cell]) {
+          continue;
+        }
+
+        distance[cell] = next;
+        int index = (y - y0) * tile + x - x0;
+        if(open.contains(index)) {
+          open.decreaseKey(index, next, next);
+        } else {
+          open.add(index, next, next);
+        }
+
+        if(x == x0 || x == x1 - 1 || y == y0 || y == y1 - 1) {
+          cheapest = Math.min(cheapest, next);
+        }
+      }
+    }
+
+    //the tiles around are all of other rounds, none of them is running
+    if(cheapest != UNREACHED) {
+      wakeAround(t, cheapest);
+    }
+  }
+
+  /*
+   * Sets the first move of every cell of the relaxed tiles and the tiles
+   * around them, whose costs to choose from may have changed.
+   */
+  private void setMoves() {
+    boolean[] redo = new boolean[touched.length];
+    for(int t = 0; t < touched.length; t++) {
+      if(touched[t]) {
+        int tx = t % tileCols;
+        int ty = t / tileCols;
+        for(int y = Math.max(ty - 1, 0); y <= Math.min(ty + 1, tileRows - 1);
+            y++) {
+          for(int x = Math.max(tx - 1, 0); x <= Math.min(tx + 1, tileCols - 1);
+              x++) {
+            redo[y * tileCols + x] = true;
+          }
+        }
+      }
+    }
+    Arrays.fill(touched, false);
+
+    int[] tiles = new int[redo.length];
+    int count = 0;
+    for(int t = 0; t < redo.length; t++) {
+      if(redo[t]) {
+        tiles[count++] = t;
+      }
+    }
+
+    if(count > 0) {
+      pool.invoke(new TileTask(tiles, 0, count, true));
+    }
+  }
+
+  /*
+   * Points every cell of a tile at its cheapest neighbor. Costs are exact by
+   * now, so that neighbor costs exactly the move less and following the
+   * moves cannot go round in circles.
+   */
+  private void setMoves(int t) {
+    int x0 = (t % tileCols) * tile;
+    int y0 = (t / tileCols) * tile;
+    int x1 = Math.min(x0 + tile, grid.getCols());
+    int y1 = Math.min(y0 + tile, grid.getRows());
+
+    for(int row = y0; row < y1; row++) {
+      for(int col = x0; col < x1; col++) {
+        int cell = grid.index(col, row);
+        byte best = NONE;
+        long bestCost = distance[cell];
+
+        if(cell != goal && distance[cell] != UNREACHED) {
+          for(int m = 0; m < 8; m++) {
+            if(!canMove(col, row, m)) {
+              continue;
+            }
+
+            int other = distance[grid.index(col + DX[m], row + DY[m])];
+            long cost = (long) other + grid.moveCost(col, row, DX[m], DY[m]);
+            if(other != UNREACHED && cost <= bestCost) {
+              bestCost = cost;
+              best = (byte) m;
+            }
+          }
+        }
+        move[cell] = best;
+      }
+    }
+  }
+
+  /*
+   * True if move m out of a free cell is allowed: onto a free cell and, for
+   * a diagonal move, not cutting the corner of a wall.
+   */
+  private boolean canMove(int col, int row, int m) {
+    int x = col + DX[m];
+    int y = row + DY[m];
+    if(grid.isWall(x, y)) {
+      return false;
+    }
+    return DX[m] == 0 || DY[m] == 0 || !grid.isWall(x, row) &&
+        !grid.isWall(col, y);
+  }
+
+  /*
+   * Cost of the cheapest path from a cell to the goal, UNREACHED if there is
+   * none.
+   */
+  public int getDistance(int cell) {
+    return distance[cell];
+  }
+
+  /*
+   * The cell to move to from a cell on the way to the goal, -1 at the goal
+   * or when the goal cannot be reached.
+   */
+  public int next(int cell) {
+    int m = move[cell];
+    return m == NONE ? -1 : grid.index(grid.getCol(cell) + DX[m],
+                                       grid.getRow(cell) + DY[m]);
+  }
+
+  /*
+   * Cells from start to the goal, both included, empty if the goal cannot be
+   * reached.
+   */
+  public int[] path(int start) {
+    if(start == goal) {
+      return new int[] {start};
+    }
+    if(distance[start] == UNREACHED) {
+      return new int[0];
+    }
+
+    int[] path = new int[16];
+    int length = 0;
+    for(int cell = start; cell >= 0; cell = next(cell)) {
+      path = push(path, length++, cell);
+    }
+    return Arrays.copyOf(path, length);
+  }
+
+  public Grid getGrid() {
+    return grid;
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * The grid the path finders search over. Cells are addressed by column and
+ * row, or by their index (row * columns + column).
+ * Walls are kept as one bit per cell, every row starting on a fresh 64 bit
+ * word. Bit (col & 63) of word (col >>> 6) of a row is the wall at col.
+ * MappedGrid reads the same layout from a file instead of the heap.
+ * Free cells can also have a terrain weight from 1 to MAX_WEIGHT, kept as a
+ * byte per cell once the first weight is set. A move costs STRAIGHT_COST or
+ * DIAGONAL_COST times the higher weight of the two cells it joins, so it
+ * costs the same both ways and is still a whole number.
+ */
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class Grid {
+
+  /*
+   * Gets told about every cell that becomes or stops being a wall or changes
+   * weight, so that data built from the grid can be updated instead of
+   * rebuilt. When most of the grid changes at once it is told so once
+   * instead, and rebuilds.
+   */
+  public interface Listener {
+    void cellChanged(int col, int row);
+
+    void gridChanged();
+  }
+
+  // cost of moving to an orthogonal and to a diagonal neighbor
+  public static final int STRAIGHT_COST = 25;
+  public static final int DIAGONAL_COST = 35;
+
+  public static final int MAX_WEIGHT = 256;
+
+  private final int cols, rows;
+  private final int wordsPerRow;
+  private final long[] walls;
+
+  //weight of every cell minus one, null while all cells weigh 1
+  private byte[] weights;
+
+  //bumped on every change to the walls or weights, lets cached data see it
+  //is stale
+  private int version;
+
+  private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+  public Grid(int cols, int rows) {
+    this(cols, rows, new long[wordsPerRow(cols) * rows]);
+  }
+
+  /*
+   * For grids keeping their walls somewhere else, which pass null and
+   * override every method that reads or writes them.
+   */
+  protected Grid(int cols, int rows, long[] walls) {
+    this.cols = cols;
+    this.rows = rows;
+
+    wordsPerRow = wordsPerRow(cols);
+    this.walls = walls;
+  }
+
+  public static int wordsPerRow(int cols) {
+    return (cols + 63) >>> 6;
+  }
+
+  public int getCols() {
+    return cols;
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  public int size() {
+    return cols * rows;
+  }
+
+  public int index(int col, int row) {
+    return row * cols + col;
+  }
+
+  public int getCol(int cell) {
+    return cell % cols;
+  }
+
+  public int getRow(int cell) {
+    return cell / cols;
+  }
+
+  public boolean inBounds(int col, int row) {
+    return col >= 0 && row >= 0 && col < cols && row < rows;
+  }
+
+  /*
+   * Checks to see if there is a wall at a location. Everything outside of the
+   * grid counts as a wall.
+   */
+  public boolean isWall(int col, int row) {
+    if(!inBounds(col, row)) {
+      return true;
+    }
+    return (walls[row * wordsPerRow + (col >>> 6)] & (1L << col)) != 0;
+  }
+
+  public boolean isWall(int cell) {
+    return isWall(getCol(cell), getRow(cell));
+  }
+
+  public int getWordsPerRow() {
+    return wordsPerRow;
+  }
+
+  /*
+   * The 64 walls stored in one word of a row, the bits past the last column
+   * are always 0.
+   */
+  public long getWallWord(int row, int word) {
+    return walls[row * wordsPerRow + word];
+  }
+
+  /*
+   * Adds or removes a wall, returns false if the cell already was in that
+   * state.
+   */
+  public boolean setWall(int col, int row, boolean wall) {
+    if(!inBounds(col, row) || isWall(col, row) == wall) {
+      return false;
+    }
+
+    walls[row * wordsPerRow + (col >>> 6)] ^= 1L << col;
+    version++;
+
+    for(Listener listener : listeners) {
+      listener.cellChanged(col, row);
+    }
+    return true;
+  }
+
+  public void clearWalls() {
+    Arrays.fill(walls, 0);
+    changed();
+  }
+
+  /*
+   * Takes the walls of another grid of the same size and sets every weight
+   * back to 1, as one change.
+   */
+  public void loadWalls(Grid other) {
+    if(other.getCols() != cols || other.getRows() != rows) {
+      throw new IllegalArgumentException("Grid is " + other.getCols() + "x" +
+          other.getRows() + ", not " + cols + "x" + rows);
+    }
+
+    for(int row = 0; row < rows; row++) {
+      for(int word = 0; word < wordsPerRow; word++) {
+        walls[row * wordsPerRow + word] = other.getWallWord(row, word);
+      }
+    }
+    weights = null;
+    changed();
+  }
+
+  private void changed() {
+    version++;
+    for(Listener listener : listeners) {
+      listener.gridChanged();
+    }
+  }
+
+  public boolean hasWeights() {
+    return weights != null;
+  }
+
+  public int getWeight(int col, int row) {
+    return weights == null ? 1 : (weights[row * cols + col] & 0xFF) + 1;
+  }
+
+  /*
+   * Sets the terrain weight of a cell, returns false if it already had it.
+   */
+  public boolean setWeight(int col, int row, int weight) {
+    if(weight < 1 || weight > MAX_WEIGHT) {
+      throw new IllegalArgumentException("Weight " + weight + " is not in 1.." +
+                                         MAX_WEIGHT);
+    }
+    if(!inBounds(col, row) || getWeight(col, row) == weight) {
+      return false;
+    }
+
+    if(weights == null) {
+      weights = new byte[size()];
+    }
+    weights[row * cols + col] = (byte) (weight - 1);
+    version++;
+
+    for(Listener listener : listeners) {
+      listener.cellChanged(col, row);
+    }
+    return true;
+  }
+
+  /*
+   * Sets every weight back to 1.
+   */
+  public void clearWeights() {
+    if(weights == null) {
+      return;
+    }
+
+    weights = null;
+    changed();
+  }
+
+  /*
+   * Cost of the move by (dx, dy) from a cell to its neighbor. Only valid for
+   * a move that is allowed.
+   */
+  public int moveCost(int col, int row, int dx, int dy) {
+    int cost = dx != 0 && dy != 0 ? DIAGONAL_COST : STRAIGHT_COST;
+    if(weights == null) {
+      return cost;
+    }
+
+    return cost * (Math.max(weights[row * cols + col] & 0xFF,
+        weights[(row + dy) * cols + col + dx] & 0xFF) + 1);
+  }
+
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Listener listener) {
+    listeners.remove(listener);
+  }
+
+  /*
+   * Listeners registered, for making sure the ones no longer used were
+   * removed.
+   */
+  public int getListenerCount() {
+    return listeners.size();
+  }
+
+  public int getVersion() {
+    return version;
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Base class of the searches run over a Grid. A search is started with
+ * begin() and then advanced one expansion at a time with step(), or run to
+ * the end with run(). The open list and search space are kept between
+ * searches so that running many queries does not allocate new ones.
+ * With a SearchListener set, every search is counted into a SearchMetrics
+ * that the listener gets when the search finishes.
+ */
+
+public abstract class GridSearch {
+
+  protected final Grid grid;
+  protected final SearchSpace space;
+
+  //the list the search works on, metered while a listener is set
+  protected OpenList open;
+  private final OpenList list;
+
+  protected Heuristic heuristic;
+  protected int start, end;
+  protected int expanded;
+
+  private boolean finished, found;
+
+  //tells unreachable ends apart before searching, null when not used
+  private ComponentIndex components;
+
+  //both null unless somebody listens
+  private SearchListener listener;
+  protected SearchMetrics metrics;
+
+  public GridSearch(Grid grid) {
+    this(grid, new BinaryHeap(grid.size()));
+  }
+
+  public GridSearch(Grid grid, OpenList open) {
+    this(grid, open, new SearchSpace(grid.size()));
+  }
+
+  /*
+   * Uses the given search space, for searches that keep no state per cell
+   * and pass empty ones.
+   */
+  protected GridSearch(Grid grid, OpenList open, SearchSpace space) {
+    this.grid = grid;
+    this.open = open;
+    this.space = space;
+    list = open;
+  }
+
+  /*
+   * Clears the previous search and sets up a new one from start to end.
+   */
+  public void begin(int start, int end, Heuristic heuristic) {
+    this.start = start;
+    this.end = end;
+    this.heuristic = heuristic;
+
+    expanded = 0;
+    finished = false;
+    found = false;
+    open.clear();
+    space.reset();
+    heuristic.update();
+
+    if(metrics != null) {
+      metrics.begin();
+    }
+
+    if(grid.isWall(start) || grid.isWall(end)) {
+      finish(false);
+      return;
+    }
+
+    //an end in another component than the start fails at once
+    if(components != null && !components.connected(start, end)) {
+      finish(false);
+      return;
+    }
+
+    init();
+  }
+
+  /*
+   * Puts the first nodes on the open list.
+   */
+  protected abstract void init();
+
+  /*
+   * Expands one node. Returns false once the search is finished.
+   */
+  public abstract boolean step();
+
+  /*
+   * Runs the search to completion.
+   */
+  public SearchResult run() {
+    while(step()) {
+    }
+
+    return getResult();
+  }
+
+  protected void finish(boolean found) {
+    this.finished = true;
+    this.found = found;
+
+    if(metrics != null) {
+      metrics.finish(found, found ? pathCost() : Double.POSITIVE_INFINITY,
+                     expanded);
+      listener.searchFinished(metrics);
+    }
+  }
+
+  /*
+   * Records that a path to the end is known, for searches that keep going
+   * after the first one.
+   */
+  protected void solution() {
+    if(metrics != null) {
+      metrics.solution();
+    }
+  }
+
+  /*
+   * Wall test for the neighbors of a cell, counted when metrics are on.
+   */
+  protected boolean isWall(int col, int row) {
+    if(metrics != null) {
+      metrics.wallProbe();
+    }
+    return grid.isWall(col, row);
+  }
+
+  /*
+   * Lets a finished search take more steps, for searches that can carry on
+   * after the grid changed.
+   */
+  protected void resume() {
+    finished = false;
+    found = false;
+
+    if(metrics != null) {
+      metrics.begin();
+    }
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  public boolean isFound() {
+    return found;
+  }
+
+  protected double estimate(int col, int row) {
+    return heuristic.estimate(col, row, grid.getCol(end), grid.getRow(end));
+  }
+
+  /*
+   * Builds the path by following parents back from the end node. Only valid
+   * once a path is found.
+   */
+  protected int[] constructPath() {
+    int length = 1;
+    for(int cell = end; cell != start; cell = space.getParent(cell)) {
+      length++;
+    }
+
+    int[] path = new int[length];
+    for(int i = length - 1, cell = end; i >= 0; i--) {
+      path[i] = cell;
+      cell = space.getParent(cell);
+    }
+
+    return path;
+  }
+
+  /*
+   * Cost of the path found.
+   */
+  protected double pathCost() {
+    return space.getG(end);
+  }
+
+  public SearchResult getResult() {
+    if(!found) {
+      return new SearchResult(false, new int[0], 0, expanded);
+    }
+
+    return new SearchResult(true, constructPath(), pathCost(), expanded);
+  }
+
+  /*
+   * Logs every cell that joins or leaves the open list or gets closed, so
+   * the GUI can redraw only those. Pass null to stop logging.
+   */
+  public void setChangeLog(ChangeLog log) {
+    open.setChangeLog(log);
+    space.setChangeLog(log);
+  }
+
+  /*
+   * Counts every search from now on and hands the counts to the listener
+   * when it finishes. Pass null to stop, which takes the counting out of the
+   * way of the search again.
+   */
+  public void setListener(SearchListener listener) {
+    if(listener == this.listener) {
+      return;
+    }
+
+    this.listener = listener;
+    metrics = listener == null ? null : new SearchMetrics(
+        getClass().getSimpleName());
+    open = meter(list);
+  }
+
+  /*
+   * The open list as the search should use it, counted when metrics are on.
+   */
+  protected OpenList meter(OpenList list) {
+    return metrics == null ? list : new MeteredOpenList(list, metrics);
+  }
+
+  /*
+   * Checks every search against the components of the grid first, so that
+   * a search for an end that cannot be reached finishes right away. null to
+   * search anyway.
+   */
+  public void setComponents(ComponentIndex components) {
+    this.components = components;
+  }
+
+  public SearchListener getListener() {
+    return listener;
+  }
+
+  /*
+   * Counters of the last search, null while no listener is set.
+   */
+  public SearchMetrics getMetrics() {
+    return metrics;
+  }
+
+  public Grid getGrid() {
+    return grid;
+  }
+
+  public OpenList getOpen() {
+    return open;
+  }
+
+  public SearchSpace getSpace() {
+    return space;
+  }
+}
@@ -0,0 +1,18 @@
+/*
+ * Estimates the cost of the cheapest path between two cells of the grid.
+ * Costs are in the same units as Grid.STRAIGHT_COST and Grid.DIAGONAL_COST.
+ * The searches are handed a Heuristic directly; Heuristics holds the plain
+ * distance functions and LandmarkHeuristic the ALT one.
+ */
+
+public interface Heuristic {
+
+  double estimate(int col, int row, int goalCol, int goalRow);
+
+  /*
+   * Called before every search, lets a heuristic built from the walls catch
+   * up with changes to them.
+   */
+  default void update() {
+  }
+}
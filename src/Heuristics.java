@@ -0,0 +1,71 @@
+/*
+ * The distance functions available as heuristics for A*. Consider this page
+ * for how they compare:
+ * http://theory.stanford.edu/~amitp/GameProgramming/Heuristics.html#S7
+ */
+
+public enum Heuristics implements Heuristic {
+
+  /*
+   * No estimate at all, which turns A* into Dijkstra's algorithm.
+   */
+  ZERO {
+    public double estimate(int col, int row, int goalCol, int goalRow) {
+      return 0;
+    }
+  },
+
+  /*
+   * From the Stanford page: "Here we compute the number of steps you take if
+   * you can't take a diagonal, then subtract the steps you save by using the
+   * diagonal. There are min(dx, dy) diagonal steps, and each one costs D2 but
+   * saves you 2xD non-diagonal steps."
+   * This is the exact cost of a path on an empty grid.
+   */
+  OCTILE {
+    public double estimate(int col, int row, int goalCol, int goalRow) {
+      int dx = Math.abs(goalCol - col);
+      int dy = Math.abs(goalRow - row);
+
+      if(dx > dy) {
+        return Grid.STRAIGHT_COST * (dx - dy) + Grid.DIAGONAL_COST * dy;
+      }
+      return Grid.STRAIGHT_COST * (dy - dx) + Grid.DIAGONAL_COST * dx;
+    }
+  },
+
+  /*
+   * Number of orthogonal steps to the goal. Overestimates when diagonal moves
+   * are possible, so A* finds a path faster but not always the shortest one.
+   */
+  MANHATTAN {
+    public double estimate(int col, int row, int goalCol, int goalRow) {
+      return Grid.STRAIGHT_COST * (Math.abs(goalCol - col) +
+          Math.abs(goalRow - row));
+    }
+  },
+
+  /*
+   * Number of king moves to the goal, counting diagonal moves as straight
+   * ones. Never overestimates but is looser than OCTILE.
+   */
+  CHEBYSHEV {
+    public double estimate(int col, int row, int goalCol, int goalRow) {
+      return Grid.STRAIGHT_COST * Math.max(Math.abs(goalCol - col),
+          Math.abs(goalRow - row));
+    }
+  },
+
+  /*
+   * Straight line distance. DIAGONAL_COST is a little less than
+   * STRAIGHT_COST * sqrt(2), so the unit is taken from the diagonal to never
+   * overestimate a diagonal move.
+   */
+  EUCLIDEAN {
+    public double estimate(int col, int row, int goalCol, int goalRow) {
+      int dx = goalCol - col;
+      int dy = goalRow - row;
+      return Grid.DIAGONAL_COST * Math.sqrt((dx * dx + dy * dy) / 2.0);
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ * Hierarchical path finding (HPA*). A* runs over the nodes of a ClusterGraph
+ * instead of over every cell: the start and end nodes are linked to the nodes
+ * of their own cluster, then the search moves from cluster to cluster. Each
+ * step of the abstract path is refined into cells only when the result is
+ * built, with a search that stays inside one cluster.
+ * Paths have to pass through the transitions of the graph, so they may be a
+ * little longer than the ones found by A*.
+ */
+
+import java.util.Arrays;
+
+public class HierarchicalSearch extends GridSearch {
+
+  private final ClusterGraph graph;
+  private final int[] partners;
+
+  private int startCluster, endCluster;
+
+  //cost from the start and end node to every cell of their cluster
+  private final double[] startCost, endCost;
+
+  public HierarchicalSearch(Grid grid, ClusterGraph graph) {
+    super(grid);
+    this.graph = graph;
+
+    partners = new int[4];
+    startCost = new double[graph.getClusterSize() * graph.getClusterSize()];
+    endCost = new double[startCost.length];
+  }
+
+  protected void init() {
+    graph.update();
+
+    startCluster = graph.clusterOf(start);
+    endCluster = graph.clusterOf(end);
+
+    graph.search(startCluster, start);
+    copyCosts(startCluster, startCost);
+    graph.search(endCluster, end);
+    copyCosts(endCluster, endCost);
+
+    space.setNode(start, 0, start);
+    open.add(start, estimate(grid.getCol(start), grid.getRow(start)), 0);
+  }
+
+  /*
+   * Keeps the costs of the last cluster search, indexed inside the cluster.
+   */
+  private void copyCosts(int cluster, double[] cost) {
+    Arrays.fill(cost, Double.POSITIVE_INFINITY);
+
+    int[] nodes = graph.getNodes(cluster);
+    for(int node : nodes) {
+      cost[graph.localIndex(node)] = graph.getLocalCost(node);
+    }
+
+    if(cluster == endCluster && cluster == startCluster) {
+      cost[graph.localIndex(start)] = graph.getLocalCost(start);
+      cost[graph.localIndex(end)] = graph.getLocalCost(end);
+    }
+  }
+
+  public boolean step() {
+    if(isFinished()) {
+      return false;
+    }
+
+    int current = open.poll();
+
+    if(current < 0) {
+      finish(false);
+      return false;
+    }
+
+    if(current == end) {
+      finish(true);
+      return false;
+    }
+
+    space.close(current);
+    expanded++;
+
+    int cluster = graph.clusterOf(current);
+    double g = space.getG(current);
+
+    //the start node links to every node of its cluster it can reach
+    if(current == start) {
+      for(int node : graph.getNodes(cluster)) {
+        relax(current, node, g + startCost[graph.localIndex(node)]);
+      }
+    }
+
+    //a node of the graph links to its cluster and across the borders
+    int index = graph.nodeIndex(cluster, current);
+    if(index >= 0) {
+      int[] nodes = graph.getNodes(cluster);
+      for(int i = 0; i < nodes.length; i++) {
+        if(i != index) {
+          relax(current, nodes[i], g + graph.getCost(cluster, index, i));
+        }
+      }
+
+      int count = graph.partners(current, partners);
+      for(int i = 0; i < count; i++) {
+        relax(current, partners[i], g + grid.moveCost(grid.getCol(current),
+            grid.getRow(current), grid.getCol(partners[i]) - grid.getCol(
+            current), grid.getRow(partners[i]) - grid.getRow(current)));
+      }
+    }
+
+    //every node in the cluster of the end node links to it
+    if(cluster == endCluster) {
+      relax(current, end, g + endCost[graph.localIndex(current)]);
+    }
+
+    return true;
+  }
+
+  private void relax(int current, int node, double gCost) {
+    if(gCost == Double.POSITIVE_INFINITY || space.isClosed(node)) {
+      return;
+    }
+
+    double hCost = estimate(grid.getCol(node), grid.getRow(node));
+
+    if(open.contains(node)) {
+      if(gCost < open.getG(node)) {
+        space.setNode(node, gCost, current);
+        open.decreaseKey(node, gCost + hCost, gCost);
+      }
+      return;
+    }
+
+    space.setNode(node, gCost, current);
+    open.add(node, gCost + hCost, gCost);
+  }
+
+  /*
+   * Refines the abstract path: moves inside a cluster are replaced by the
+   * cells of the path found inside it, moves across a border are one step.
+   */
+  protected int[] constructPath() {
+    int[] nodes = super.constructPath();
+
+    int[] path = new int[16];
+    int length = 0;
+    path[length++] = nodes[0];
+
+    for(int i = 1; i < nodes.length; i++) {
+      int cluster = graph.clusterOf(nodes[i - 1]);
+
+      if(cluster != graph.clusterOf(nodes[i])) {
+        path = ensure(path, length + 1);
+        path[length++] = nodes[i];
+        continue;
+      }
+
+      graph.search(cluster, nodes[i - 1]);
+      int[] piece = graph.getLocalPath(nodes[i]);
+      path = ensure(path, length + piece.length);
+      System.arraycopy(piece, 1, path, length, piece.length - 1);
+      length += piece.length - 1;
+    }
+
+    return Arrays.copyOf(path, length);
+  }
+
+  private static int[] ensure(int[] path, int length) {
+    return length <= path.length ? path : Arrays.copyOf(path, Math.max(
+        length, 2 * path.length));
+  }
+
+  public ClusterGraph getGraph() {
+    return graph;
+  }
+}
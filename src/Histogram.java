@@ -0,0 +1,71 @@
+/*
+ * Histogram of non-negative longs with a bucket per power of two: bucket b
+ * holds the values from 2^(b-1) up to 2^b - 1, bucket 0 holds 0. Recording
+ * is O(1) and the memory is fixed, the price is that percentiles are only
+ * known to within a factor of two. Not thread safe.
+ */
+
+import java.util.Arrays;
+
+public class Histogram {
+
+  private final long[] buckets = new long[65];
+  private long count, sum, max;
+
+  public void record(long value) {
+    if(value < 0) {
+      value = 0;
+    }
+
+    buckets[64 - Long.numberOfLeadingZeros(value)]++;
+    count++;
+    sum += value;
+    max = Math.max(max, value);
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getSum() {
+    return sum;
+  }
+
+  public long getMax() {
+    return max;
+  }
+
+  public double getMean() {
+    return count == 0 ? 0 : (double) sum / count;
+  }
+
+  /*
+   * Upper bound of the bucket holding the p-th percentile, p from 0 to 100.
+   */
+  public long getPercentile(double p) {
+    long rank = (long) Math.ceil(count * p / 100);
+    long seen = 0;
+
+    for(int b = 0; b < buckets.length; b++) {
+      seen += buckets[b];
+      if(seen >= rank && seen > 0) {
+        return b == 0 ? 0 : Math.min(max, b == 64 ? Long.MAX_VALUE :
+                                     (1L << b) - 1);
+      }
+    }
+    return 0;
+  }
+
+  public void clear() {
+    Arrays.fill(buckets, 0);
+    count = 0;
+    sum = 0;
+    max = 0;
+  }
+
+  @Override
+  public String toString() {
+    return "n=" + count + " mean=" + Math.round(getMean()) + " p50<=" +
+        getPercentile(50) + " p99<=" + getPercentile(99) + " max=" + max;
+  }
+}
@@ -0,0 +1,423 @@
+/*
+ * Iterative deepening A* (IDA*) with a transposition table of fixed size,
+ * for maps too big to keep a cost for every cell. Each iteration is a depth
+ * first search that gives up on cells whose F cost is over a threshold, and
+ * the next iteration raises the threshold. It is not raised to the lowest F
+ * cost given up on, as in plain IDA*, which on a grid takes an iteration
+ * for nearly every cost a path can have, but doubles how far it is over the
+ * estimate at the start, so it takes a few iterations.
+ * The threshold can then be past the cheapest path, so the first path found
+ * is only a bound: the iteration goes on giving up on cells that cannot
+ * lead to a cheaper path, and what is left at its end is the cheapest path
+ * under the threshold. No path is cheaper than the lowest F cost the
+ * iteration before gave up on, so a path of that cost ends it at once. With
+ * an admissible heuristic the path found is the cheapest.
+ * A depth first search reaches the same cell over many paths. The table
+ * keeps the lowest G cost each cell was reached with, and a cell reached
+ * again for no less in the same iteration is not searched again: its
+ * threshold has only come down since, so it can only lead to less than it
+ * did the first time. A cell once reached for less in an earlier iteration
+ * is not searched again either, that path is searched again in this one.
+ * The table has a fixed number of entries, 2 per bucket, and a cell that
+ * does not fit pushes out the one reached for more, so a small table only
+ * searches more, never wrongly.
+ * The memory budget in bytes covers the table, the stack of the path being
+ * searched and a copy of the best path found. The table gets what the other
+ * two leave and is halved to make room when they grow with the length of
+ * the path, down to MIN_ENTRIES entries; only a path too long for the
+ * budget even then takes the stack over it, which getPeakMemory() shows.
+ * No open list or search space the size of the grid is kept, so the lists
+ * this search hands out are empty.
+ * With a time limit the search stops once past it, with the best path found
+ * so far, which may not be the cheapest, or none.
+ */
+
+import java.util.Arrays;
+
+public class IdaStarSearch extends GridSearch {
+
+  public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+  //below this the table is too small to keep a search from going over the
+  //same paths nearly without end
+  public static final long MIN_MEMORY_BUDGET = 64L << 10;
+
+  //entries the table is not halved below to make room for the stack
+  private static final int MIN_ENTRIES = 1024;
+  //steps between looks at the clock
+  private static final int CLOCK_STEPS = 1024;
+
+  //bytes of a table entry, tag and cost, of a stack frame and of a cell of
+  //the best path
+  private static final int ENTRY_BYTES = 16;
+  private static final int FRAME_BYTES = 13;
+  private static final int PATH_BYTES = 4;
+
+  //the 8 moves, straight ones first
+  private static final int[] MOVE_X = {1, 0, -1, 0, 1, -1, -1, 1};
+  private static final int[] MOVE_Y = {0, 1, 0, -1, 1, 1, -1, -1};
+
+  //the moves in the order they are tried, for each direction to the end:
+  //the ones heading that way first
+  private static final int[][] ORDER = orders();
+
+  //entries are the iteration in the high half of the tag and the cell in
+  //the low half, entries of older searches count as empty
+  private long[] tags;
+  private double[] costs;
+  private int shift;
+  private long budget;
+
+  //path being searched: cell, G cost and the next move to try of each
+  private int[] stackCell;
+  private double[] stackG;
+  private byte[] stackMove;
+  private int depth;
+
+  //cheapest path found in this iteration
+  private int[] best;
+  private int bestLength;
+  private double bestCost;
+
+  private double threshold, nextThreshold;
+  //F cost of the start, and no path costs less than floor
+  private double first, floor;
+  private int iteration, firstIteration, iterations;
+
+  private long timeLimit, deadline;
+  private int steps;
+  private long peakMemory;
+
+  public IdaStarSearch(Grid grid) {
+    super(grid, new BinaryHeap(0), new SearchSpace(0));
+
+    stackCell = new int[64];
+    stackG = new double[64];
+    stackMove = new byte[64];
+    best = new int[64];
+    setMemoryBudget(DEFAULT_MEMORY_BUDGET);
+  }
+
+  private static int[][] orders() {
+    int[][] orders = new int[9][];
+    for(int sx = -1; sx <= 1; sx++) {
+      for(int sy = -1; sy <= 1; sy++) {
+        int[] order = new int[MOVE_X.length];
+        int count = 0;
+        //most along the direction first, straight before diagonal on ties
+        for(int along = 2; along >= -2; along--) {
+          for(int d = 0; d < MOVE_X.length; d++) {
+            if(MOVE_X[d] * sx + MOVE_Y[d] * sy == along) {
+              order[count++] = d;
+            }
+          }
+        }
+        orders[(sx + 1) * 3 + sy + 1] = order;
+      }
+    }
+    return orders;
+  }
+
+  /*
+   * Bytes the table, the stack and the best path may take together. The
+   * table gets the most entries that fit next to what the stack and the
+   * path hold now, a power of 2, but no more than twice the cells of the
+   * grid.
+   */
+  public void setMemoryBudget(long bytes) {
+    if(bytes < MIN_MEMORY_BUDGET) {
+      throw new IllegalArgumentException("Memory budget " + bytes +
+                                         " is below " + MIN_MEMORY_BUDGET);
+    }
+
+    budget = bytes;
+    long entries = Math.min((bytes - heldBytes()) / ENTRY_BYTES, 1L << 30);
+    resize(Integer.highestOneBit((int) Math.min(Math.max(entries,
+        MIN_ENTRIES), Math.max(2, 2L * grid.size()))));
+  }
+
+  /*
+   * Makes a new empty table of capacity entries. Its tags are all 0, older
+   * than any iteration, so it can be swapped in during a search.
+   */
+  private void resize(int capacity) {
+    if(tags == null || tags.length != capacity) {
+      tags = new long[capacity];
+      costs = new double[capacity];
+      shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+  }
+
+  /*
+   * Halves the table until bytes more for the stack or the path fit in the
+   * budget, or it is down to MIN_ENTRIES. A table with fewer entries only
+   * searches more.
+   */
+  private void makeRoom(long bytes) {
+    while(tableBytes() + heldBytes() + bytes > budget &&
+          tags.length > MIN_ENTRIES) {
+      resize(tags.length / 2);
+    }
+  }
+
+  public long getMemoryBudget() {
+    return budget;
+  }
+
+  /*
+   * Stops at the first look at the clock past this many nanoseconds from
+   * begin(), 0 to go on until the path is the cheapest.
+   */
+  public void setTimeLimit(long nanos) {
+    timeLimit = nanos;
+  }
+
+  public long getTimeLimit() {
+    return timeLimit;
+  }
+
+  protected void init() {
+    iterations = 0;
+    steps = 0;
+    deadline = timeLimit > 0 ? System.nanoTime() + timeLimit : 0;
+    peakMemory = tableBytes() + heldBytes();
+    bestLength = 0;
+    bestCost = Double.POSITIVE_INFINITY;
+
+    if(start == end) {
+      best[bestLength++] = start;
+      bestCost = 0;
+      finish(true);
+      return;
+    }
+
+    first = estimate(grid.getCol(start), grid.getRow(start));
+    threshold = first;
+    floor = first;
+    firstIteration = iteration + 1;
+    startIteration();
+  }
+
+  private void startIteration() {
+    if(iteration == Integer.MAX_VALUE) {
+      Arrays.fill(tags, 0L);
+      iteration = 0;
+      firstIteration = 1;
+    }
+    iteration++;
+    iterations++;
+
+    nextThreshold = Double.POSITIVE_INFINITY;
+    depth = 0;
+    record(start, 0);
+    push(start, 0);
+  }
+
+  /*
+   * Searches on to the next cell under the threshold. An iteration that
+   * runs out of cells ends the search if it found a path, and starts the
+   * next one if not. The search fails once no cell was given up on.
+   */
+  public boolean step() {
+    if(isFinished()) {
+      return false;
+    }
+    if(++steps % CLOCK_STEPS == 0 && isPastDeadline()) {
+      finish(bestCost < Double.POSITIVE_INFINITY);
+      return false;
+    }
+
+    int endCol = grid.getCol(end);
+    int endRow = grid.getRow(end);
+
+    while(depth > 0) {
+      int top = depth - 1;
+      int k = stackMove[top];
+      if(k == MOVE_X.length) {
+        depth--;
+        continue;
+      }
+      stackMove[top]++;
+
+      int cell = stackCell[top];
+      int col = grid.getCol(cell);
+      int row = grid.getRow(cell);
+      int d = ORDER[(Integer.signum(endCol - col) + 1) * 3 +
+                    Integer.signum(endRow - row) + 1][k];
+      int xCoord = col + MOVE_X[d];
+      int yCoord = row + MOVE_Y[d];
+      boolean diagonal = MOVE_X[d] != 0 && MOVE_Y[d] != 0;
+
+      if(isWall(xCoord, yCoord) || diagonal &&
+          (isWall(xCoord, row) || isWall(col, yCoord))) {
+        continue;
+      }
+
+      int neighbor = grid.index(xCoord, yCoord);
+      //straight back where it came from
+      if(top > 0 && neighbor == stackCell[top - 1]) {
+        continue;
+      }
+
+      double g = stackG[top] + grid.moveCost(col, row, MOVE_X[d], MOVE_Y[d]);
+      double f = g + estimate(xCoord, yCoord);
+      if(f > threshold) {
+        nextThreshold = Math.min(nextThreshold, f);
+        continue;
+      }
+      if(f >= bestCost || !record(neighbor, g)) {
+        continue;
+      }
+
+      if(neighbor == end) {
+        keepPath(g);
+        if(bestCost <= floor) {
+          finish(true);
+          return false;
+        }
+        return true;
+      }
+
+      push(neighbor, g);
+      expanded++;
+      return true;
+    }
+
+    if(bestCost < Double.POSITIVE_INFINITY) {
+      finish(true);
+      return false;
+    }
+    if(nextThreshold == Double.POSITIVE_INFINITY) {
+      finish(false);
+      return false;
+    }
+
+    floor = nextThreshold;
+    threshold = Math.max(nextThreshold, first + 2 * (threshold - first));
+    startIteration();
+    return true;
+  }
+
+  private void push(int cell, double g) {
+    if(depth == stackCell.length) {
+      makeRoom((long) depth * FRAME_BYTES);
+      stackCell = Arrays.copyOf(stackCell, 2 * depth);
+      stackG = Arrays.copyOf(stackG, 2 * depth);
+      stackMove = Arrays.copyOf(stackMove, 2 * depth);
+      peakMemory = Math.max(peakMemory, tableBytes() + heldBytes());
+    }
+
+    stackCell[depth] = cell;
+    stackG[depth] = g;
+    stackMove[depth] = 0;
+    depth++;
+  }
+
+  /*
+   * Copies the path on the stack and the end, reached for cost, as the best
+   * path so far.
+   */
+  private void keepPath(double cost) {
+    if(depth + 1 > best.length) {
+      int length = Math.max(depth + 1, 2 * best.length);
+      makeRoom((long) (length - best.length) * PATH_BYTES);
+      best = new int[length];
+      peakMemory = Math.max(peakMemory, tableBytes() + heldBytes());
+    }
+
+    System.arraycopy(stackCell, 0, best, 0, depth);
+    best[depth] = end;
+    bestLength = depth + 1;
+    bestCost = cost;
+    solution();
+  }
+
+  /*
+   * Records reaching a cell for g. Returns false if it was reached for no
+   * more before in this iteration, or for less in an earlier one, then it
+   * need not be searched again.
+   */
+  private boolean record(int cell, double g) {
+    long tag = (long) iteration << 32 | cell;
+    int bucket = (cell * 0x9E3779B9) >>> shift & ~1;
+
+    for(int i = bucket; i < bucket + 2; i++) {
+      if((int) tags[i] != cell || (int) (tags[i] >>> 32) < firstIteration) {
+        continue;
+      }
+
+      if(costs[i] < g || costs[i] == g && tags[i] == tag) {
+        return false;
+      }
+      tags[i] = tag;
+      costs[i] = g;
+      return true;
+    }
+
+    //an entry of an older search goes first, then the costlier one
+    int victim = bucket;
+    if(isCurrent(bucket) && (!isCurrent(bucket + 1) ||
+                             costs[bucket + 1] > costs[bucket])) {
+      victim = bucket + 1;
+    }
+    tags[victim] = tag;
+    costs[victim] = g;
+    return true;
+  }
+
+  private boolean isCurrent(int entry) {
+    return (int) (tags[entry] >>> 32) >= firstIteration;
+  }
+
+  private boolean isPastDeadline() {
+    return deadline != 0 && System.nanoTime() - deadline >= 0;
+  }
+
+  private long tableBytes() {
+    return (long) tags.length * ENTRY_BYTES;
+  }
+
+  //bytes of the stack and the best path as allocated
+  private long heldBytes() {
+    return (long) stackCell.length * FRAME_BYTES +
+        (long) best.length * PATH_BYTES;
+  }
+
+  protected void finish(boolean found) {
+    if(metrics != null) {
+      metrics.setIterations(iterations);
+      metrics.setPeakMemory(getPeakMemory());
+    }
+    super.finish(found);
+  }
+
+  protected int[] constructPath() {
+    return Arrays.copyOf(best, bestLength);
+  }
+
+  protected double pathCost() {
+    return bestCost;
+  }
+
+  /*
+   * Cost the iteration running gives up over.
+   */
+  public double getThreshold() {
+    return threshold;
+  }
+
+  /*
+   * Iterations of the last search, the one running included.
+   */
+  public int getIterations() {
+    return iterations;
+  }
+
+  /*
+   * Most bytes the last search held at once: the whole table, the stack and
+   * the best path as allocated. It is over the budget only if the stack
+   * outgrew it with the table at MIN_ENTRIES.
+   */
+  public long getPeakMemory() {
+    return peakMemory;
+  }
+}
@@ -0,0 +1,298 @@
+/*
+ * Jump Point Search, an A* for uniform cost grids that skips over the many
+ * symmetric paths between two cells. Instead of adding every neighbor to the
+ * open list it jumps in a straight or diagonal line until it reaches a jump
+ * point: the end node or a cell with a forced neighbor.
+ * Diagonal moves follow the same rule as AStarSearch and never cut the corner
+ * of a wall, so the paths found cost the same as the ones found by A*.
+ * Terrain weights are ignored while searching: every free cell counts as
+ * weight 1, so on a grid with weights the path found may not be the
+ * cheapest, but its cost is what it really costs. Solver runs A* instead.
+ * Read up on it from: https://harablog.wordpress.com/2011/09/07/jump-point-search/
+ */
+
+public class JumpPointSearch extends GridSearch {
+
+  //straight jumps looked up instead of walked, null for plain JPS
+  private final JumpTable table;
+
+  private int endCol, endRow;
+
+  public JumpPointSearch(Grid grid, boolean precompute) {
+    super(grid);
+
+    table = precompute ? new JumpTable(grid) : null;
+  }
+
+  protected void init() {
+    if(table != null) {
+      table.update();
+    }
+
+    endCol = grid.getCol(end);
+    endRow = grid.getRow(end);
+
+    space.setNode(start, 0, start);
+    open.add(start, estimate(grid.getCol(start), grid.getRow(start)), 0);
+  }
+
+  public boolean step() {
+    if(isFinished()) {
+      return false;
+    }
+
+    int current = open.poll();
+
+    if(current < 0) {
+      finish(false);
+      return false;
+    }
+
+    if(current == end) {
+      finish(true);
+      return false;
+    }
+
+    space.close(current);
+    expanded++;
+
+    int col = grid.getCol(current);
+    int row = grid.getRow(current);
+    int parent = space.getParent(current);
+
+    //the start node has no direction of travel, so look everywhere
+    if(parent == current) {
+      for(int dx = -1; dx <= 1; dx++) {
+        for(int dy = -1; dy <= 1; dy++) {
+          if(dx != 0 || dy != 0) {
+            successor(current, col, row, dx, dy);
+          }
+        }
+      }
+      return true;
+    }
+
+    int dx = Integer.signum(col - grid.getCol(parent));
+    int dy = Integer.signum(row - grid.getRow(parent));
+
+    //only the neighbors that cannot be reached better without passing through
+    //current are searched
+    if(dx != 0 && dy != 0) {
+      boolean vertical = !isWall(col, row + dy);
+      boolean horizontal = !isWall(col + dx, row);
+
+      if(vertical) {
+        successor(current, col, row, 0, dy);
+      }
+      if(horizontal) {
+        successor(current, col, row, dx, 0);
+      }
+      if(vertical && horizontal) {
+        successor(current, col, row, dx, dy);
+      }
+    } else if(dx != 0) {
+      boolean next = !isWall(col + dx, row);
+      boolean down = !isWall(col, row + 1);
+      boolean up = !isWall(col, row - 1);
+
+      if(next) {
+        successor(current, col, row, dx, 0);
+        if(down) {
+          successor(current, col, row, dx, 1);
+        }
+        if(up) {
+          successor(current, col, row, dx, -1);
+        }
+      }
+      if(down) {
+        successor(current, col, row, 0, 1);
+      }
+      if(up) {
+        successor(current, col, row, 0, -1);
+      }
+    } else {
+      boolean next = !isWall(col, row + dy);
+      boolean right = !isWall(col + 1, row);
+      boolean left = !isWall(col - 1, row);
+
+      if(next) {
+        successor(current, col, row, 0, dy);
+        if(right) {
+          successor(current, col, row, 1, dy);
+        }
+        if(left) {
+          successor(current, col, row, -1, dy);
+        }
+      }
+      if(right) {
+        successor(current, col, row, 1, 0);
+      }
+      if(left) {
+        successor(current, col, row, -1, 0);
+      }
+    }
+
+    return true;
+  }
+
+  /*
+   * Jumps from current in one direction and adds the jump point found to the
+   * open list, the same way A* adds a neighbor.
+   */
+  private void successor(int current, int col, int row, int dx, int dy) {
+    int jumpPoint = (dx != 0 && dy != 0) ? jumpDiagonal(col, row, dx, dy) :
+        jumpStraight(col, row, dx, dy);
+
+    if(jumpPoint < 0 || space.isClosed(jumpPoint)) {
+      return;
+    }
+
+    int jumpCol = grid.getCol(jumpPoint);
+    int jumpRow = grid.getRow(jumpPoint);
+    double gCost = space.getG(current) + distance(col, row, jumpCol, jumpRow);
+
+    if(open.contains(jumpPoint)) {
+      if(gCost < open.getG(jumpPoint)) {
+        space.setNode(jumpPoint, gCost, current);
+        open.decreaseKey(jumpPoint, gCost + estimate(jumpCol, jumpRow), gCost);
+      }
+      return;
+    }
+
+    space.setNode(jumpPoint, gCost, current);
+    open.add(jumpPoint, gCost + estimate(jumpCol, jumpRow), gCost);
+  }
+
+  /*
+   * Cost of the straight or diagonal line between two jump points.
+   */
+  private static int distance(int col, int row, int toCol, int toRow) {
+    int dx = Math.abs(toCol - col);
+    int dy = Math.abs(toRow - row);
+    return Grid.STRAIGHT_COST * Math.abs(dx - dy) + Grid.DIAGONAL_COST *
+        Math.min(dx, dy);
+  }
+
+  /*
+   * Moves diagonally until a cell is found from which a straight jump reaches
+   * a jump point. Returns that cell, or -1 when a wall is hit first.
+   */
+  private int jumpDiagonal(int x, int y, int dx, int dy) {
+    while(true) {
+      if(isWall(x + dx, y + dy) || isWall(x + dx, y) ||
+          isWall(x, y + dy)) {
+        return -1;
+      }
+
+      x += dx;
+      y += dy;
+      int cell = grid.index(x, y);
+
+      if(cell == end || jumpStraight(x, y, dx, 0) >= 0 ||
+          jumpStraight(x, y, 0, dy) >= 0) {
+        return cell;
+      }
+    }
+  }
+
+  /*
+   * Moves in a straight line until a cell with a forced neighbor or the end
+   * node is reached. Returns that cell, or -1 when a wall is hit first.
+   */
+  private int jumpStraight(int x, int y, int dx, int dy) {
+    if(table != null) {
+      return lookupStraight(x, y, dx, dy);
+    }
+
+    while(true) {
+      x += dx;
+      y += dy;
+
+      if(isWall(x, y)) {
+        return -1;
+      }
+
+      int cell = grid.index(x, y);
+      if(cell == end || JumpTable.isForced(grid, x, y, dx, dy)) {
+        return cell;
+      }
+    }
+  }
+
+  /*
+   * Same as walking the straight jump, but reads its length from the table.
+   */
+  private int lookupStraight(int x, int y, int dx, int dy) {
+    int jump = table.get(grid.index(x, y), JumpTable.direction(dx, dy));
+
+    //the end node is a jump point too, check if it is on the way
+    int toEnd = -1;
+    if(dx != 0 && endRow == y) {
+      toEnd = (endCol - x) * dx;
+    } else if(dy != 0 && endCol == x) {
+      toEnd = (endRow - y) * dy;
+    }
+
+    if(toEnd > 0 && toEnd <= Math.abs(jump)) {
+      return end;
+    }
+
+    return jump > 0 ? grid.index(x + jump * dx, y + jump * dy) : -1;
+  }
+
+  /*
+   * The parents of the nodes are jump points, fill in the cells between them.
+   */
+  protected int[] constructPath() {
+    int[] jumps = super.constructPath();
+
+    int length = 1;
+    for(int i = 1; i < jumps.length; i++) {
+      length += Math.max(Math.abs(grid.getCol(jumps[i]) - grid.getCol(jumps[i - 1])),
+                         Math.abs(grid.getRow(jumps[i]) - grid.getRow(jumps[i - 1])));
+    }
+
+    int[] path = new int[length];
+    path[0] = jumps[0];
+
+    int k = 1;
+    for(int i = 1; i < jumps.length; i++) {
+      int col = grid.getCol(jumps[i - 1]);
+      int row = grid.getRow(jumps[i - 1]);
+      int dx = Integer.signum(grid.getCol(jumps[i]) - col);
+      int dy = Integer.signum(grid.getRow(jumps[i]) - row);
+
+      while(grid.index(col, row) != jumps[i]) {
+        col += dx;
+        row += dy;
+        path[k++] = grid.index(col, row);
+      }
+    }
+
+    return path;
+  }
+
+  /*
+   * The G costs are for weight 1, with weights the moves between the jump
+   * points are added up again.
+   */
+  protected double pathCost() {
+    if(!grid.hasWeights()) {
+      return super.pathCost();
+    }
+
+    double cost = 0;
+    for(int cell = end; cell != start; cell = space.getParent(cell)) {
+      int parent = space.getParent(cell);
+      int col = grid.getCol(parent);
+      int row = grid.getRow(parent);
+      int dx = Integer.signum(grid.getCol(cell) - col);
+      int dy = Integer.signum(grid.getRow(cell) - row);
+
+      for(; grid.index(col, row) != cell; col += dx, row += dy) {
+        cost += grid.moveCost(col, row, dx, dy);
+      }
+    }
+    return cost;
+  }
+}
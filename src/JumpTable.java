@@ -0,0 +1,99 @@
+/*
+ * Precomputed straight jumps for Jump Point Search (JPS+). For every cell and
+ * each of the 4 orthogonal directions it stores how far a straight jump goes:
+ * a positive value is the distance to the next jump point, zero or a negative
+ * value is minus the number of steps that can be taken before a wall.
+ * The table is rebuilt whenever the walls of the grid have changed.
+ */
+
+public class JumpTable {
+
+  //directions, in the order they are stored for each cell
+  public static final int EAST = 0, WEST = 1, SOUTH = 2, NORTH = 3;
+
+  private final Grid grid;
+  private final int[] jumps;
+  private int version;
+  private boolean built;
+
+  public JumpTable(Grid grid) {
+    this.grid = grid;
+
+    jumps = new int[grid.size() * 4];
+  }
+
+  public static int direction(int dx, int dy) {
+    if(dx != 0) {
+      return dx > 0 ? EAST : WEST;
+    }
+    return dy > 0 ? SOUTH : NORTH;
+  }
+
+  /*
+   * Checks if a cell reached with a straight move has a forced neighbor, a
+   * side cell that can only be reached through it. Diagonal moves may not cut
+   * corners, so that happens when the side cell is open but the cell behind
+   * it is a wall.
+   */
+  public static boolean isForced(Grid grid, int x, int y, int dx, int dy) {
+    if(dx != 0) {
+      return (!grid.isWall(x, y - 1) && grid.isWall(x - dx, y - 1)) ||
+          (!grid.isWall(x, y + 1) && grid.isWall(x - dx, y + 1));
+    }
+    return (!grid.isWall(x - 1, y) && grid.isWall(x - 1, y - dy)) ||
+        (!grid.isWall(x + 1, y) && grid.isWall(x + 1, y - dy));
+  }
+
+  public int get(int cell, int direction) {
+    return jumps[cell * 4 + direction];
+  }
+
+  /*
+   * Rebuilds the table if the grid changed since it was last built.
+   */
+  public void update() {
+    if(built && version == grid.getVersion()) {
+      return;
+    }
+
+    for(int row = 0; row < grid.getRows(); row++) {
+      for(int col = grid.getCols() - 1; col >= 0; col--) {
+        fill(col, row, 1, 0, EAST);
+      }
+      for(int col = 0; col < grid.getCols(); col++) {
+        fill(col, row, -1, 0, WEST);
+      }
+    }
+
+    for(int col = 0; col < grid.getCols(); col++) {
+      for(int row = grid.getRows() - 1; row >= 0; row--) {
+        fill(col, row, 0, 1, SOUTH);
+      }
+      for(int row = 0; row < grid.getRows(); row++) {
+        fill(col, row, 0, -1, NORTH);
+      }
+    }
+
+    version = grid.getVersion();
+    built = true;
+  }
+
+  /*
+   * Computes the jump from one cell out of the jump already known for the
+   * next cell in the same direction.
+   */
+  private void fill(int col, int row, int dx, int dy, int direction) {
+    int next = col + dx;
+    int nextRow = row + dy;
+    int slot = grid.index(col, row) * 4 + direction;
+
+    if(grid.isWall(next, nextRow)) {
+      jumps[slot] = 0;
+    } else if(isForced(grid, next, nextRow, dx, dy)) {
+      jumps[slot] = 1;
+    } else {
+      int jump = jumps[grid.index(next, nextRow) * 4 + direction];
+      jumps[slot] = jump > 0 ? jump + 1 : jump - 1;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * ALT heuristic (A*, landmarks and the triangle inequality, Goldberg and
+ * Harrelson). The exact cost from a few landmark cells to every cell is
+ * computed up front with Dijkstra. For any landmark L the cost from n to the
+ * goal is at least |d(L, goal) - d(L, n)|, and the best of those bounds is
+ * used, never less than the octile distance. Around walls this is much
+ * closer to the real cost than any distance function, so A* expands far
+ * fewer nodes on mazes.
+ * Landmarks are picked far apart: each new one is the reachable cell farthest
+ * from the ones already chosen. The costs are rebuilt by update() when the
+ * walls changed, which every search calls before it starts.
+ */
+
+import java.util.Arrays;
+
+public class LandmarkHeuristic implements Heuristic {
+
+  private static final int UNREACHED = Integer.MAX_VALUE;
+
+  private final Grid grid;
+  private final int count;
+
+  //cost from every landmark to every cell, UNREACHED across walls
+  private final int[][] cost;
+  private final int[] landmarks;
+  private int version;
+
+  private final OpenList open;
+
+  public LandmarkHeuristic(Grid grid, int count) {
+    this.grid = grid;
+    this.count = count;
+
+    cost = new int[count][grid.size()];
+    landmarks = new int[count];
+    open = new BinaryHeap(grid.size());
+
+    build();
+  }
+
+  /*
+   * Picks the landmarks again and recomputes their costs if the walls
+   * changed since the last time.
+   */
+  public synchronized void update() {
+    if(version != grid.getVersion()) {
+      build();
+    }
+  }
+
+  public double estimate(int col, int row, int goalCol, int goalRow) {
+    int cell = grid.index(col, row);
+    int goal = grid.index(goalCol, goalRow);
+    int best = 0;
+
+    for(int[] distance : cost) {
+      int a = distance[cell];
+      int b = distance[goal];
+      if(a != UNREACHED && b != UNREACHED) {
+        best = Math.max(best, Math.abs(a - b));
+      }
+    }
+
+    return Math.max(best, Heuristics.OCTILE.estimate(col, row, goalCol,
+                                                     goalRow));
+  }
+
+  public int[] getLandmarks() {
+    return landmarks.clone();
+  }
+
+  private void build() {
+    version = grid.getVersion();
+
+    //start from any free cell, the first landmark is the farthest from it
+    int seed = 0;
+    while(seed < grid.size() && grid.isWall(seed)) {
+      seed++;
+    }
+    if(seed == grid.size()) {
+      for(int[] distance : cost) {
+        Arrays.fill(distance, UNREACHED);
+      }
+      return;
+    }
+
+    dijkstra(seed, cost[0]);
+    int next = farthest(1);
+
+    for(int i = 0; i < count; i++) {
+      landmarks[i] = next;
+      dijkstra(next, cost[i]);
+      next = farthest(i + 1);
+    }
+  }
+
+  /*
+   * Reachable cell whose cost to the nearest of the first n landmarks is the
+   * highest.
+   */
+  private int farthest(int n) {
+    int best = landmarks[0];
+    long bestCost = -1;
+
+    for(int cell = 0; cell < grid.size(); cell++) {
+      long nearest = Long.MAX_VALUE;
+      for(int i = 0; i < n; i++) {
+        nearest = Math.min(nearest, cost[i][cell]);
+      }
+
+      if(nearest != UNREACHED && nearest > bestCost) {
+        bestCost = nearest;
+        best = cell;
+      }
+    }
+    return best;
+  }
+
+  /*
+   * Cost from source to every cell, moving the same way as the searches.
+   */
+  private void dijkstra(int source, int[] distance) {
+    Arrays.fill(distance, UNREACHED);
+    open.clear();
+
+    distance[source] = 0;
+    open.add(source, 0, 0);
+
+    while(!open.isEmpty()) {
+      int current = open.poll();
+      int col = grid.getCol(current);
+      int row = grid.getRow(current);
+
+      for(int i = -1; i <= 1; i++) {
+        for(int j = -1; j <= 1; j++) {
+          int xCoord = col + i;
+          int yCoord = row + j;
+          boolean diagonal = i != 0 && j != 0;
+
+          if((i == 0 && j == 0) || grid.isWall(xCoord, yCoord) || diagonal &&
+              (grid.isWall(xCoord, row) || grid.isWall(col, yCoord))) {
+            continue;
+          }
+
+          int neighbor = grid.index(xCoord, yCoord);
+          int gCost = distance[current] + grid.moveCost(col, row, i, j);
+          if(gCost >= distance[neighbor]) {
+            continue;
+          }
+
+          if(open.contains(neighbor)) {
+            open.decreaseKey(neighbor, gCost, gCost);
+          } else {
+            open.add(neighbor, gCost, gCost);
+          }
+          distance[neighbor] = gCost;
+        }
+      }
+    }
+  }
+}
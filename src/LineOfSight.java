@@ -0,0 +1,121 @@
+/*
+ * Line of sight between the centers of two cells of a Grid. A line is clear
+ * if no cell it touches is a wall, touching a corner included, so a line
+ * never squeezes between two walls meeting at a corner, the same as a
+ * diagonal move is not allowed to cut a corner. For two neighbors it is
+ * clear exactly when the move between them is allowed.
+ * Coordinates are in half cells, so the centers and the edges of the cells
+ * are whole numbers and the cells a line touches are found without rounding.
+ * The cells it touches in a row are a run of columns, which is tested
+ * against the wall bits of the row a word at a time instead of cell by cell.
+ */
+
+public class LineOfSight {
+
+  private final Grid grid;
+
+  //line being looked at: from (x0, y0) to (x0 + dx, y0 + dy) with dy >= 0,
+  //and its rows
+  private long x0, y0, dx, dy;
+  private int firstRow, lastRow, firstCol, lastCol;
+
+  public LineOfSight(Grid grid) {
+    this.grid = grid;
+  }
+
+  /*
+   * True if no wall is in the way from the center of one cell to the center
+   * of the other.
+   */
+  public boolean isClear(int from, int to) {
+    setLine(from, to);
+
+    for(int row = firstRow; row <= lastRow; row++) {
+      int low = low(row);
+      int high = high(row);
+
+      int first = low >>> 6;
+      int last = high >>> 6;
+      for(int w = first; w <= last; w++) {
+        long mask = -1L;
+        if(w == first) {
+          mask &= -1L << low;
+        }
+        if(w == last) {
+          mask &= -1L >>> (63 - (high & 63));
+        }
+        if((grid.getWallWord(row, w) & mask) != 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /*
+   * Highest weight of the cells the line touches.
+   */
+  public int maxWeight(int from, int to) {
+    setLine(from, to);
+
+    int max = 1;
+    for(int row = firstRow; row <= lastRow; row++) {
+      for(int col = low(row), high = high(row); col <= high; col++) {
+        max = Math.max(max, grid.getWeight(col, row));
+      }
+    }
+    return max;
+  }
+
+  private void setLine(int from, int to) {
+    //from the upper cell down
+    if(grid.getRow(from) > grid.getRow(to)) {
+      int swap = from;
+      from = to;
+      to = swap;
+    }
+
+    firstRow = grid.getRow(from);
+    lastRow = grid.getRow(to);
+    firstCol = grid.getCol(from);
+    lastCol = grid.getCol(to);
+
+    x0 = 2 * firstCol + 1;
+    y0 = 2 * firstRow + 1;
+    dx = 2 * (lastCol - firstCol);
+    dy = 2 * (lastRow - firstRow);
+  }
+
+  /*
+   * First and last column the line touches in a row. The piece of the line
+   * in the row runs from height max(2 * row, y0) to min(2 * row + 2, y0 + dy),
+   * the columns are the ones whose edges 2 * col and 2 * col + 2 take in
+   * some of the x the piece runs over, x times dy being a whole number.
+   */
+  private int low(int row) {
+    if(dy == 0) {
+      return Math.min(firstCol, lastCol);
+    }
+
+    long x = Math.min(x(row), x(row + 1));
+    return (int) -Math.floorDiv(2 * dy - x, 2 * dy);
+  }
+
+  private int high(int row) {
+    if(dy == 0) {
+      return Math.max(firstCol, lastCol);
+    }
+
+    long x = Math.max(x(row), x(row + 1));
+    return (int) Math.floorDiv(x, 2 * dy);
+  }
+
+  /*
+   * x times dy where the line crosses the top edge of a row, or where it
+   * starts or ends if that is inside the row.
+   */
+  private long x(int edge) {
+    long y = Math.max(y0, Math.min(y0 + dy, 2L * edge));
+    return x0 * dy + (y - y0) * dx;
+  }
+}
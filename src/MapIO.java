@@ -0,0 +1,366 @@
+/*
+ * Reads and writes grids in the Moving AI benchmark formats
+ * (https://movingai.com/benchmarks/formats.html).
+ * A .map file is a short header followed by one line of characters per row;
+ * '.', 'G' and 'S' can be walked on, everything else is a wall. A .scen file
+ * lists queries on a map with the length of their shortest path, counting 1
+ * for a straight move and sqrt(2) for a diagonal one, with no corner cutting.
+ * Files are memory mapped and parsed byte by byte straight into the grid,
+ * without building a String per line.
+ * Grids can also be saved in a binary format made for large static maps. A 32
+ * byte header (the magic "GRID", version, width, height and cell size as
+ * little endian ints, then zeros) is followed by the walls exactly as Grid
+ * keeps them: for every row its 64 bit words, little endian. openGrid()
+ * searches that file in place through a MappedGrid.
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class MapIO {
+
+  private static final int GRID_MAGIC = 0x44495247;  // "GRID" little endian
+  private static final int GRID_VERSION = 1;
+  private static final int GRID_HEADER = 32;
+
+  /*
+   * One query of a .scen file. Coordinates are column (x) and row (y).
+   */
+  public static final class Scenario {
+    public final int bucket;
+    public final String map;
+    public final int width, height;
+    public final int startX, startY, goalX, goalY;
+    public final double optimalLength;
+
+    public Scenario(int bucket, String map, int width, int height, int startX,
+                    int startY, int goalX, int goalY, double optimalLength) {
+      this.bucket = bucket;
+      this.map = map;
+      this.width = width;
+      this.height = height;
+      this.startX = startX;
+      this.startY = startY;
+      this.goalX = goalX;
+      this.goalY = goalY;
+      this.optimalLength = optimalLength;
+    }
+  }
+
+  private MapIO() {
+  }
+
+  /*
+   * Reads a .map file into a new grid.
+   */
+  public static Grid readMap(Path file) throws IOException {
+    MappedByteBuffer in = map(file);
+
+    int width = -1, height = -1;
+    for(;;) {
+      String key = word(in);
+      if(key == null) {
+        throw new IOException(file + ": no map section");
+      }
+
+      if(key.equals("map")) {
+        break;
+      } else if(key.equals("height")) {
+        height = number(in);
+      } else if(key.equals("width")) {
+        width = number(in);
+      } else {
+        //type octile, nothing else is in use
+        word(in);
+      }
+    }
+
+    if(width <= 0 || height <= 0) {
+      throw new IOException(file + ": missing width or height");
+    }
+
+    Grid grid = new Grid(width, height);
+    skipLine(in);
+
+    for(int row = 0; row < height; row++) {
+      for(int col = 0; col < width; col++) {
+        if(!in.hasRemaining()) {
+          throw new IOException(file + ": map ends in row " + row);
+        }
+
+        byte b = in.get();
+        if(b == '\n' || b == '\r') {
+          throw new IOException(file + ": row " + row + " has " + col +
+                                " cells, not " + width);
+        }
+        if(b != '.' && b != 'G' && b != 'S') {
+          grid.setWall(col, row, true);
+        }
+      }
+      endLine(in, file, row, width);
+    }
+
+    return grid;
+  }
+
+  /*
+   * Writes a grid as a .map file, walls as '@' and free cells as '.'.
+   */
+  public static void writeMap(Grid grid, Path file) throws IOException {
+    OutputStream out = new BufferedOutputStream(Files.newOutputStream(file));
+    try {
+      out.write(("type octile\nheight " + grid.getRows() + "\nwidth " +
+                 grid.getCols() + "\nmap\n").getBytes(StandardCharsets.US_ASCII));
+
+      byte[] line = new byte[grid.getCols() + 1];
+      line[grid.getCols()] = '\n';
+
+      for(int row = 0; row < grid.getRows(); row++) {
+        for(int col = 0; col < grid.getCols(); col++) {
+          line[col] = (byte) (grid.isWall(col, row) ? '@' : '.');
+        }
+        out.write(line);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /*
+   * Writes a grid in the binary format, cellSize is the size of a cell on
+   * screen in pixels.
+   */
+  public static void writeGrid(Grid grid, int cellSize, Path file)
+      throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(GRID_HEADER).order(
+          ByteOrder.LITTLE_ENDIAN);
+      header.putInt(GRID_MAGIC).putInt(GRID_VERSION).putInt(grid.getCols())
+          .putInt(grid.getRows()).putInt(cellSize);
+      header.clear();
+      writeFully(channel, header);
+
+      ByteBuffer row = ByteBuffer.allocate(8 * grid.getWordsPerRow()).order(
+          ByteOrder.LITTLE_ENDIAN);
+      for(int r = 0; r < grid.getRows(); r++) {
+        row.clear();
+        for(int word = 0; word < grid.getWordsPerRow(); word++) {
+          row.putLong(grid.getWallWord(r, word));
+        }
+        row.flip();
+        writeFully(channel, row);
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
+  /*
+   * Opens a grid written by writeGrid() without reading it: the walls are
+   * looked up in the mapped file as the grid is searched.
+   */
+  public static MappedGrid openGrid(Path file) throws IOException {
+    MappedByteBuffer in = map(file);
+    in.order(ByteOrder.LITTLE_ENDIAN);
+
+    if(in.limit() < GRID_HEADER || in.getInt(0) != GRID_MAGIC) {
+      throw new IOException(file + ": not a grid file");
+    }
+    if(in.getInt(4) != GRID_VERSION) {
+      throw new IOException(file + ": unknown version " + in.getInt(4));
+    }
+
+    int width = in.getInt(8);
+    int height = in.getInt(12);
+    int cellSize = in.getInt(16);
+
+    long length = GRID_HEADER + 8L * Grid.wordsPerRow(width) * height;
+    if(width <= 0 || height <= 0 || in.limit() < length) {
+      throw new IOException(file + ": truncated grid of " + width + "x" +
+                            height);
+    }
+
+    in.position(GRID_HEADER);
+    return new MappedGrid(width, height, cellSize, in.slice().order(
+        ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer)
+      throws IOException {
+    while(buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /*
+   * Reads the queries of a .scen file.
+   */
+  public static List<Scenario> readScenarios(Path file) throws IOException {
+    MappedByteBuffer in = map(file);
+    List<Scenario> scenarios = new ArrayList<Scenario>();
+
+    //version 1 files start with a header line
+    if(in.hasRemaining() && in.get(in.position()) == 'v') {
+      skipLine(in);
+    }
+
+    String map = null;
+    for(;;) {
+      skipSpace(in);
+      if(!in.hasRemaining()) {
+        break;
+      }
+
+      int bucket = number(in);
+      map = sameWord(in, map);
+      int width = number(in);
+      int height = number(in);
+      int startX = number(in);
+      int startY = number(in);
+      int goalX = number(in);
+      int goalY = number(in);
+      double length = decimal(in);
+      skipLine(in);
+
+      scenarios.add(new Scenario(bucket, map, width, height, startX, startY,
+                                 goalX, goalY, length));
+    }
+
+    return scenarios;
+  }
+
+  private static MappedByteBuffer map(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      //the mapping stays valid once the channel is closed
+      channel.close();
+    }
+  }
+
+  private static void skipSpace(MappedByteBuffer in) {
+    while(in.hasRemaining() && in.get(in.position()) <= ' ') {
+      in.get();
+    }
+  }
+
+  private static void skipLine(MappedByteBuffer in) {
+    while(in.hasRemaining() && in.get() != '\n') {
+    }
+  }
+
+  /*
+   * Skips the end of a row of the map, which may only hold white space.
+   */
+  private static void endLine(MappedByteBuffer in, Path file, int row,
+                              int width) throws IOException {
+    while(in.hasRemaining()) {
+      byte b = in.get();
+      if(b == '\n') {
+        return;
+      }
+      if(b > ' ') {
+        throw new IOException(file + ": row " + row + " has more than " +
+                              width + " cells");
+      }
+    }
+  }
+
+  private static int wordEnd(MappedByteBuffer in) {
+    int end = in.position();
+    while(end < in.limit() && in.get(end) > ' ') {
+      end++;
+    }
+    return end;
+  }
+
+  /*
+   * Next word of the header, null at the end of the file. Only used for the
+   * few header words, the map itself is read byte by byte.
+   */
+  private static String word(MappedByteBuffer in) {
+    skipSpace(in);
+    if(!in.hasRemaining()) {
+      return null;
+    }
+
+    byte[] bytes = new byte[wordEnd(in) - in.position()];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+
+  /*
+   * Next word, given back as last if it has the same characters, so that a
+   * file naming the same map on every line does not allocate a String each.
+   */
+  private static String sameWord(MappedByteBuffer in, String last) {
+    skipSpace(in);
+    int start = in.position();
+    int end = wordEnd(in);
+
+    if(last != null && last.length() == end - start) {
+      int i = 0;
+      while(i < last.length() && last.charAt(i) == in.get(start + i)) {
+        i++;
+      }
+      if(i == last.length()) {
+        in.position(end);
+        return last;
+      }
+    }
+    return word(in);
+  }
+
+  private static int number(MappedByteBuffer in) throws IOException {
+    skipSpace(in);
+
+    int value = 0, digits = 0;
+    while(in.hasRemaining() && in.get(in.position()) >= '0' &&
+          in.get(in.position()) <= '9') {
+      value = value * 10 + in.get() - '0';
+      digits++;
+    }
+
+    if(digits == 0) {
+      throw new IOException("number expected at byte " + in.position());
+    }
+    return value;
+  }
+
+  private static double decimal(MappedByteBuffer in) throws IOException {
+    skipSpace(in);
+    int start = in.position();
+    int end = wordEnd(in);
+
+    //digits with an optional fraction, which covers every .scen file
+    double value = 0, scale = 0;
+    for(int i = start; i < end; i++) {
+      byte b = in.get(i);
+      if(b == '.' && scale == 0) {
+        scale = 1;
+      } else if(b >= '0' && b <= '9') {
+        value = value * 10 + (b - '0');
+        scale *= 10;
+      } else {
+        throw new IOException("number expected at byte " + i);
+      }
+    }
+
+    in.position(end);
+    return scale == 0 ? value : value / scale;
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * A read only Grid whose walls stay in a memory mapped file, in the binary
+ * format written by MapIO.writeGrid(). Nothing is copied to the heap, so
+ * opening even a very large map is instant; the pages are read in by the OS
+ * as the search touches them.
+ */
+
+import java.nio.LongBuffer;
+
+public class MappedGrid extends Grid {
+
+  private final LongBuffer walls;
+  private final int wordsPerRow;
+  private final int cellSize;
+
+  public MappedGrid(int cols, int rows, int cellSize, LongBuffer walls) {
+    super(cols, rows, null);
+
+    this.walls = walls;
+    this.cellSize = cellSize;
+    wordsPerRow = wordsPerRow(cols);
+  }
+
+  /*
+   * Size of a cell on screen, in pixels, as stored in the file.
+   */
+  public int getCellSize() {
+    return cellSize;
+  }
+
+  public boolean isWall(int col, int row) {
+    if(!inBounds(col, row)) {
+      return true;
+    }
+    return (walls.get(row * wordsPerRow + (col >>> 6)) & (1L << col)) != 0;
+  }
+
+  public long getWallWord(int row, int word) {
+    return walls.get(row * wordsPerRow + word);
+  }
+
+  public boolean setWall(int col, int row, boolean wall) {
+    throw new UnsupportedOperationException("Mapped grids are read only");
+  }
+
+  public void clearWalls() {
+    throw new UnsupportedOperationException("Mapped grids are read only");
+  }
+
+  public void loadWalls(Grid other) {
+    throw new UnsupportedOperationException("Mapped grids are read only");
+  }
+
+  public boolean setWeight(int col, int row, int weight) {
+    throw new UnsupportedOperationException("Mapped grids are read only");
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Open list that counts the operations on another one into a SearchMetrics.
+ * Searches only put it in front of their list while a SearchListener is
+ * set.
+ */
+
+public class MeteredOpenList implements OpenList {
+
+  private final OpenList list;
+  private final SearchMetrics metrics;
+
+  public MeteredOpenList(OpenList list, SearchMetrics metrics) {
+    this.list = list;
+    this.metrics = metrics;
+  }
+
+  public void ensureCapacity(int capacity) {
+    list.ensureCapacity(capacity);
+  }
+
+  public void setChangeLog(ChangeLog log) {
+    list.setChangeLog(log);
+  }
+
+  public int size() {
+    return list.size();
+  }
+
+  public boolean isEmpty() {
+    return list.isEmpty();
+  }
+
+  public boolean contains(int cell) {
+    return list.contains(cell);
+  }
+
+  public int peek() {
+    return list.peek();
+  }
+
+  public int get(int i) {
+    return list.get(i);
+  }
+
+  public double getF(int cell) {
+    return list.getF(cell);
+  }
+
+  public double getG(int cell) {
+    return list.getG(cell);
+  }
+
+  public void add(int cell, double fCost, double gCost) {
+    list.add(cell, fCost, gCost);
+    metrics.push(list.size());
+  }
+
+  public void decreaseKey(int cell, double fCost, double gCost) {
+    list.decreaseKey(cell, fCost, gCost);
+    metrics.decreaseKey();
+  }
+
+  public void update(int cell, double fCost, double gCost) {
+    list.update(cell, fCost, gCost);
+    metrics.decreaseKey();
+  }
+
+  public void remove(int cell) {
+    list.remove(cell);
+    metrics.pop();
+  }
+
+  public int poll() {
+    int cell = list.poll();
+    if(cell >= 0) {
+      metrics.pop();
+    }
+    return cell;
+  }
+
+  public void clear() {
+    list.clear();
+  }
+
+  /*
+   * The list being counted.
+   */
+  public OpenList getList() {
+    return list;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Open list of the grid searches: the cells waiting to be expanded, each
+ * with its F and G cost, handed out lowest F cost first. Cells are indexed
+ * row * columns + column and a cell is in the list at most once.
+ * BinaryHeap takes any costs, BucketQueue is faster but only takes whole
+ * numbers.
+ */
+
+public interface OpenList {
+
+  /*
+   * Grows the list so that it can hold cells with an index below capacity.
+   */
+  void ensureCapacity(int capacity);
+
+  /*
+   * Logs cells joining and leaving the list, null to stop logging.
+   */
+  void setChangeLog(ChangeLog log);
+
+  int size();
+
+  boolean isEmpty();
+
+  boolean contains(int cell);
+
+  /*
+   * Returns the cell with the lowest F cost without removing it, -1 when the
+   * list is empty.
+   */
+  int peek();
+
+  /*
+   * Returns the i-th cell of the list in no particular order, used to walk
+   * the list.
+   */
+  int get(int i);
+
+  double getF(int cell);
+
+  double getG(int cell);
+
+  /*
+   * Adds a cell which is not in the list yet.
+   */
+  void add(int cell, double fCost, double gCost);
+
+  /*
+   * Lowers the costs of a cell already in the list.
+   */
+  void decreaseKey(int cell, double fCost, double gCost);
+
+  /*
+   * Changes the costs of a cell already in the list, up or down.
+   */
+  void update(int cell, double fCost, double gCost);
+
+  /*
+   * Takes a cell out of the list wherever it is.
+   */
+  void remove(int cell);
+
+  /*
+   * Removes the cell with the lowest F cost. Returns -1 when the list is
+   * empty.
+   */
+  int poll();
+
+  void clear();
+}
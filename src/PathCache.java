@@ -0,0 +1,161 @@
+/*
+ * Bounded cache of search results, keyed on start, end, algorithm and
+ * heuristic. The least recently used entry is dropped once the cache is full.
+ * Every entry belongs to one version of the grid: as soon as a wall changes
+ * the whole cache is thrown away on the next lookup, and a result whose
+ * search began before the last change is not kept at all. Paths are copied
+ * in and out, so what callers do with theirs never reaches the cache.
+ * The counters tell how well the cache is sized. It is safe to share between
+ * threads.
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PathCache {
+
+  private static final class Key {
+    final int start, end;
+    final Algorithm algorithm;
+    final Heuristic heuristic;
+
+    Key(int start, int end, Algorithm algorithm, Heuristic heuristic) {
+      this.start = start;
+      this.end = end;
+      this.algorithm = algorithm;
+      this.heuristic = heuristic;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if(!(o instanceof Key)) {
+        return false;
+      }
+
+      Key key = (Key) o;
+      return start == key.start && end == key.end &&
+          algorithm == key.algorithm && heuristic.equals(key.heuristic);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * (31 * start + end) + algorithm.hashCode()) +
+          heuristic.hashCode();
+    }
+  }
+
+  private final Grid grid;
+  private final int capacity;
+  private final LinkedHashMap<Key, SearchResult> entries;
+
+  //grid version the entries were found on
+  private int version;
+
+  private long hits, misses, evictions, invalidations;
+
+  public PathCache(Grid grid, int capacity) {
+    this.grid = grid;
+    this.capacity = capacity;
+    version = grid.getVersion();
+
+    //access order, so the eldest entry is the least recently used one
+    entries = new LinkedHashMap<Key, SearchResult>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, SearchResult> eldest) {
+        if(size() > PathCache.this.capacity) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /*
+   * The cached result of a query, or null if there is none for the current
+   * walls.
+   */
+  public synchronized SearchResult get(int start, int end, Algorithm algorithm,
+                                       Heuristic heuristic) {
+    checkVersion();
+
+    SearchResult result = entries.get(new Key(start, end, algorithm,
+                                              heuristic));
+    if(result == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return copy(result);
+  }
+
+  /*
+   * Keeps the result of a search that began on the given version of the
+   * grid, unless the grid changed since.
+   */
+  public synchronized void put(int start, int end, Algorithm algorithm,
+                               Heuristic heuristic, SearchResult result,
+                               int version) {
+    checkVersion();
+    if(version != this.version) {
+      invalidations++;
+      return;
+    }
+    entries.put(new Key(start, end, algorithm, heuristic), copy(result));
+  }
+
+  private static SearchResult copy(SearchResult result) {
+    return new SearchResult(result.isFound(), result.getPath().clone(),
+                            result.getCost(), result.getExpanded());
+  }
+
+  private void checkVersion() {
+    if(version != grid.getVersion()) {
+      invalidations += entries.size();
+      entries.clear();
+      version = grid.getVersion();
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /*
+   * Entries dropped to make room for new ones.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /*
+   * Entries dropped because the walls changed, and results not kept because
+   * they changed during the search.
+   */
+  public synchronized long getInvalidations() {
+    return invalidations;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "PathCache[size=" + entries.size() + "/" + capacity + ", hits=" +
+        hits + ", misses=" + misses + ", evictions=" + evictions +
+        ", invalidations=" + invalidations + "]";
+  }
+}
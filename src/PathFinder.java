@@ -1,160 +1,271 @@
 /*
- * The PathFinder classes contain implementations of the PathFinding
- * algorithm and frequently communicates with the controller class.
+ * The PathFinder class keeps the state of the grid shown by the controller
+ * class: walls, start and end nodes and the search being animated.
+ * The searching itself is done by a Solver, which needs no GUI.
+ * The search steps on a SearchWorker thread while the GUI reads and edits on
+ * the EDT, so both sides hold getLock() whenever they use a PathFinder.
  * Algorithm and read up on A* from: 
  * http://theory.stanford.edu/~amitp/GameProgramming/Heuristics.html#S7
  */
 
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 import java.awt.Point;
 
 public class PathFinder {
 
-  // variables used for Astar
-
   private static final int NODE_SIZE = 25;
-  private static final int DIAGONAL_MOVE = (int) (Math.sqrt(1250));
+  private static final int CACHE_SIZE = 64;
+  private static final int LANDMARKS = 8;
 
-  private Controller control;
-  private Node start, end;
-  private boolean deleteWalls, complete, isPause, run, isDijkstra;
+  private int start, end;
+  private boolean deleteWalls, complete, isPause, run;
+  private Algorithm algorithm;
+  private Heuristic heuristic;
 
-  //data structures for A* pathfinding
-  private PriorityQueue<Node> open;
+  //walls of the grid, cells are indexed row by row
+  private Grid grid;
 
-  //list closed poitns and of all walls on the grid
-  private Set<Point> closed, wall;
+  //runs the searches, search is the one being animated and version the
+  //version of the grid it began on
+  private Solver solver;
+  private GridSearch search;
+  private int version;
 
-  // final path leading to the list 
-  private ArrayList<Node> finalPath;
+  //results of earlier runs, shown at once when the same query comes again
+  private PathCache cache;
 
-  /**
-   * inner class used for Dijkstra's Algorithm
-   */
-  class DFSFinder {
+  //counters of every search run, also readable over JMX
+  private final SearchStats stats;
 
-    //list for finalPath creation and keeping track of walls
-    private ArrayList<Node> finalPath;
+  //finds ends that cannot be reached before any search starts
+  private final ComponentIndex components;
 
-    //data structures for DFS search
-    private Stack<Node> open;
+  //ALT heuristic, built the first time it is asked for
+  private LandmarkHeuristic landmarks;
 
-    private Node start, end;
+  //flow field drawn to flowGoal, -1 for none, and the version of the grid
+  //the worker last brought it up to date with
+  private FlowField flow;
+  private int flowGoal = -1;
+  private int flowVersion;
 
-    private Set<Point> wall, closed;
+  // final path leading to the list 
+  private ArrayList<Node> finalPath;
+  private BitSet onPath;
 
-    private Controller control;
+  //cells the controller has to draw again
+  private final ChangeLog changes;
 
-    public DFSFinder(Controller control) {
-      this.control = control;
+  //fair, so the worker cannot keep the GUI out while it runs flat out
+  private final ReentrantLock lock = new ReentrantLock(true);
 
-      finalPath = new ArrayList<Node>();
-      wall = new HashSet<Point>();
-      open = new Stack<Node>();
-      closed = new HashSet<Point>();
-    }
-  }
+  public PathFinder(int cols, int rows) {
+    run = false;
+    isPause = true;
+    algorithm = Algorithm.ASTAR;
+    heuristic = Heuristics.OCTILE;
 
-  /**
-   * inner class used for comaparing Nodes
-   */
-    
-  class NodeComparator implements Comparator<Node> {
-    public int compare(Node xCoord, Node yCoord) {
-      if(xCoord.getF() > yCoord.getF()) {
-        return 1;
+    finalPath = new ArrayList<Node>();
+    onPath = new BitSet();
+    grid = new Grid(cols, rows);
+    solver = new Solver(grid);
+    cache = new PathCache(grid, CACHE_SIZE);
+    stats = new SearchStats();
+    solver.setListener(stats);
+    components = new ComponentIndex(grid);
+    solver.setComponents(components);
+
+    //anytime A* shows every better path while it goes on looking
+    solver.setPathListener(new AnytimeListener() {
+      public void pathImproved(SearchResult result, double bound) {
+        clearPath();
+        constructPath(result.getPath());
+      }
+    });
 
-      }else if(xCoord.getF() < yCoord.getF()) {
-        return -1;
+    changes = new ChangeLog(grid.size());
+    grid.addListener(new Grid.Listener() {
+      public void cellChanged(int col, int row) {
+        changes.mark(grid.index(col, row));
+      }
 
-      }else{
+      public void gridChanged() {
+        changes.markAll();
+      }
+    });
+  }
 
-        if(xCoord.getG() > yCoord.getG()) {
-          return 1;
+  /*
+   * Checks to see if there is a wall at a certain point of the canvas.
+   */
+  public boolean isWall(Point point) {
+    return grid.isWall(point.x / NODE_SIZE, point.y / NODE_SIZE);
+  }
 
-        }else if(xCoord.getG() < yCoord.getG()) {
-          return -1;
+  /*
+   * Contains method to see if nodes are in the closed list.
+   */
+  public boolean closedContains(Point point) {
+    return hasLists() && search.getSpace().isClosed(cellOf(point.x, point.y));
+  }
 
-        }
+  /*
+   * True while the search keeps lists of the cells it reached. Iterative
+   * deepening keeps none, its lists are empty and only as big as needed.
+   */
+  private boolean hasLists() {
+    return search != null && !(search instanceof IdaStarSearch);
+  }
 
-      }
-      return 0;
+  /*
+   * Index of the cell a point of the canvas lies in.
+   */
+  public int cellOf(int x, int y) {
+    return grid.index(x / NODE_SIZE, y / NODE_SIZE);
+  }
 
+  /*
+   * Adds a wall to the grid if a wall at the same location is not
+   * already present.
+   */
+  public boolean addWall(Point point) {
+    if(!grid.setWall(point.x / NODE_SIZE, point.y / NODE_SIZE, true)) {
+      return false;
     }
+    replan();
+    return true;
   }
 
-  public PathFinder(Controller control) {
-    this.control = control;
+  /*
+   * Removes a wall node from the grid.
+   */
+  public boolean removeWall(Point point) {
+    if(!grid.setWall(point.x / NODE_SIZE, point.y / NODE_SIZE, false)) {
+      return false;
+    }
+    replan();
+    return true;
+  }
 
-    run = false;
-    isPause = true;
+  /*
+   * Sets the terrain weight of the cell under a point, moving through it
+   * costs that many times as much.
+   */
+  public boolean setWeight(Point point, int weight) {
+    if(!grid.setWeight(point.x / NODE_SIZE, point.y / NODE_SIZE, weight)) {
+      return false;
+    }
+    replan();
+    return true;
+  }
 
-    finalPath = new ArrayList<Node>();
-    wall = new HashSet<Point>();
-    open = new PriorityQueue<Node>(new NodeComparator());
-    closed = new HashSet<Point>();
+  /*
+   * A D* Lite search is kept when the walls change or the start moves. It
+   * repairs itself on the next steps, so the animation carries on from there
+   * instead of starting over.
+   */
+  private void replan() {
+    if(!(search instanceof DStarLiteSearch)) {
+      return;
+    }
+
+    clearPath();
+    complete = false;
+    run = true;
+    isPause = false;
   }
 
   /*
-   * Checks to see if the list of walls contains a certain node.
+   * True if the grid can be edited while the search is running.
    */
-  public boolean isWall(Point point) {
-    return wall.contains(point);
+  public boolean isIncremental() {
+    return algorithm == Algorithm.DSTAR_LITE;
   }
 
   /*
-   * Contains method to see if nodes are in the closed list.
+   * Replaces the walls with the ones of a grid read from a file, which has to
+   * be the same size, and clears the mud, which the file does not have.
    */
-  public boolean closedContains(Point point) {
-    return closed.contains(point);
+  public void loadWalls(Grid walls) {
+    if(walls.getCols() != grid.getCols() || walls.getRows() != grid.getRows()) {
+      throw new IllegalArgumentException("Map is " + walls.getCols() + "x" +
+          walls.getRows() + ", the grid is " + grid.getCols() + "x" +
+          grid.getRows());
+    }
+
+    reset();
+    grid.loadWalls(walls);
   }
 
-  public boolean closedRemove(Point point) {
-    return closed.remove(point);
+  public void deleteWalls(boolean check) {
+    deleteWalls = check;
+  }
+
+  public void setAlgorithm(Algorithm algorithm) {
+    this.algorithm = algorithm;
+  }
+
+  public void setHeuristic(Heuristic heuristic) {
+    this.heuristic = heuristic;
   }
 
   /*
-   * Contains method to see if nodes are in the open list.
+   * Dijkstra and A* use a bucket queue instead of a binary heap, the
+   * EUCLIDEAN heuristic stays on the heap.
    */
-  public boolean openContains(Node n) {
-    return open.contains(n);
+  public void setBucketQueue(boolean bucketQueue) {
+    solver.setBucketQueue(bucketQueue);
   }
 
-  public boolean openRemove(Node n) {
-    return open.remove(n);
+  public boolean isBucketQueue() {
+    return solver.isBucketQueue();
   }
 
-  public Node openFind(Node n) {
-    for(Node x : open) {
-      if(x.equals(n)) {
-        return x;
-      }
+  public LandmarkHeuristic getLandmarks() {
+    if(landmarks == null) {
+      landmarks = new LandmarkHeuristic(grid, LANDMARKS);
     }
-
-    return null;
+    return landmarks;
   }
 
   /*
-   * Adds a wall to the wall list if a wall at the same location is not
-   * already present.
+   * Points the flow field drawn at a cell, -1 to draw none. The worker
+   * builds or repairs it, see updateFlow().
    */
-  public boolean addWall(Point point) {
-    return wall.add(point);
+  public void setFlowGoal(int cell) {
+    flowGoal = cell;
   }
 
   /*
-   * Removes a wall node from the list of walls.
+   * True if the flow field drawn is behind its goal or the grid.
    */
-  public boolean removeWall(Point point) {
-    return wall.remove(point);
+  public boolean isFlowStale() {
+    return flowGoal >= 0 && (flow == null || flow.getGoal() != flowGoal ||
+                             flowVersion != grid.getVersion());
   }
 
-  public void deleteWalls(boolean check) {
-    deleteWalls = check;
+  /*
+   * Brings the flow field drawn up to date, on the worker: on a big grid it
+   * takes too long for the EDT. A change can turn arrows far from it, so
+   * every cell is drawn again.
+   */
+  public void updateFlow() {
+    flow = solver.getFlowField();
+    flow.setGoal(flowGoal);
+    flow.update();
+    flowVersion = grid.getVersion();
+    changes.markAll();
   }
 
-  public void setisDijkstra(boolean check) {
-    isDijkstra = check;
+  /*
+   * The flow field drawn, null while there is none or the worker has not
+   * built it for the goal yet. It lags behind changes to the grid until the
+   * worker repaired it.
+   */
+  public FlowField getFlowField() {
+    return flow != null && flowGoal >= 0 && flow.getGoal() == flowGoal ?
+        flow : null;
   }
 
   public void reset() {
@@ -163,44 +274,112 @@ public class PathFinder {
     complete = false;
 
     if(deleteWalls) {
-      wall.clear();
+      grid.clearWalls();
+      grid.clearWeights();
       deleteWalls = false;
     }
 
-    closed.clear();
-    open.clear();
+    dropSearch();
+    clearPath();
+  }
+
+  /*
+   * Stops logging changes from the current search and forgets it, everything
+   * it drew has to be drawn again.
+   */
+  private void dropSearch() {
+    if(search != null) {
+      search.setChangeLog(null);
+      search = null;
+    }
+    changes.markAll();
+  }
+
+  private void clearPath() {
+    for(int cell = onPath.nextSetBit(0); cell >= 0; cell = onPath.nextSetBit(
+        cell + 1)) {
+      changes.mark(cell);
+    }
+    onPath.clear();
     finalPath.clear();
   }
 
   /*
-   * Various getter methods to get the various lists containing the nodes.
+   * Various getter methods to get the grid and the lists containing the nodes.
+   * Open and closed are null until a search has been started.
    */
-  public Set<Point> getWall() {
-    return wall;
+  public Grid getWall() {
+    return grid;
   }
 
-  public PriorityQueue<Node> getOpen() {
-    return open;
+  public OpenList getOpen() {
+    return hasLists() ? search.getOpen() : null;
   }
 
-  public Set<Point> getClosed() {
-    return closed;
+  public SearchSpace getClosed() {
+    return hasLists() ? search.getSpace() : null;
+  }
+
+  /*
+   * Open and closed lists of the backward half of a bidirectional search,
+   * null for the other algorithms.
+   */
+  public OpenList getReverseOpen() {
+    return search instanceof BidirectionalSearch ?
+        ((BidirectionalSearch) search).getReverseOpen() : null;
+  }
+
+  public SearchSpace getReverseClosed() {
+    return search instanceof BidirectionalSearch ?
+        ((BidirectionalSearch) search).getReverseSpace() : null;
   }
 
   public ArrayList<Node> getFinal() {
     return finalPath;
   }
 
+  public boolean isOnPath(int cell) {
+    return onPath.get(cell);
+  }
+
+  /*
+   * The first cell on the path from cell on, -1 if there is none, to walk
+   * the cells of the path in order of index.
+   */
+  public int nextOnPath(int cell) {
+    return onPath.nextSetBit(cell);
+  }
+
+  public ChangeLog getChanges() {
+    return changes;
+  }
+
+  public ReentrantLock getLock() {
+    return lock;
+  }
+
   /*
    * Various setter methods to set the various lists containing the nodes.
    */
   public void setStart(Node start) {
-    this.start = new Node(start.getX(), start.getY());
-    open.add(this.start);
+    this.start = cellOf(start.getX(), start.getY());
+    dropSearch();
+  }
+
+  /*
+   * Moves the start of a running D* Lite search, other searches pick the new
+   * start up when they are started again.
+   */
+  public void moveStart(Node start) {
+    if(search instanceof DStarLiteSearch) {
+      this.start = cellOf(start.getX(), start.getY());
+      ((DStarLiteSearch) search).moveStart(this.start);
+      replan();
+    }
   }
 
   public void setEnd(Node end) {
-    this.end = new Node(end.getX(), end.getY());
+    this.end = cellOf(end.getX(), end.getY());
   }
 
   public void setisPause(boolean isPause) {
@@ -224,186 +403,96 @@ public class PathFinder {
   }
 
   /*
-   * Constructs the final path from start to end node. Only called once a
-   * valid path is found.
+   * Converts the cells of a path to nodes on the canvas. The cells between
+   * the corners of an any-angle path are drawn as part of it as well.
    */
-  public void constructPath() {
-    Node current = end;
-    while(!(current.getParent().equals(start))) {
-      finalPath.add(0, current.getParent());
-      current = current.getParent();
+  public void constructPath(int[] path) {
+    for(int i = 0; i < path.length; i++) {
+      int cell = path[i];
+      finalPath.add(new Node(grid.getCol(cell) * NODE_SIZE, grid.getRow(cell) *
+                             NODE_SIZE));
+      if(i > 0) {
+        markLine(path[i - 1], cell);
+      }
+      onPath.set(cell);
+      changes.mark(cell);
     }
-
-    finalPath.add(0, current);
   }
 
   /*
-   * Method finds the cost associated with moving from the current node to
-   * the neighbor node. Uses the formula for the distance between two points.
+   * Marks the cells on the line between two cells of the path, none for
+   * neighbors.
    */
-  public double gCostMovement(Node parent, Node neighbor) {
-    //distance from point to point in a grid
-    int xCoord = neighbor.getX() - parent.getX();
-    int yCoord = neighbor.getY() - parent.getY();
-
-    return (int) (Math.sqrt(Math.pow(xCoord, 2) + Math.pow(yCoord, 2)));
+  private void markLine(int from, int to) {
+    int col = grid.getCol(from);
+    int row = grid.getRow(from);
+    int dx = grid.getCol(to) - col;
+    int dy = grid.getRow(to) - row;
+    int steps = Math.max(Math.abs(dx), Math.abs(dy));
+
+    for(int k = 1; k < steps; k++) {
+      int cell = grid.index(col + (int) Math.round((double) dx * k / steps),
+                            row + (int) Math.round((double) dy * k / steps));
+      onPath.set(cell);
+      changes.mark(cell);
+    }
   }
 
   /*
-   * Method finds the heuristic cost from the neighbor node to the end node.
-   * From the Stanford page: "Here we compute the number of steps you take if 
-   * you can’t take a diagonal, then subtract the steps you save by using the 
-   * diagonal. There are min(dx, dy) diagonal steps, and each one costs D2 but 
-   * saves you 2⨉D non-diagonal steps."
-   * 
-   * The heuristic used is octile distance where the cost of an orthogonal move
-   * is one and the cost of a diagonal is sqrt(2).
+   * Runs one step of the selected algorithm, starting the search on the first
+   * call. Once the search is over the final path is built, its counters are
+   * in the SearchStats.
+   * A query run before on the same walls is answered from the cache at once,
+   * except for D* Lite which has to keep its search to repair it.
    */
-  public double hCostMovement(Node neighbor) {
-    int hXCost = Math.abs(end.getX() - neighbor.getX());
-    int hYCost = Math.abs(end.getY() - neighbor.getY());
-    double hCost = hXCost + hYCost;
-
-    if(control.isOctile()) {
-      if(hXCost > hYCost) {
-        hCost = ((hXCost - hYCost) + Math.sqrt(2) * hYCost);
-      } else {
-        hCost = ((hYCost - hXCost) + Math.sqrt(2) * hXCost);
+  public void step() {
+    if(search == null) {
+      SearchResult cached = isIncremental() ? null : cache.get(start, end,
+          algorithm, heuristic);
+      if(cached != null) {
+        finish(cached);
+        return;
       }
+
+      version = grid.getVersion();
+      search = solver.begin(start, end, algorithm, heuristic);
+      search.setChangeLog(changes);
+      changes.markAll();
+    }
+
+    if(search.step()) {
+      return;
     }
 
-    return hCost;
+    SearchResult result = search.getResult();
+    if(!(search instanceof DStarLiteSearch)) {
+      cache.put(start, end, algorithm, heuristic, result, version);
+    }
+    finish(result);
   }
 
   /*
-   * A* pathfinding algorithm. Tries to explore the fewest number of nodes to
-   * reach the end node. Self corrects the path to the end node using the
-   * heuristic cost function h.
+   * Stops the run and shows the path found, if any.
    */
-  public void aStarPath() {
-    //get node with lowest F cost off PQ
-    Node current = open.poll();
-
-    //if no min node, then no path
-    if(current == null) {
-      System.out.println("No path");
-      run = false;
-      isPause = true;
-      return;
-    }
+  private void finish(SearchResult result) {
+    run = false;
+    isPause = true;
 
-    //if min node is the end, then stop algorithm and build final path
-    if(!isDijkstra && current.equals(end)) {
-      end.setParent(current.getParent());
-      run = false;
-      isPause = true;
-      complete = true;
-      control.repaint();
-      constructPath();
-      System.out.println("Total Cost of Path: " + end.getParent().getG());
-      System.out.println("Size of Open: " + open.size());
-      System.out.println("Size of Closed: " + closed.size());
-      System.out.println("Size of Path: " + finalPath.size() + "\n");
+    if(!result.isFound()) {
       return;
     }
 
-    closed.add(new Point(current.getX(), current.getY()));
-
-    //calculate costs for the 8 possible adjacent nodes to current
-    for(int i = 0; i < 3; i++) {
-      for(int j = 0; j < 3; j++) {
-
-        //skip the current node we are exploring
-        if(i == 1 && j == 1) {
-          continue;
-        }
-        
-        int xCoord = (current.getX() - NODE_SIZE) + (NODE_SIZE * i);
-        int yCoord = (current.getY() - NODE_SIZE) + (NODE_SIZE * j);
-        Node neighbor = new Node(xCoord, yCoord);
-
-        //for Dijkstra, once we encounter end node we have the shortest path
-        if(isDijkstra && neighbor.equals(end)) {
-          end.setParent(current);
-          run = false;
-          isPause = true;
-          complete = true;
-          control.repaint();
-          constructPath();
-          System.out.println("Total Cost of Path: " + end.getParent().getG());
-          System.out.println("Size of Open: " + open.size());
-          System.out.println("Size of Closed: " + closed.size());
-          System.out.println("Size of Path: " + finalPath.size() + "\n");
-          return;
-        }
-
-        //checks if node is within canvas boundary
-        if(xCoord < 0 || yCoord < 0 || xCoord >= control.getWidth() || yCoord >=
-          control.getHeight()) {
-          continue;
-        }
-
-        //checks to see if the neighbor node is a wall, in the open/closed list
-        if(isWall(new Point(neighbor.getX(), neighbor.getY()))) {
-          continue;
-        }
-
-        int wallJumpX = current.getX() + (xCoord - current.getX());
-        int wallJumpY = current.getY() + (yCoord - current.getY());
-
-        //checks for border in adjacent pos, does not allow for a diagonal
-        //jump across a border
-        if(isWall(new Point(wallJumpX, current.getY())) || isWall(new
-              Point(current.getX(), wallJumpY)) && ((j == 0 | j == 2) && i != 1)) {
-          continue;
-        }
-
-        //calculate f, g, and h costs for this node
-        double gCost = current.getG() + gCostMovement(current, neighbor);
-        double hCost = hCostMovement(neighbor);
-        double fCost = gCost + hCost;
-
-        boolean inOpen = openContains(neighbor);
-        boolean inClosed = closedContains(new Point(neighbor.getX(),
-                            neighbor.getY()));
-        Node found = openFind(neighbor);
-
-        //if inOpen and inClosed cases just in case, should not happen
-        //if node in open and we found lower gCost, no need to search neighbor
-        if(inOpen && (gCost < found.getG())) {
-          openRemove(found);
-          neighbor.setG(gCost);
-          neighbor.setF(gCost + found.getH());
-          neighbor.setParent(current);
-          open.add(neighbor);
-          continue;
-        }
-
-        //if neighbor in closed and found lower gCost, visit again
-        if(inClosed && (gCost < neighbor.getG())) {
-          System.out.println("HEYCLOSED");
-          continue;
-        }
-
-        //if neighbor not visited, then add to open list
-        if(!inOpen && !inClosed) {
-
-          if(isDijkstra) {
-            neighbor.setG(gCost);
-            neighbor.setF(gCost);
-          } else {
-            neighbor.setG(gCost);
-            neighbor.setH(hCost);
-            neighbor.setF(fCost);
-          }
-          
-          neighbor.setParent(current);
-
-          open.add(neighbor);
-        }
-      }
-    }
+    complete = true;
+    clearPath();
+    constructPath(result.getPath());
+  }
+
+  public PathCache getCache() {
+    return cache;
+  }
 
+  public SearchStats getStats() {
+    return stats;
   }
 
 }
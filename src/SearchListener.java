@@ -0,0 +1,11 @@
+/*
+ * Told about every search that finishes, with the counters of that search.
+ * The SearchMetrics passed in is reused by the next search, so a listener
+ * copies out what it wants to keep. Searches run on several threads with a
+ * BatchSolver, in which case the listener has to be thread safe.
+ */
+
+public interface SearchListener {
+
+  void searchFinished(SearchMetrics metrics);
+}
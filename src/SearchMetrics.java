@@ -0,0 +1,186 @@
+/*
+ * Counters of one search, filled in while it runs when a SearchListener is
+ * set on it. Open list operations are counted by a MeteredOpenList and wall
+ * tests by GridSearch.isWall(). With no listener there is no SearchMetrics
+ * at all, so the searches pay nothing for it.
+ * Generated counts the neighbors that got a new or cheaper cost, that is
+ * pushes plus decrease-keys. Times are in nanoseconds from begin().
+ * Iterations and peak memory are only set by searches that go in
+ * iterations within a memory budget, IDA*, and stay 0 for the others.
+ */
+
+public class SearchMetrics {
+
+  private final String search;
+
+  private long started;
+  private long firstSolution, total;
+  private boolean found;
+  private double cost;
+  private int expanded;
+
+  private long pushes, pops, decreaseKeys, wallProbes;
+  private int peakOpen;
+
+  private int iterations;
+  private long peakMemory;
+
+  public SearchMetrics(String search) {
+    this.search = search;
+  }
+
+  /*
+   * Zeroes the counters and starts the clock.
+   */
+  public void begin() {
+    started = System.nanoTime();
+    firstSolution = -1;
+    total = 0;
+    found = false;
+    cost = 0;
+    expanded = 0;
+
+    pushes = 0;
+    pops = 0;
+    decreaseKeys = 0;
+    wallProbes = 0;
+    peakOpen = 0;
+    iterations = 0;
+    peakMemory = 0;
+  }
+
+  /*
+   * Called when a path to the end is known, only the first call counts.
+   */
+  public void solution() {
+    if(firstSolution < 0) {
+      firstSolution = System.nanoTime() - started;
+    }
+  }
+
+  public void finish(boolean found, double cost, int expanded) {
+    if(found) {
+      solution();
+    }
+
+    total = System.nanoTime() - started;
+    this.found = found;
+    this.cost = cost;
+    this.expanded = expanded;
+  }
+
+  /*
+   * A cell joined an open list, which now holds size cells.
+   */
+  public void push(int size) {
+    pushes++;
+    if(size > peakOpen) {
+      peakOpen = size;
+    }
+  }
+
+  public void pop() {
+    pops++;
+  }
+
+  public void decreaseKey() {
+    decreaseKeys++;
+  }
+
+  public void wallProbe() {
+    wallProbes++;
+  }
+
+  public void setIterations(int iterations) {
+    this.iterations = iterations;
+  }
+
+  /*
+   * Most bytes the search held at a time.
+   */
+  public void setPeakMemory(long bytes) {
+    peakMemory = bytes;
+  }
+
+  /*
+   * Simple class name of the search, e.g. AStarSearch.
+   */
+  public String getSearch() {
+    return search;
+  }
+
+  public boolean isFound() {
+    return found;
+  }
+
+  public double getCost() {
+    return cost;
+  }
+
+  public int getExpanded() {
+    return expanded;
+  }
+
+  public long getGenerated() {
+    return pushes + decreaseKeys;
+  }
+
+  public long getPushes() {
+    return pushes;
+  }
+
+  /*
+   * Cells taken off the open list, polled or removed.
+   */
+  public long getPops() {
+    return pops;
+  }
+
+  /*
+   * Key changes of cells already on the open list, up or down.
+   */
+  public long getDecreaseKeys() {
+    return decreaseKeys;
+  }
+
+  /*
+   * Most cells on one open list at a time.
+   */
+  public int getPeakOpen() {
+    return peakOpen;
+  }
+
+  public long getWallProbes() {
+    return wallProbes;
+  }
+
+  public int getIterations() {
+    return iterations;
+  }
+
+  public long getPeakMemory() {
+    return peakMemory;
+  }
+
+  /*
+   * Time until a path was first known, -1 if none was found.
+   */
+  public long getFirstSolutionNanos() {
+    return firstSolution;
+  }
+
+  public long getTotalNanos() {
+    return total;
+  }
+
+  @Override
+  public String toString() {
+    return search + " Expanded: " + expanded + " Generated: " +
+        getGenerated() + " Pushes: " + pushes + " Pops: " + pops +
+        " Decrease-keys: " + decreaseKeys + " Peak open: " + peakOpen +
+        " Wall probes: " + wallProbes + " First solution: " +
+        (firstSolution < 0 ? "none" : firstSolution / 1000 + "us") +
+        " Total: " + total / 1000 + "us" + (iterations == 0 ? "" :
+        " Iterations: " + iterations + " Peak memory: " + peakMemory + "B");
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Outcome of a search: the cells of the path from start to end, its cost and
+ * the number of nodes that were expanded to find it.
+ */
+
+public class SearchResult {
+
+  private final boolean found;
+  private final int[] path;
+  private final double cost;
+  private final int expanded;
+
+  public SearchResult(boolean found, int[] path, double cost, int expanded) {
+    this.found = found;
+    this.path = path;
+    this.cost = cost;
+    this.expanded = expanded;
+  }
+
+  public boolean isFound() {
+    return found;
+  }
+
+  /*
+   * Cell indices from start to end, empty if no path was found. Each cell is
+   * a neighbor of the one before, except for THETA_STAR which gives the
+   * corners only, each in line of sight of the one before.
+   */
+  public int[] getPath() {
+    return path;
+  }
+
+  public double getCost() {
+    return cost;
+  }
+
+  public int getExpanded() {
+    return expanded;
+  }
+
+  @Override
+  public String toString() {
+    return "Found: " + found + " Cost: " + cost + " Path: " + path.length +
+        " Expanded: " + expanded;
+  }
+}
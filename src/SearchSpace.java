@@ -0,0 +1,103 @@
+/*
+ * Per cell state of a search over a Grid: the G cost, the parent cell the
+ * node was reached from and whether the cell is in the closed list.
+ * Everything is indexed by cell index, the same way as in Grid.
+ * The arrays are allocated once and reused by every search. Each cell holds
+ * a stamp of the last search that touched it, so reset() only moves on to
+ * the next stamp instead of clearing anything, and state left over from an
+ * older search reads as never reached.
+ */
+
+import java.util.Arrays;
+
+public class SearchSpace {
+
+  private final double[] g;
+  private final int[] parent;
+  private int closedCount;
+
+  //stamp of every cell: epoch once reached, epoch + 1 once closed
+  private final int[] stamp;
+  private int epoch;
+
+  //told about cells being closed, null when nobody watches
+  private ChangeLog log;
+
+  public SearchSpace(int size) {
+    g = new double[size];
+    parent = new int[size];
+    stamp = new int[size];
+    epoch = 2;
+  }
+
+  public void setChangeLog(ChangeLog log) {
+    this.log = log;
+  }
+
+  /*
+   * True if the cell was given a cost or closed since the last reset.
+   */
+  public boolean isReached(int cell) {
+    return stamp[cell] >= epoch;
+  }
+
+  /*
+   * G cost of a cell, infinite if it was not reached since the last reset.
+   */
+  public double getG(int cell) {
+    return stamp[cell] >= epoch ? g[cell] : Double.POSITIVE_INFINITY;
+  }
+
+  public int getParent(int cell) {
+    return parent[cell];
+  }
+
+  /*
+   * Records the cost of reaching a cell and the cell it was reached from.
+   */
+  public void setNode(int cell, double gCost, int parentCell) {
+    g[cell] = gCost;
+    parent[cell] = parentCell;
+
+    if(stamp[cell] < epoch) {
+      stamp[cell] = epoch;
+    }
+  }
+
+  public boolean isClosed(int cell) {
+    return stamp[cell] == epoch + 1;
+  }
+
+  public void close(int cell) {
+    if(!isClosed(cell)) {
+      stamp[cell] = epoch + 1;
+      closedCount++;
+
+      if(log != null) {
+        log.mark(cell);
+      }
+    }
+  }
+
+  public int closedSize() {
+    return closedCount;
+  }
+
+  /*
+   * Forgets every cell in constant time. The stamps are only cleared when the
+   * counter is about to wrap around.
+   */
+  public void reset() {
+    closedCount = 0;
+
+    if(log != null) {
+      log.markAll();
+    }
+
+    if(epoch >= Integer.MAX_VALUE - 2) {
+      Arrays.fill(stamp, 0);
+      epoch = 0;
+    }
+    epoch += 2;
+  }
+}
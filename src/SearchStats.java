@@ -0,0 +1,174 @@
+/*
+ * SearchListener that adds up every search it hears about: totals of the
+ * open list counters and histograms of the nodes expanded and generated,
+ * the peak open list and the time taken. Readable from code and, once
+ * registered, over JMX. Thread safe, one SearchStats can listen to all the
+ * solvers of a BatchSolver.
+ */
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class SearchStats implements SearchListener, SearchStatsMBean {
+
+  private long searches, found;
+  private long pushes, pops, decreaseKeys, wallProbes;
+  private long iterations, peakMemory;
+
+  private final Histogram expanded = new Histogram();
+  private final Histogram generated = new Histogram();
+  private final Histogram peakOpen = new Histogram();
+  private final Histogram firstSolution = new Histogram();
+  private final Histogram time = new Histogram();
+
+  //last search recorded, for printing
+  private String last = "";
+
+  public synchronized void searchFinished(SearchMetrics metrics) {
+    searches++;
+    if(metrics.isFound()) {
+      found++;
+      firstSolution.record(metrics.getFirstSolutionNanos() / 1000);
+    }
+
+    pushes += metrics.getPushes();
+    pops += metrics.getPops();
+    decreaseKeys += metrics.getDecreaseKeys();
+    wallProbes += metrics.getWallProbes();
+    iterations += metrics.getIterations();
+    peakMemory = Math.max(peakMemory, metrics.getPeakMemory());
+
+    expanded.record(metrics.getExpanded());
+    generated.record(metrics.getGenerated());
+    peakOpen.record(metrics.getPeakOpen());
+    time.record(metrics.getTotalNanos() / 1000);
+
+    last = metrics.toString();
+  }
+
+  /*
+   * Makes the stats readable over JMX under the given name, e.g.
+   * "pathfinder:type=SearchStats".
+   */
+  public void register(String name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+        new ObjectName(name));
+  }
+
+  public void unregister(String name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().unregisterMBean(
+        new ObjectName(name));
+  }
+
+  public synchronized long getSearches() {
+    return searches;
+  }
+
+  public synchronized long getFound() {
+    return found;
+  }
+
+  public synchronized double getMeanExpanded() {
+    return expanded.getMean();
+  }
+
+  public synchronized long getExpandedP50() {
+    return expanded.getPercentile(50);
+  }
+
+  public synchronized long getExpandedP99() {
+    return expanded.getPercentile(99);
+  }
+
+  public synchronized long getMaxExpanded() {
+    return expanded.getMax();
+  }
+
+  public synchronized double getMeanGenerated() {
+    return generated.getMean();
+  }
+
+  public synchronized long getPushes() {
+    return pushes;
+  }
+
+  public synchronized long getPops() {
+    return pops;
+  }
+
+  public synchronized long getDecreaseKeys() {
+    return decreaseKeys;
+  }
+
+  public synchronized long getWallProbes() {
+    return wallProbes;
+  }
+
+  public synchronized long getIterations() {
+    return iterations;
+  }
+
+  public synchronized long getMaxPeakMemory() {
+    return peakMemory;
+  }
+
+  public synchronized double getMeanPeakOpen() {
+    return peakOpen.getMean();
+  }
+
+  public synchronized long getMaxPeakOpen() {
+    return peakOpen.getMax();
+  }
+
+  public synchronized double getMeanFirstSolutionMicros() {
+    return firstSolution.getMean();
+  }
+
+  public synchronized double getMeanTimeMicros() {
+    return time.getMean();
+  }
+
+  public synchronized long getTimeP50Micros() {
+    return time.getPercentile(50);
+  }
+
+  public synchronized long getTimeP99Micros() {
+    return time.getPercentile(99);
+  }
+
+  public synchronized long getMaxTimeMicros() {
+    return time.getMax();
+  }
+
+  /*
+   * The counters of the last search recorded.
+   */
+  public synchronized String getLast() {
+    return last;
+  }
+
+  public synchronized void reset() {
+    searches = 0;
+    found = 0;
+    pushes = 0;
+    pops = 0;
+    decreaseKeys = 0;
+    wallProbes = 0;
+    iterations = 0;
+    peakMemory = 0;
+
+    expanded.clear();
+    generated.clear();
+    peakOpen.clear();
+    firstSolution.clear();
+    time.clear();
+    last = "";
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "SearchStats[searches=" + searches + ", found=" + found +
+        ", expanded " + expanded + ", time(us) " + time + "]";
+  }
+}
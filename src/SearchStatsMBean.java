@@ -0,0 +1,64 @@
+/*
+ * JMX view of SearchStats, e.g. in jconsole under pathfinder:type=SearchStats.
+ * Times are in microseconds, the percentiles are upper bounds good to a
+ * factor of two.
+ */
+
+public interface SearchStatsMBean {
+
+  long getSearches();
+
+  long getFound();
+
+  double getMeanExpanded();
+
+  long getExpandedP50();
+
+  long getExpandedP99();
+
+  long getMaxExpanded();
+
+  double getMeanGenerated();
+
+  long getPushes();
+
+  long getPops();
+
+  long getDecreaseKeys();
+
+  long getWallProbes();
+
+  /*
+   * Iterations of the searches that go in iterations, IDA*.
+   */
+  long getIterations();
+
+  /*
+   * Most bytes a search held at a time, of the searches that report it.
+   */
+  long getMaxPeakMemory();
+
+  double getMeanPeakOpen();
+
+  long getMaxPeakOpen();
+
+  double getMeanFirstSolutionMicros();
+
+  double getMeanTimeMicros();
+
+  long getTimeP50Micros();
+
+  long getTimeP99Micros();
+
+  long getMaxTimeMicros();
+
+  /*
+   * The counters of the last search recorded.
+   */
+  String getLast();
+
+  /*
+   * Forgets every search recorded so far.
+   */
+  void reset();
+}
@@ -0,0 +1,103 @@
+/*
+ * Runs the search of a PathFinder on its own thread, so that the EDT only
+ * has to draw. Each frame the timer hands the worker a budget of steps; with
+ * an UNLIMITED budget it runs as fast as it can and every frame shows where
+ * it got to.
+ * Steps are taken while holding the PathFinder's lock, a few at a time, and
+ * the GUI takes the same lock to read the cells that changed. It never sees
+ * the search halfway through a step. The flow field drawn is built and
+ * repaired here as well.
+ */
+
+import java.util.concurrent.locks.Lock;
+
+public class SearchWorker implements Runnable {
+
+  public static final int UNLIMITED = 0;
+
+  //steps taken before the lock is given up for the GUI
+  private static final int CHUNK = 256;
+
+  private final PathFinder path;
+  private final Lock lock;
+  private volatile int budget;
+
+  //steps left in this frame, guarded by this
+  private int granted;
+
+  public SearchWorker(PathFinder path, int budget) {
+    this.path = path;
+    this.budget = budget;
+    lock = path.getLock();
+  }
+
+  /*
+   * Starts the worker on a daemon thread.
+   */
+  public void start() {
+    Thread thread = new Thread(this, "search worker");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  public int getBudget() {
+    return budget;
+  }
+
+  /*
+   * Steps taken per frame, or UNLIMITED.
+   */
+  public void setBudget(int budget) {
+    this.budget = budget;
+  }
+
+  /*
+   * Called once per frame, gives the worker its steps for the frame.
+   */
+  public synchronized void frame() {
+    granted = budget == UNLIMITED ? Integer.MAX_VALUE : budget;
+    notifyAll();
+  }
+
+  public void run() {
+    try {
+      while(true) {
+        int steps;
+        synchronized(this) {
+          while(granted == 0) {
+            wait();
+          }
+          steps = Math.min(granted, CHUNK);
+        }
+
+        int done = 0;
+        lock.lock();
+        try {
+          while(done < steps && path.isRun() && !path.isComplete() &&
+                !path.isPause()) {
+            path.step();
+            done++;
+          }
+
+          //the flow field is built here too, the GUI only draws it
+          if(path.isFlowStale()) {
+            path.updateFlow();
+          }
+        } finally {
+          lock.unlock();
+        }
+
+        synchronized(this) {
+          //nothing left to run, wait for the next frame
+          if(done < steps) {
+            granted = 0;
+          } else if(granted != Integer.MAX_VALUE) {
+            granted = Math.max(0, granted - done);
+          }
+        }
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * Headless entry point for path finding on a Grid. Needs no GUI: give it the
+ * start and end cells, an algorithm and a heuristic and it returns the path
+ * found. The searches are kept and reused, so one Solver can answer many
+ * queries without allocating new search space for each.
+ * A Solver is not thread safe, use one per thread.
+ */
+
+public class Solver {
+
+  private final Grid grid;
+  private AStarSearch aStar, bucketAStar;
+  private JumpPointSearch jumpPoint, jumpPointPlus;
+  private BidirectionalSearch bidirectional;
+  private HierarchicalSearch hierarchical;
+  private DStarLiteSearch dStarLite;
+  private FlowFieldSearch flowField;
+  private BreadthFirstSearch breadthFirst;
+  private AnytimeAStarSearch anytime;
+  private IdaStarSearch iterativeDeepening;
+  private ThetaStarSearch thetaStar;
+
+  //answers repeated queries without searching, null when not used
+  private PathCache cache;
+
+  //Dijkstra and A* take their cells from a BucketQueue instead of a heap
+  private boolean bucketQueue;
+
+  //told about every search, null when nobody listens
+  private SearchListener listener;
+
+  //rejects unreachable ends before searching, null when not used
+  private ComponentIndex components;
+
+  //told about every better path of ANYTIME_ASTAR, null when nobody listens,
+  //and the nanoseconds it may take, 0 for no limit
+  private AnytimeListener pathListener;
+  private long timeLimit;
+
+  //bytes ITERATIVE_DEEPENING may keep its table in
+  private long memoryBudget = IdaStarSearch.DEFAULT_MEMORY_BUDGET;
+
+  public Solver(Grid grid) {
+    this.grid = grid;
+  }
+
+  /*
+   * Finds a path from start to end and returns it, from the cache if one is
+   * set and already holds it.
+   */
+  public SearchResult solve(int start, int end, Algorithm algorithm,
+                            Heuristic heuristic) {
+    if(cache == null) {
+      return begin(start, end, algorithm, heuristic).run();
+    }
+
+    SearchResult result = cache.get(start, end, algorithm, heuristic);
+    if(result == null) {
+      int version = grid.getVersion();
+      result = begin(start, end, algorithm, heuristic).run();
+      cache.put(start, end, algorithm, heuristic, result, version);
+    }
+    return result;
+  }
+
+  /*
+   * Caches the results of solve(), null to stop caching. Searches started
+   * with begin() are never cached.
+   */
+  public void setCache(PathCache cache) {
+    this.cache = cache;
+  }
+
+  public PathCache getCache() {
+    return cache;
+  }
+
+  /*
+   * Answers queries whose end is not in the component of the start as not
+   * found without searching. null to search anyway.
+   */
+  public void setComponents(ComponentIndex components) {
+    this.components = components;
+  }
+
+  public ComponentIndex getComponents() {
+    return components;
+  }
+
+  /*
+   * Counts every search from now on into a SearchMetrics handed to the
+   * listener when the search finishes, null to stop. Searches run without
+   * any counting while no listener is set.
+   */
+  public void setListener(SearchListener listener) {
+    this.listener = listener;
+  }
+
+  public SearchListener getListener() {
+    return listener;
+  }
+
+  /*
+   * Hands every path ANYTIME_ASTAR finds to the listener as soon as it is
+   * found, before the search is over. null to stop.
+   */
+  public void setPathListener(AnytimeListener pathListener) {
+    this.pathListener = pathListener;
+  }
+
+  public AnytimeListener getPathListener() {
+    return pathListener;
+  }
+
+  /*
+   * Time ANYTIME_ASTAR and ITERATIVE_DEEPENING may take in nanoseconds,
+   * after which they return the best path found so far, or none if
+   * ITERATIVE_DEEPENING found none yet. 0 lets them run until the path is
+   * the cheapest.
+   */
+  public void setTimeLimit(long timeLimit) {
+    this.timeLimit = timeLimit;
+  }
+
+  public long getTimeLimit() {
+    return timeLimit;
+  }
+
+  /*
+   * Bytes ITERATIVE_DEEPENING may keep its transposition table, stack and
+   * best path in, at least IdaStarSearch.MIN_MEMORY_BUDGET. A smaller table
+   * still finds the cheapest path, only more slowly.
+   */
+  public void setMemoryBudget(long memoryBudget) {
+    if(memoryBudget < IdaStarSearch.MIN_MEMORY_BUDGET) {
+      throw new IllegalArgumentException("Memory budget " + memoryBudget +
+                                         " is below " +
+                                         IdaStarSearch.MIN_MEMORY_BUDGET);
+    }
+    this.memoryBudget = memoryBudget;
+  }
+
+  public long getMemoryBudget() {
+    return memoryBudget;
+  }
+
+  /*
+   * Runs Dijkstra and A* on a BucketQueue, which is faster than the binary
+   * heap when the costs are whole numbers.
+   */
+  public void setBucketQueue(boolean bucketQueue) {
+    this.bucketQueue = bucketQueue;
+  }
+
+  public boolean isBucketQueue() {
+    return bucketQueue;
+  }
+
+  /*
+   * Sets up a search from start to end without running it, so that it can be
+   * stepped through one expansion at a time.
+   */
+  public GridSearch begin(int start, int end, Algorithm algorithm,
+                          Heuristic heuristic) {
+    GridSearch search;
+
+    switch(algorithm) {
+      case DIJKSTRA:
+        heuristic = Heuristics.ZERO;
+        search = getAStar(heuristic);
+        break;
+
+      case ASTAR:
+        search = getAStar(heuristic);
+        break;
+
+      case JUMP_POINT:
+        //jumps take every free cell to cost the same, with weights they
+        //miss cheaper paths, so A* searches instead
+        if(grid.hasWeights()) {
+          search = getAStar(heuristic);
+          break;
+        }
+        if(jumpPoint == null) {
+          jumpPoint = new JumpPointSearch(grid, false);
+        }
+        search = jumpPoint;
+        break;
+
+      case JUMP_POINT_PLUS:
+        if(grid.hasWeights()) {
+          search = getAStar(heuristic);
+          break;
+        }
+        if(jumpPointPlus == null) {
+          jumpPointPlus = new JumpPointSearch(grid, true);
+        }
+        search = jumpPointPlus;
+        break;
+
+      case BIDIRECTIONAL_DIJKSTRA:
+        search = getBidirectional();
+        heuristic = Heuristics.ZERO;
+        break;
+
+      case BIDIRECTIONAL_ASTAR:
+        search = getBidirectional();
+        break;
+
+      case HIERARCHICAL:
+        if(hierarchical == null) {
+          hierarchical = new HierarchicalSearch(grid, new ClusterGraph(grid,
+              ClusterGraph.DEFAULT_CLUSTER_SIZE));
+        }
+        search = hierarchical;
+        break;
+
+      case DSTAR_LITE:
+        if(dStarLite == null) {
+          dStarLite = new DStarLiteSearch(grid);
+        }
+        search = dStarLite;
+        break;
+
+      case FLOW_FIELD:
+        getFlowField();
+        search = flowField;
+        break;
+
+      case BREADTH_FIRST:
+        if(breadthFirst == null) {
+          breadthFirst = new BreadthFirstSearch(grid);
+        }
+        search = breadthFirst;
+        break;
+
+      case ANYTIME_ASTAR:
+        if(anytime == null) {
+          anytime = new AnytimeAStarSearch(grid);
+        }
+        anytime.setPathListener(pathListener);
+        anytime.setTimeLimit(timeLimit);
+        search = anytime;
+        break;
+
+      case ITERATIVE_DEEPENING:
+        if(iterativeDeepening == null) {
+          iterativeDeepening = new IdaStarSearch(grid);
+        }
+        iterativeDeepening.setMemoryBudget(memoryBudget);
+        iterativeDeepening.setTimeLimit(timeLimit);
+        search = iterativeDeepening;
+        break;
+
+      case THETA_STAR:
+        if(thetaStar == null) {
+          thetaStar = new ThetaStarSearch(grid);
+        }
+        //the other heuristics overestimate straight lines at an angle
+        heuristic = Heuristics.EUCLIDEAN;
+        search = thetaStar;
+        break;
+
+      default:
+        throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+    }
+
+    search.setListener(listener);
+    search.setComponents(components);
+    search.begin(start, end, heuristic);
+    return search;
+  }
+
+  /*
+   * The bucket queue needs whole number costs. Move costs always are, of the
+   * plain heuristics only EUCLIDEAN is not.
+   */
+  private AStarSearch getAStar(Heuristic heuristic) {
+    if(bucketQueue && heuristic != Heuristics.EUCLIDEAN) {
+      if(bucketAStar == null) {
+        bucketAStar = new AStarSearch(grid, new BucketQueue(grid.size()));
+      }
+      return bucketAStar;
+    }
+
+    if(aStar == null) {
+      aStar = new AStarSearch(grid);
+    }
+    return aStar;
+  }
+
+  /*
+   * The field FLOW_FIELD follows, made on first use and kept up to date
+   * with the grid from then on.
+   */
+  public FlowField getFlowField() {
+    if(flowField == null) {
+      flowField = new FlowFieldSearch(grid, new FlowField(grid));
+    }
+    return flowField.getField();
+  }
+
+  private BidirectionalSearch getBidirectional() {
+    if(bidirectional == null) {
+      bidirectional = new BidirectionalSearch(grid);
+    }
+    return bidirectional;
+  }
+
+  /*
+   * Lets go of the grid: D* Lite, the HPA* graph and the flow field stop
+   * following its changes. They are made again if the solver is used after
+   * this.
+   */
+  public void close() {
+    if(dStarLite != null) {
+      dStarLite.close();
+      dStarLite = null;
+    }
+    if(hierarchical != null) {
+      hierarchical.getGraph().close();
+      hierarchical = null;
+    }
+    if(flowField != null) {
+      flowField.getField().close();
+      flowField = null;
+    }
+  }
+
+  public Grid getGrid() {
+    return grid;
+  }
+}
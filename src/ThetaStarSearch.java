@@ -0,0 +1,151 @@
+/*
+ * Lazy Theta* (Nash, Koenig and Tovey), an any-angle A*. The parent of a
+ * cell need not be its neighbor but can be any cell in line of sight, so the
+ * path is a few straight lines between corners of the walls instead of a
+ * step for every cell, and shorter than any path of moves between
+ * neighbors.
+ * A neighbor is given the parent of the cell expanded, taking on faith
+ * that the parent sees it, and the line of sight is only checked once the
+ * neighbor itself is expanded. If it fails the neighbor falls back to the
+ * best of its closed neighbors. That is one check per expansion instead of
+ * one per neighbor.
+ * A line costs its length, in the unit of the EUCLIDEAN heuristic which is
+ * what this search uses, times the highest weight of the cells it touches.
+ * Every step between neighbors is such a line, so without mud a path is
+ * never dearer than the same moves on the grid. The path is the corners
+ * only, each in line of sight of the one before.
+ */
+
+public class ThetaStarSearch extends GridSearch {
+
+  private final LineOfSight sight;
+
+  public ThetaStarSearch(Grid grid) {
+    super(grid);
+    sight = new LineOfSight(grid);
+  }
+
+  protected void init() {
+    space.setNode(start, 0, start);
+    open.add(start, estimate(grid.getCol(start), grid.getRow(start)), 0);
+  }
+
+  public boolean step() {
+    if(isFinished()) {
+      return false;
+    }
+
+    int current = open.poll();
+    if(current < 0) {
+      finish(false);
+      return false;
+    }
+
+    setParent(current);
+    space.close(current);
+    expanded++;
+
+    if(current == end) {
+      finish(true);
+      return false;
+    }
+
+    int col = grid.getCol(current);
+    int row = grid.getRow(current);
+    int parent = space.getParent(current);
+    double parentG = space.getG(parent);
+
+    for(int i = -1; i <= 1; i++) {
+      for(int j = -1; j <= 1; j++) {
+        if(i == 0 && j == 0) {
+          continue;
+        }
+
+        int xCoord = col + i;
+        int yCoord = row + j;
+        boolean diagonal = i != 0 && j != 0;
+
+        if(isWall(xCoord, yCoord) || diagonal &&
+            (isWall(xCoord, row) || isWall(col, yCoord))) {
+          continue;
+        }
+
+        int neighbor = grid.index(xCoord, yCoord);
+        if(space.isClosed(neighbor)) {
+          continue;
+        }
+
+        //straight from the parent, checked once the neighbor is expanded
+        double gCost = parentG + lineCost(parent, neighbor);
+        if(gCost >= space.getG(neighbor)) {
+          continue;
+        }
+
+        space.setNode(neighbor, gCost, parent);
+        double fCost = gCost + estimate(xCoord, yCoord);
+        if(open.contains(neighbor)) {
+          open.decreaseKey(neighbor, fCost, gCost);
+        } else {
+          open.add(neighbor, fCost, gCost);
+        }
+      }
+    }
+
+    return true;
+  }
+
+  /*
+   * Checks that a cell about to be expanded sees the parent it was given,
+   * and if not makes the closed neighbor it is cheapest to come from its
+   * parent. The neighbor it was reached through is one of them.
+   */
+  private void setParent(int cell) {
+    int parent = space.getParent(cell);
+    if(sight.isClear(parent, cell)) {
+      return;
+    }
+
+    int col = grid.getCol(cell);
+    int row = grid.getRow(cell);
+    double best = Double.POSITIVE_INFINITY;
+
+    for(int i = -1; i <= 1; i++) {
+      for(int j = -1; j <= 1; j++) {
+        int xCoord = col + i;
+        int yCoord = row + j;
+        if(i == 0 && j == 0 || isWall(xCoord, yCoord) || i != 0 && j != 0 &&
+            (isWall(xCoord, row) || isWall(col, yCoord))) {
+          continue;
+        }
+
+        int neighbor = grid.index(xCoord, yCoord);
+        if(!space.isClosed(neighbor)) {
+          continue;
+        }
+
+        double g = space.getG(neighbor) + lineCost(neighbor, cell);
+        if(g < best) {
+          best = g;
+          parent = neighbor;
+        }
+      }
+    }
+
+    space.setNode(cell, best, parent);
+  }
+
+  /*
+   * Cost of the straight line between the centers of two cells.
+   */
+  private double lineCost(int from, int to) {
+    int dx = grid.getCol(to) - grid.getCol(from);
+    int dy = grid.getRow(to) - grid.getRow(from);
+    double length = Grid.DIAGONAL_COST * Math.sqrt((dx * dx + dy * dy) / 2.0);
+
+    return grid.hasWeights() ? length * sight.maxWeight(from, to) : length;
+  }
+
+  public LineOfSight getLineOfSight() {
+    return sight;
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * The part of the grid shown on screen and how big it is drawn. Zoomed in, a
+ * cell takes cellSize x cellSize pixels. Zoomed out past one pixel per cell,
+ * a pixel stands for a block x block square of cells instead, so a 4096 x
+ * 4096 grid can be seen whole without drawing every cell on its own.
+ * Screen and grid are tied by the cell drawn at the top left of the screen,
+ * which may lie outside the grid.
+ */
+
+public class Viewport {
+
+  //pixels per cell from the farthest zoom level to the nearest, negative for
+  //cells per pixel
+  private static final int[] LEVELS = {-16, -8, -4, -2, 1, 2, 3, 5, 8, 12,
+                                       18, 25, 40, 60};
+
+  //pixels per cell of a grid that fits the window at startup
+  private static final int NORMAL_SIZE = 25;
+
+  private final int cols, rows;
+  private int width, height;
+
+  private int level;
+  private int cellSize, block;
+
+  //cell at the top left corner of the screen
+  private int col0, row0;
+
+  public Viewport(int cols, int rows, int width, int height) {
+    this.cols = cols;
+    this.rows = rows;
+    this.width = width;
+    this.height = height;
+
+    fit();
+  }
+
+  /*
+   * Zooms in as far as possible with the whole grid still on screen, but no
+   * closer than NORMAL_SIZE, and centers the grid.
+   */
+  public void fit() {
+    int best = 0;
+    for(int i = 0; i < LEVELS.length && LEVELS[i] <= NORMAL_SIZE; i++) {
+      setLevel(i);
+      if(visibleCols() >= cols && visibleRows() >= rows) {
+        best = i;
+      }
+    }
+    setLevel(best);
+
+    col0 = (cols - visibleCols()) / 2;
+    row0 = (rows - visibleRows()) / 2;
+  }
+
+  private void setLevel(int level) {
+    this.level = level;
+    cellSize = Math.max(LEVELS[level], 1);
+    block = Math.max(-LEVELS[level], 1);
+  }
+
+  /*
+   * Zooms in by steps levels, out if negative, keeping the cell under the
+   * point (x, y) of the screen in place.
+   */
+  public boolean zoom(int steps, int x, int y) {
+    int next = Math.max(0, Math.min(LEVELS.length - 1, level + steps));
+    if(next == level) {
+      return false;
+    }
+
+    int col = colAt(x);
+    int row = rowAt(y);
+    setLevel(next);
+    col0 = col - cellsIn(x);
+    row0 = row - cellsIn(y);
+    clamp();
+    return true;
+  }
+
+  /*
+   * Moves the view by a number of pixels, rounded towards zero to whole
+   * cells.
+   */
+  public boolean pan(int dx, int dy) {
+    int oldCol = col0;
+    int oldRow = row0;
+
+    col0 += block > 1 ? dx * block : dx / cellSize;
+    row0 += block > 1 ? dy * block : dy / cellSize;
+    clamp();
+    return col0 != oldCol || row0 != oldRow;
+  }
+
+  /*
+   * Keeps at least half a screen of grid in view.
+   */
+  private void clamp() {
+    col0 = Math.max(-visibleCols() / 2, Math.min(cols - visibleCols() / 2,
+                                                 col0));
+    row0 = Math.max(-visibleRows() / 2, Math.min(rows - visibleRows() / 2,
+                                                 row0));
+  }
+
+  public void setSize(int width, int height) {
+    this.width = width;
+    this.height = height;
+    clamp();
+  }
+
+  /*
+   * Cells covered by a number of pixels, rounded down.
+   */
+  private int cellsIn(int pixels) {
+    return block > 1 ? pixels * block : Math.floorDiv(pixels, cellSize);
+  }
+
+  public int colAt(int x) {
+    return col0 + cellsIn(x);
+  }
+
+  public int rowAt(int y) {
+    return row0 + cellsIn(y);
+  }
+
+  /*
+   * Column of the tile on screen holding a column of the grid, counted from
+   * the left edge of the screen.
+   */
+  public int tileX(int col) {
+    return Math.floorDiv(col - col0, block);
+  }
+
+  public int tileY(int row) {
+    return Math.floorDiv(row - row0, block);
+  }
+
+  public int visibleCols() {
+    return block > 1 ? width * block : (width + cellSize - 1) / cellSize;
+  }
+
+  public int visibleRows() {
+    return block > 1 ? height * block : (height + cellSize - 1) / cellSize;
+  }
+
+  /*
+   * Pixels per side of a tile, the square drawn in one color: a cell when
+   * zoomed in, a block of cells when zoomed out.
+   */
+  public int getTileSize() {
+    return cellSize;
+  }
+
+  /*
+   * Cells per side of a tile.
+   */
+  public int getBlock() {
+    return block;
+  }
+
+  public int getCol0() {
+    return col0;
+  }
+
+  public int getRow0() {
+    return row0;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * Checks that anytime A* given all the time it wants ends on the cheapest
+ * path, with every heuristic, and that every path it reports on the way is
+ * a valid one no cheaper than that.
+ */
+
+import java.util.Random;
+
+public class AnytimeCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 150; i++) {
+      Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37),
+                                    random.nextBoolean());
+      Solver solver = new Solver(grid);
+      Heuristic[] heuristics = {Heuristics.OCTILE, Heuristics.CHEBYSHEV,
+                                Heuristics.EUCLIDEAN,
+                                new LandmarkHeuristic(grid, 4)};
+
+      for(int q = 0; q < 4; q++) {
+        final int start = Checks.randomFree(random, grid);
+        final int end = Checks.randomFree(random, grid);
+        if(start < 0 || end < 0) {
+          break;
+        }
+        final Grid g = grid;
+        final SearchResult best = Checks.dijkstra(grid, start, end);
+        solver.setPathListener(new AnytimeListener() {
+          public void pathImproved(SearchResult path, double bound) {
+            Checks.expectValid(g, "ANYTIME_ASTAR improved", start, end, path,
+                               best);
+            Checks.expect(path.getCost() <= bound * best.getCost() +
+                          Checks.EPSILON, "ANYTIME_ASTAR path costs " +
+                          path.getCost() + " past its bound " + bound);
+          }
+        });
+        for(Heuristic heuristic : heuristics) {
+          Checks.expectCheapest(grid, solver, start, end,
+                                Algorithm.ANYTIME_ASTAR, heuristic, best);
+        }
+      }
+    }
+    Checks.finish("AnytimeCheck");
+  }
+}
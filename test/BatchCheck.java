@@ -0,0 +1,70 @@
+/*
+ * Runs batches of queries on pools of a few threads and checks them against
+ * Dijkstra. The solvers of a batch solver are kept between its batches, so
+ * the listeners the searches that follow the grid put on it are bounded by
+ * the threads and do not grow with every batch, and close() takes them all
+ * off again.
+ */
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class BatchCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 5; i++) {
+      checkBatch(random);
+    }
+    Checks.finish("BatchCheck");
+  }
+
+  private static void checkBatch(Random random) {
+    Grid grid = Checks.randomGrid(random, 10 + random.nextInt(40),
+                                  random.nextBoolean());
+    Algorithm[] algorithms = {Algorithm.ASTAR, Algorithm.DSTAR_LITE,
+                              Algorithm.HIERARCHICAL, Algorithm.FLOW_FIELD};
+    int threads = 4;
+    int listeners = grid.getListenerCount();
+
+    int[] starts = new int[64];
+    int[] ends = new int[64];
+    SearchResult[] best = new SearchResult[starts.length];
+    for(int i = 0; i < starts.length; i++) {
+      starts[i] = Math.max(Checks.randomFree(random, grid), 0);
+      ends[i] = Math.max(Checks.randomFree(random, grid), 0);
+      best[i] = Checks.dijkstra(grid, starts[i], ends[i]);
+    }
+
+    for(int run = 0; run < 3; run++) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      BatchSolver batch = new BatchSolver(grid, pool);
+
+      for(int k = 0; k < 3 * algorithms.length; k++) {
+        Algorithm algorithm = algorithms[k % algorithms.length];
+        SearchResult[] results = batch.solveAll(starts, ends, algorithm,
+            Heuristics.OCTILE);
+
+        for(int i = 0; i < starts.length; i++) {
+          if(algorithm == Algorithm.HIERARCHICAL) {
+            Checks.expectValid(grid, "batch " + algorithm, starts[i], ends[i],
+                               results[i], best[i]);
+          } else {
+            Checks.check(grid, "batch " + algorithm, starts[i], ends[i],
+                         results[i], best[i]);
+          }
+        }
+
+        int count = grid.getListenerCount() - listeners;
+        Checks.expect(count <= algorithms.length * threads, "batch left " +
+                      count + " listeners on " + threads + " threads");
+      }
+
+      batch.close();
+      pool.shutdown();
+      Checks.expect(grid.getListenerCount() == listeners, "batch close left " +
+                    (grid.getListenerCount() - listeners) + " listeners");
+    }
+  }
+}
@@ -0,0 +1,38 @@
+/*
+ * Checks bidirectional Dijkstra and bidirectional A* with every heuristic
+ * against Dijkstra on random grids with walls, mud is in WeightCheck.
+ */
+
+import java.util.Random;
+
+public class BidirectionalCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 150; i++) {
+      Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37), false);
+      Solver solver = new Solver(grid);
+      Heuristic[] heuristics = {Heuristics.OCTILE, Heuristics.CHEBYSHEV,
+                                Heuristics.EUCLIDEAN};
+
+      for(int q = 0; q < 4; q++) {
+        int start = Checks.randomFree(random, grid);
+        int end = Checks.randomFree(random, grid);
+        if(start < 0 || end < 0) {
+          break;
+        }
+        SearchResult best = Checks.dijkstra(grid, start, end);
+        Checks.expectCheapest(grid, solver, start, end,
+                              Algorithm.BIDIRECTIONAL_DIJKSTRA,
+                              Heuristics.ZERO, best);
+        for(Heuristic heuristic : heuristics) {
+          Checks.expectCheapest(grid, solver, start, end,
+                                Algorithm.BIDIRECTIONAL_ASTAR, heuristic,
+                                best);
+        }
+      }
+    }
+    Checks.finish("BidirectionalCheck");
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Checks that breadth first search finds a path with as few moves as a
+ * plain breadth first search over the cells, on grids with walls and mud,
+ * which it ignores.
+ */
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+public class BreadthFirstCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 150; i++) {
+      Grid grid = Checks.randomGrid(random, 4 + random.nextInt(100),
+                                    random.nextBoolean());
+      Solver solver = new Solver(grid);
+
+      for(int q = 0; q < 4; q++) {
+        int start = Checks.randomFree(random, grid);
+        int end = Checks.randomFree(random, grid);
+        if(start < 0 || end < 0) {
+          break;
+        }
+        expectFewestMoves(grid, solver, start, end);
+      }
+    }
+    Checks.finish("BreadthFirstCheck");
+  }
+
+  private static void expectFewestMoves(Grid grid, Solver solver, int start,
+                                        int end) {
+    int[] moves = new int[grid.size()];
+    Arrays.fill(moves, -1);
+    ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+    moves[start] = 0;
+    queue.add(start);
+    while(!queue.isEmpty()) {
+      int cell = queue.poll();
+      int col = grid.getCol(cell);
+      int row = grid.getRow(cell);
+      for(int dx = -1; dx <= 1; dx++) {
+        for(int dy = -1; dy <= 1; dy++) {
+          if(Checks.isMove(grid, col, row, dx, dy) &&
+              moves[grid.index(col + dx, row + dy)] < 0) {
+            moves[grid.index(col + dx, row + dy)] = moves[cell] + 1;
+            queue.add(grid.index(col + dx, row + dy));
+          }
+        }
+      }
+    }
+
+    SearchResult result = solver.begin(start, end, Algorithm.BREADTH_FIRST,
+                                       Heuristics.OCTILE).run();
+    if(!Checks.expect(result.isFound() == moves[end] >= 0,
+                      "BREADTH_FIRST found " + result.isFound()) ||
+        !result.isFound()) {
+      return;
+    }
+
+    int[] path = result.getPath();
+    Checks.expect(path.length - 1 == moves[end], "BREADTH_FIRST took " +
+                  (path.length - 1) + " moves instead of " + moves[end]);
+    Checks.expectPath(grid, "BREADTH_FIRST", start, end, result);
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * Helpers shared by the self-checking tests in this folder, which need no
+ * test framework. Every *Check class is a main of its own that checks one
+ * feature, so a feature and its checks come and go together:
+ *   javac -d out src/*.java test/*.java
+ *   for t in out/*Check.class; do
+ *     java -cp out $(basename $t .class) || exit 1
+ *   done
+ * Each takes an optional random seed, prints every failure and exits with 1
+ * if there was any.
+ * Paths are compared against a plain Dijkstra kept here, which uses nothing
+ * of the engine but Grid.moveCost() and the wall bits.
+ */
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+public class Checks {
+
+  public static final double EPSILON = 1e-6;
+
+  private static int checks, failures;
+
+  public static Random random(String[] args) {
+    return new Random(args.length > 0 ? Long.parseLong(args[0]) : 1);
+  }
+
+  /*
+   * Prints the counts and exits with 1 if anything failed.
+   */
+  public static void finish(String name) {
+    System.out.println(name + ": " + checks + " checks, " + failures +
+                       " failures");
+    if(failures > 0) {
+      System.exit(1);
+    }
+  }
+
+  public static boolean expect(boolean condition, String message) {
+    checks++;
+    if(!condition) {
+      failures++;
+      if(failures <= 20) {
+        System.out.println("FAIL " + message);
+      }
+    }
+    return condition;
+  }
+
+  /*
+   * A grid of size x size with up to 35% walls, and with mud on a fifth of
+   * the free cells if asked for.
+   */
+  public static Grid randomGrid(Random random, int size, boolean mud) {
+    Grid grid = new Grid(size, size);
+    double walls = 0.35 * random.nextDouble();
+
+    for(int row = 0; row < size; row++) {
+      for(int col = 0; col < size; col++) {
+        if(random.nextDouble() < walls) {
+          grid.setWall(col, row, true);
+        } else if(mud && random.nextDouble() < 0.2) {
+          grid.setWeight(col, row, 2 + random.nextInt(4));
+        }
+      }
+    }
+    return grid;
+  }
+
+  /*
+   * Flips walls on random cells, and sets weights on a third of them if
+   * asked for.
+   */
+  public static void edit(Random random, Grid grid, int count,
+                          boolean weights) {
+    for(int i = 0; i < count; i++) {
+      int col = random.nextInt(grid.getCols());
+      int row = random.nextInt(grid.getRows());
+      if(weights && random.nextInt(3) == 0) {
+        grid.setWeight(col, row, 1 + random.nextInt(4));
+      } else {
+        grid.setWall(col, row, !grid.isWall(col, row));
+      }
+    }
+  }
+
+  /*
+   * A random free cell, -1 if none turned up.
+   */
+  public static int randomFree(Random random, Grid grid) {
+    for(int tries = 0; tries < 100; tries++) {
+      int cell = random.nextInt(grid.size());
+      if(!grid.isWall(cell)) {
+        return cell;
+      }
+    }
+    return -1;
+  }
+
+  /*
+   * Cost of the cheapest path, as a result without a path.
+   */
+  public static SearchResult dijkstra(Grid grid, int start, int end) {
+    double cost = costs(grid, start)[end];
+    return new SearchResult(cost < Double.POSITIVE_INFINITY, new int[0],
+                            cost < Double.POSITIVE_INFINITY ? cost : 0, 0);
+  }
+
+  /*
+   * Cost of the cheapest path from a cell to every cell, infinite where
+   * there is none.
+   */
+  public static double[] costs(Grid grid, int from) {
+    double[] cost = new double[grid.size()];
+    Arrays.fill(cost, Double.POSITIVE_INFINITY);
+    PriorityQueue<double[]> queue = new PriorityQueue<double[]>(16,
+        new java.util.Comparator<double[]>() {
+          public int compare(double[] a, double[] b) {
+            return Double.compare(a[0], b[0]);
+          }
+        });
+
+    cost[from] = 0;
+    queue.add(new double[] {0, from});
+    while(!queue.isEmpty()) {
+      double[] top = queue.poll();
+      int cell = (int) top[1];
+      if(top[0] > cost[cell]) {
+        continue;
+      }
+
+      int col = grid.getCol(cell);
+      int row = grid.getRow(cell);
+      for(int dx = -1; dx <= 1; dx++) {
+        for(int dy = -1; dy <= 1; dy++) {
+          if(!isMove(grid, col, row, dx, dy)) {
+            continue;
+          }
+          int next = grid.index(col + dx, row + dy);
+          double g = top[0] + grid.moveCost(col, row, dx, dy);
+          if(g < cost[next]) {
+            cost[next] = g;
+            queue.add(new double[] {g, next});
+          }
+        }
+      }
+    }
+    return cost;
+  }
+
+  public static void expectCheapest(Grid grid, Solver solver, int start,
+                                    int end, Algorithm algorithm,
+                                    Heuristic heuristic, SearchResult best) {
+    SearchResult result = solver.begin(start, end, algorithm,
+                                       heuristic).run();
+    check(grid, algorithm + " " + heuristic, start, end, result, best);
+  }
+
+  /*
+   * Same cost and found as Dijkstra, and a path of moves that costs that.
+   */
+  public static void check(Grid grid, String name, int start, int end,
+                           SearchResult result, SearchResult best) {
+    if(!expect(result.isFound() == best.isFound(), name + " found " +
+               result.isFound() + " for " + start + " -> " + end) ||
+        !result.isFound()) {
+      return;
+    }
+
+    expect(Math.abs(result.getCost() - best.getCost()) < EPSILON, name +
+           " cost " + result.getCost() + " instead of " + best.getCost() +
+           " for " + start + " -> " + end);
+    expectPath(grid, name, start, end, result);
+  }
+
+  /*
+   * A path of moves no cheaper than Dijkstra's, for the searches that do not
+   * promise the cheapest.
+   */
+  public static void expectValid(Grid grid, String name, int start, int end,
+                                 SearchResult result, SearchResult best) {
+    if(!expect(result.isFound() == best.isFound(), name + " found " +
+               result.isFound()) || !result.isFound()) {
+      return;
+    }
+
+    expect(result.getCost() >= best.getCost() - EPSILON, name + " cost " +
+           result.getCost() + " below " + best.getCost());
+    expectPath(grid, name, start, end, result);
+  }
+
+  /*
+   * Cells from start to end, each a move from the one before, costing what
+   * the search says.
+   */
+  public static void expectPath(Grid grid, String name, int start, int end,
+                                SearchResult result) {
+    int[] path = result.getPath();
+    if(!expect(path.length > 0 && path[0] == start &&
+               path[path.length - 1] == end, name + " path does not run " +
+               start + " -> " + end)) {
+      return;
+    }
+
+    double cost = 0;
+    for(int i = 1; i < path.length; i++) {
+      int col = grid.getCol(path[i - 1]);
+      int row = grid.getRow(path[i - 1]);
+      int dx = grid.getCol(path[i]) - col;
+      int dy = grid.getRow(path[i]) - row;
+      if(!expect(isMove(grid, col, row, dx, dy), name + " path moves from " +
+                 path[i - 1] + " to " + path[i])) {
+        return;
+      }
+      cost += grid.moveCost(col, row, dx, dy);
+    }
+
+    expect(Math.abs(cost - result.getCost()) < EPSILON, name + " path costs " +
+           cost + " but the search says " + result.getCost());
+  }
+
+  /*
+   * A move to a neighbor that is free, diagonals not cutting a corner.
+   */
+  public static boolean isMove(Grid grid, int col, int row, int dx, int dy) {
+    if(Math.abs(dx) > 1 || Math.abs(dy) > 1 || dx == 0 && dy == 0 ||
+        grid.isWall(col + dx, row + dy)) {
+      return false;
+    }
+    return dx == 0 || dy == 0 || !grid.isWall(col + dx, row) &&
+        !grid.isWall(col, row + dy);
+  }
+}
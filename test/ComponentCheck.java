@@ -0,0 +1,40 @@
+/*
+ * Flips walls under a component index and checks after every change that it
+ * says two cells are connected exactly when Dijkstra finds a path, and that
+ * a solver using it still answers reachable queries.
+ */
+
+import java.util.Random;
+
+public class ComponentCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 60; i++) {
+      Grid grid = Checks.randomGrid(random, 4 + random.nextInt(40), false);
+      ComponentIndex components = new ComponentIndex(grid);
+      Solver solver = new Solver(grid);
+      solver.setComponents(components);
+
+      for(int round = 0; round < 40; round++) {
+        Checks.edit(random, grid, 1 + random.nextInt(6), false);
+        for(int q = 0; q < 4; q++) {
+          int start = Checks.randomFree(random, grid);
+          int end = Checks.randomFree(random, grid);
+          if(start < 0 || end < 0) {
+            break;
+          }
+          SearchResult best = Checks.dijkstra(grid, start, end);
+          Checks.expect(components.connected(start, end) == best.isFound(),
+                        "ComponentIndex says " + components.connected(start,
+                        end) + " for " + start + " -> " + end);
+          Checks.expectCheapest(grid, solver, start, end, Algorithm.ASTAR,
+                                Heuristics.OCTILE, best);
+        }
+      }
+      components.close();
+    }
+    Checks.finish("ComponentCheck");
+  }
+}
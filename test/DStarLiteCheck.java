@@ -0,0 +1,49 @@
+/*
+ * Changes walls between queries under one D* Lite search, which has to
+ * repair itself to answer as Dijkstra does on the new grid, also after its
+ * start moved along the path or anywhere.
+ */
+
+import java.util.Random;
+
+public class DStarLiteCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 60; i++) {
+      Grid grid = Checks.randomGrid(random, 6 + random.nextInt(30), false);
+      int start = Checks.randomFree(random, grid);
+      int end = Checks.randomFree(random, grid);
+      if(start < 0 || end < 0) {
+        continue;
+      }
+
+      DStarLiteSearch dStarLite = new DStarLiteSearch(grid);
+      dStarLite.begin(start, end, Heuristics.OCTILE);
+      Checks.check(grid, "DSTAR_LITE", start, end, dStarLite.run(),
+                   Checks.dijkstra(grid, start, end));
+
+      for(int round = 0; round < 25; round++) {
+        Checks.edit(random, grid, 1 + random.nextInt(6), false);
+        grid.setWall(grid.getCol(start), grid.getRow(start), false);
+        grid.setWall(grid.getCol(end), grid.getRow(end), false);
+        Checks.check(grid, "DSTAR_LITE repaired", start, end,
+                     dStarLite.run(), Checks.dijkstra(grid, start, end));
+
+        int[] path = dStarLite.getResult().getPath();
+        int moved = path.length > 1 && random.nextBoolean() ?
+            path[1 + random.nextInt(path.length - 1)] :
+            Checks.randomFree(random, grid);
+        if(moved >= 0) {
+          start = moved;
+          dStarLite.moveStart(start);
+          Checks.check(grid, "DSTAR_LITE moved", start, end, dStarLite.run(),
+                       Checks.dijkstra(grid, start, end));
+        }
+      }
+      dStarLite.close();
+    }
+    Checks.finish("DStarLiteCheck");
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Checks the paths a solver follows down its flow field against Dijkstra,
+ * while walls and mud change under the field and the goal stays, so the
+ * field repairs itself instead of being built again. Then fields of tiles
+ * of 2 to 8 cells on pools of a few threads, so a wave crosses many tiles,
+ * are checked on every cell after every change.
+ */
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class FlowFieldCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 60; i++) {
+      checkSolver(random);
+    }
+    for(int i = 0; i < 60; i++) {
+      checkTiles(random);
+    }
+    Checks.finish("FlowFieldCheck");
+  }
+
+  private static void checkSolver(Random random) {
+    Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37),
+                                  random.nextBoolean());
+    Solver solver = new Solver(grid);
+    int end = Checks.randomFree(random, grid);
+    if(end < 0) {
+      return;
+    }
+
+    for(int round = 0; round < 25; round++) {
+      Checks.edit(random, grid, 1 + random.nextInt(6), true);
+      grid.setWall(grid.getCol(end), grid.getRow(end), false);
+      for(int q = 0; q < 4; q++) {
+        int start = Checks.randomFree(random, grid);
+        if(start < 0) {
+          break;
+        }
+        Checks.expectCheapest(grid, solver, start, end, Algorithm.FLOW_FIELD,
+                              Heuristics.OCTILE,
+                              Checks.dijkstra(grid, start, end));
+      }
+    }
+    solver.close();
+  }
+
+  private static void checkTiles(Random random) {
+    Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37),
+                                  random.nextBoolean());
+    ForkJoinPool pool = new ForkJoinPool(1 + random.nextInt(4));
+    int tile = 2 + random.nextInt(7);
+    FlowField field = new FlowField(grid, tile, pool);
+    int goal = Checks.randomFree(random, grid);
+    if(goal < 0) {
+      return;
+    }
+
+    for(int round = 0; round < 25; round++) {
+      //now and then the field is pointed somewhere else and built again
+      if(random.nextInt(8) == 0) {
+        goal = Math.max(Checks.randomFree(random, grid), goal);
+      }
+      grid.setWall(grid.getCol(goal), grid.getRow(goal), false);
+      field.setGoal(goal);
+      field.update();
+      if(!expectField(grid, field, tile)) {
+        break;
+      }
+      Checks.edit(random, grid, 1 + random.nextInt(6), true);
+    }
+    field.close();
+    pool.shutdown();
+  }
+
+  /*
+   * Every cell has the cost Dijkstra gives, and its move leads to a cell
+   * cheaper by the cost of that move.
+   */
+  private static boolean expectField(Grid grid, FlowField field, int tile) {
+    double[] best = Checks.costs(grid, field.getGoal());
+    String name = "FlowField of " + tile + " cell tiles";
+
+    for(int cell = 0; cell < grid.size(); cell++) {
+      int distance = field.getDistance(cell);
+      boolean reached = best[cell] < Double.POSITIVE_INFINITY &&
+          !grid.isWall(cell);
+      if(!Checks.expect(reached ? distance == best[cell] :
+                        distance == FlowField.UNREACHED, name + " has " +
+                        distance + " instead of " + best[cell] + " at " +
+                        cell)) {
+        return false;
+      }
+      if(!reached || cell == field.getGoal()) {
+        continue;
+      }
+
+      int next = field.next(cell);
+      int col = grid.getCol(cell);
+      int row = grid.getRow(cell);
+      int dx = next < 0 ? 0 : grid.getCol(next) - col;
+      int dy = next < 0 ? 0 : grid.getRow(next) - row;
+      if(!Checks.expect(next >= 0 && Checks.isMove(grid, col, row, dx, dy) &&
+                        field.getDistance(next) + grid.moveCost(col, row, dx,
+                        dy) == distance, name + " moves from " + cell +
+                        " to " + next)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Checks A* with every heuristic against Dijkstra, ALT also after walls
+ * changed under its landmarks, with A* and with a D* Lite search that
+ * follows the changes.
+ */
+
+import java.util.Random;
+
+public class HeuristicCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 150; i++) {
+      checkHeuristics(random);
+    }
+    for(int i = 0; i < 40; i++) {
+      checkEdits(random);
+    }
+    Checks.finish("HeuristicCheck");
+  }
+
+  private static void checkHeuristics(Random random) {
+    Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37), false);
+    Solver solver = new Solver(grid);
+    Heuristic[] heuristics = {Heuristics.OCTILE, Heuristics.CHEBYSHEV,
+                              Heuristics.EUCLIDEAN,
+                              new LandmarkHeuristic(grid, 4)};
+
+    for(int q = 0; q < 4; q++) {
+      int start = Checks.randomFree(random, grid);
+      int end = Checks.randomFree(random, grid);
+      if(start < 0 || end < 0) {
+        return;
+      }
+      SearchResult best = Checks.dijkstra(grid, start, end);
+      for(Heuristic heuristic : heuristics) {
+        Checks.expectCheapest(grid, solver, start, end, Algorithm.ASTAR,
+                              heuristic, best);
+      }
+    }
+  }
+
+  /*
+   * ALT has to rebuild its landmark costs when the walls changed, also under
+   * a D* Lite search that began with the old ones.
+   */
+  private static void checkEdits(Random random) {
+    Grid grid = Checks.randomGrid(random, 6 + random.nextInt(30),
+                                  random.nextBoolean());
+    Solver solver = new Solver(grid);
+    Heuristic alt = new LandmarkHeuristic(grid, 4);
+    int start = Checks.randomFree(random, grid);
+    int end = Checks.randomFree(random, grid);
+    if(start < 0 || end < 0) {
+      return;
+    }
+    DStarLiteSearch dStarLite = new DStarLiteSearch(grid);
+    dStarLite.begin(start, end, alt);
+
+    for(int round = 0; round < 25; round++) {
+      Checks.edit(random, grid, 1 + random.nextInt(6), true);
+      grid.setWall(grid.getCol(start), grid.getRow(start), false);
+      grid.setWall(grid.getCol(end), grid.getRow(end), false);
+
+      SearchResult best = Checks.dijkstra(grid, start, end);
+      Checks.check(grid, "DSTAR_LITE ALT", start, end, dStarLite.run(),
+                   best);
+      Checks.expectCheapest(grid, solver, start, end, Algorithm.ASTAR, alt,
+                            best);
+    }
+    dStarLite.close();
+  }
+}
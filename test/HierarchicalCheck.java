@@ -0,0 +1,33 @@
+/*
+ * Checks that HPA* finds a path whenever Dijkstra does, a valid one no
+ * cheaper than Dijkstra's, also after walls change under its cluster graph.
+ */
+
+import java.util.Random;
+
+public class HierarchicalCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 60; i++) {
+      Grid grid = Checks.randomGrid(random, 6 + random.nextInt(50), false);
+      Solver solver = new Solver(grid);
+
+      for(int round = 0; round < 15; round++) {
+        int start = Checks.randomFree(random, grid);
+        int end = Checks.randomFree(random, grid);
+        if(start < 0 || end < 0) {
+          break;
+        }
+        SearchResult best = Checks.dijkstra(grid, start, end);
+        Checks.expectValid(grid, "HIERARCHICAL", start, end, solver.begin(
+                           start, end, Algorithm.HIERARCHICAL,
+                           Heuristics.OCTILE).run(), best);
+        Checks.edit(random, grid, 1 + random.nextInt(6), false);
+      }
+      solver.close();
+    }
+    Checks.finish("HierarchicalCheck");
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Checks IDA* against Dijkstra on small random grids with walls and mud, with
+ * the default memory budget and the smallest one, which the table, stack and
+ * path have to keep to. A time limit has to stop a search with the smallest
+ * budget on a big grid soon, with a valid path or none.
+ */
+
+import java.util.Random;
+
+public class IterativeDeepeningCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 150; i++) {
+      checkSearches(random, IdaStarSearch.DEFAULT_MEMORY_BUDGET);
+    }
+    for(int i = 0; i < 60; i++) {
+      checkSearches(random, IdaStarSearch.MIN_MEMORY_BUDGET);
+    }
+    checkBudget();
+    for(int i = 0; i < 4; i++) {
+      checkTimeLimit(random);
+    }
+    Checks.finish("IterativeDeepeningCheck");
+  }
+
+  private static void checkSearches(Random random, long budget) {
+    Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37),
+                                  random.nextBoolean());
+    Solver solver = new Solver(grid);
+    solver.setMemoryBudget(budget);
+    IdaStarSearch search = new IdaStarSearch(grid);
+    search.setMemoryBudget(budget);
+
+    for(int q = 0; q < 4; q++) {
+      int start = Checks.randomFree(random, grid);
+      int end = Checks.randomFree(random, grid);
+      if(start < 0 || end < 0) {
+        break;
+      }
+      SearchResult best = Checks.dijkstra(grid, start, end);
+      Checks.expectCheapest(grid, solver, start, end,
+                            Algorithm.ITERATIVE_DEEPENING, Heuristics.OCTILE,
+                            best);
+      search.begin(start, end, Heuristics.OCTILE);
+      Checks.check(grid, "IDA* on " + budget + " bytes", start, end,
+                   search.run(), best);
+      Checks.expect(search.getPeakMemory() <= budget, "IDA* took " +
+                    search.getPeakMemory() + " bytes of " + budget);
+    }
+  }
+
+  private static void checkBudget() {
+    Grid grid = new Grid(10, 10);
+    try {
+      new Solver(grid).setMemoryBudget(IdaStarSearch.MIN_MEMORY_BUDGET - 1);
+      Checks.expect(false, "budget below the smallest was taken");
+    } catch(IllegalArgumentException e) {
+      Checks.expect(true, "");
+    }
+  }
+
+  /*
+   * A big grid with mud and the smallest budget takes IDA* far longer than
+   * the limit, which has to stop it after not much more.
+   */
+  private static void checkTimeLimit(Random random) {
+    Grid grid = Checks.randomGrid(random, 300, true);
+    Solver solver = new Solver(grid);
+    solver.setMemoryBudget(IdaStarSearch.MIN_MEMORY_BUDGET);
+    solver.setTimeLimit(50000000L);
+    int start = Checks.randomFree(random, grid);
+    int end = Checks.randomFree(random, grid);
+    if(start < 0 || end < 0) {
+      return;
+    }
+
+    long time = System.nanoTime();
+    SearchResult result = solver.begin(start, end,
+                                       Algorithm.ITERATIVE_DEEPENING,
+                                       Heuristics.OCTILE).run();
+    time = System.nanoTime() - time;
+    Checks.expect(time < 1000000000L, "IDA* with a time limit of 50 ms " +
+                  "took " + time / 1000000 + " ms");
+    if(result.isFound()) {
+      Checks.expectPath(grid, "IDA* with a time limit", start, end, result);
+    }
+  }
+}
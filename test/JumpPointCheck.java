@@ -0,0 +1,33 @@
+/*
+ * Checks Jump Point Search and JPS+ against Dijkstra on random grids
+ * without mud, which is what they are made for.
+ */
+
+import java.util.Random;
+
+public class JumpPointCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 200; i++) {
+      Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37), false);
+      Solver solver = new Solver(grid);
+
+      for(int q = 0; q < 4; q++) {
+        int start = Checks.randomFree(random, grid);
+        int end = Checks.randomFree(random, grid);
+        if(start < 0 || end < 0) {
+          break;
+        }
+        SearchResult best = Checks.dijkstra(grid, start, end);
+        Checks.expectCheapest(grid, solver, start, end, Algorithm.JUMP_POINT,
+                              Heuristics.OCTILE, best);
+        Checks.expectCheapest(grid, solver, start, end,
+                              Algorithm.JUMP_POINT_PLUS, Heuristics.OCTILE,
+                              best);
+      }
+    }
+    Checks.finish("JumpPointCheck");
+  }
+}
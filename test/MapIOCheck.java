@@ -0,0 +1,204 @@
+/*
+ * Checks the Moving AI reader and writer: random grids written and read
+ * back, maps and scenarios with CRLF line ends, and maps with short, long
+ * or missing rows or a broken header, which have to be refused. Then maps
+ * are loaded in one go under the searches that follow the grid, which have
+ * to answer as if built on the new walls.
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+public class MapIOCheck {
+
+  public static void main(String[] args) throws IOException {
+    Random random = Checks.random(args);
+    Path file = Files.createTempFile("check", ".map");
+
+    try {
+      for(int i = 0; i < 50; i++) {
+        checkRoundTrip(random, file);
+      }
+      checkCharacters(file);
+      checkBroken(file);
+      checkScenarios(file);
+      for(int i = 0; i < 30; i++) {
+        checkLoad(random);
+      }
+    } finally {
+      Files.delete(file);
+    }
+    Checks.finish("MapIOCheck");
+  }
+
+  private static void checkRoundTrip(Random random, Path file)
+      throws IOException {
+    //rows of more than one word too
+    Grid grid = new Grid(1 + random.nextInt(150), 1 + random.nextInt(40));
+    Checks.edit(random, grid, random.nextInt(grid.size() + 1), false);
+
+    MapIO.writeMap(grid, file);
+    expectSame(grid, MapIO.readMap(file), "map of " + grid.getCols() + "x" +
+               grid.getRows());
+  }
+
+  /*
+   * Only '.', 'G' and 'S' can be walked on, the lines may end in CRLF and
+   * the header may have other keys and extra spaces.
+   */
+  private static void checkCharacters(Path file) throws IOException {
+    write(file, "type octile\r\nheight 3\r\nwidth  5\r\nmap\r\n" +
+          ".G@S.\r\nTOW..\r\n.....  \r\n");
+    Grid grid = MapIO.readMap(file);
+
+    String walls = "00100" + "11100" + "00000";
+    Checks.expect(grid.getCols() == 5 && grid.getRows() == 3, "CRLF map is " +
+                  grid.getCols() + "x" + grid.getRows());
+    for(int cell = 0; cell < walls.length() && cell < grid.size(); cell++) {
+      Checks.expect(grid.isWall(cell) == (walls.charAt(cell) == '1'),
+                    "CRLF map has the wrong wall at " + cell);
+    }
+  }
+
+  private static void checkBroken(Path file) throws IOException {
+    String header = "type octile\nheight 2\nwidth 4\nmap\n";
+    expectRefused(file, header + "...\n....\n", "a short row");
+    expectRefused(file, header + "....\r\n..\r\n", "a short CRLF row");
+    expectRefused(file, header + ".....\n....\n", "a long row");
+    expectRefused(file, header + "....\n", "a missing row");
+    expectRefused(file, header + "....\n...", "a short last row");
+    expectRefused(file, "type octile\nheight 2\nmap\n....\n....\n",
+                  "no width");
+    expectRefused(file, "type octile\nheight x\nwidth 4\nmap\n", "no height");
+    expectRefused(file, "type octile\nheight 2\nwidth 4\n", "no map");
+
+    //nothing after the last row is fine, with or without its line end
+    write(file, header + "....\n.@..");
+    Checks.expect(MapIO.readMap(file).isWall(1, 1), "map without a last " +
+                  "line end lost its wall");
+  }
+
+  private static void checkScenarios(Path file) throws IOException {
+    write(file, "version 1\r\n" +
+          "0\tmaps/a.map\t512\t256\t1\t2\t3\t4\t5.82842712\r\n" +
+          "3\tmaps/a.map\t512\t256\t10\t20\t30\t40\t17\r\n" +
+          "4\tmaps/b.map\t8\t8\t0\t0\t7\t7\t9.89949494");
+    List<MapIO.Scenario> scenarios = MapIO.readScenarios(file);
+
+    if(!Checks.expect(scenarios.size() == 3, "read " + scenarios.size() +
+                      " scenarios instead of 3")) {
+      return;
+    }
+    MapIO.Scenario first = scenarios.get(0);
+    Checks.expect(first.bucket == 0 && first.map.equals("maps/a.map") &&
+                  first.width == 512 && first.height == 256 &&
+                  first.startX == 1 && first.startY == 2 &&
+                  first.goalX == 3 && first.goalY == 4 &&
+                  Math.abs(first.optimalLength - 5.82842712) < 1e-9,
+                  "first scenario read wrong");
+    MapIO.Scenario second = scenarios.get(1);
+    Checks.expect(second.bucket == 3 && second.startX == 10 &&
+                  second.goalY == 40 && second.optimalLength == 17,
+                  "second scenario read wrong");
+    Checks.expect(scenarios.get(2).map.equals("maps/b.map") &&
+                  Math.abs(scenarios.get(2).optimalLength - 9.89949494) <
+                  1e-9, "last scenario read wrong");
+
+    //the old format has no version line
+    write(file, "1 a.map 4 4 0 0 3 3 4.24264069\n");
+    scenarios = MapIO.readScenarios(file);
+    Checks.expect(scenarios.size() == 1 && scenarios.get(0).goalX == 3,
+                  "scenario without a version line read wrong");
+
+    write(file, "version 1\n0 a.map 4 4 0 x 3 3 4\n");
+    try {
+      MapIO.readScenarios(file);
+      Checks.expect(false, "scenario with a broken number was read");
+    } catch(IOException e) {
+      Checks.expect(true, "");
+    }
+  }
+
+  /*
+   * Loads new walls under the searches that follow the grid, which have to
+   * rebuild, and drops the mud the file does not have, with one change to
+   * the version.
+   */
+  private static void checkLoad(Random random) {
+    int size = 6 + random.nextInt(40);
+    PathFinder path = new PathFinder(size, size);
+    Grid grid = path.getWall();
+    Solver solver = new Solver(grid);
+    ComponentIndex components = new ComponentIndex(grid);
+    int start = 0;
+    int end = grid.size() - 1;
+    DStarLiteSearch dStarLite = new DStarLiteSearch(grid);
+    dStarLite.begin(start, end, Heuristics.OCTILE);
+    dStarLite.run();
+
+    for(int round = 0; round < 4; round++) {
+      Grid map = Checks.randomGrid(random, size, false);
+      map.setWall(0, 0, false);
+      map.setWall(size - 1, size - 1, false);
+      Checks.edit(random, grid, 1 + random.nextInt(20), true);
+      solver.begin(start, end, Algorithm.HIERARCHICAL, Heuristics.OCTILE)
+          .run();
+      solver.begin(start, end, Algorithm.FLOW_FIELD, Heuristics.OCTILE).run();
+
+      int version = grid.getVersion();
+      path.loadWalls(map);
+      expectSame(map, grid, "loaded map");
+      Checks.expect(!grid.hasWeights(), "loaded map kept the mud");
+      Checks.expect(grid.getVersion() == version + 1, "loading the map " +
+                    "changed the version " + (grid.getVersion() - version) +
+                    " times");
+
+      SearchResult best = Checks.dijkstra(grid, start, end);
+      Checks.expect(components.connected(start, end) == best.isFound(),
+                    "ComponentIndex missed the loaded map");
+      Checks.check(grid, "DSTAR_LITE on the loaded map", start, end,
+                   dStarLite.run(), best);
+      Checks.expectCheapest(grid, solver, start, end, Algorithm.FLOW_FIELD,
+                            Heuristics.OCTILE, best);
+      Checks.expectValid(grid, "HIERARCHICAL on the loaded map", start, end,
+                         solver.begin(start, end, Algorithm.HIERARCHICAL,
+                                      Heuristics.OCTILE).run(), best);
+    }
+    solver.close();
+    components.close();
+    dStarLite.close();
+  }
+
+  private static void expectSame(Grid expected, Grid grid, String name) {
+    if(!Checks.expect(grid.getCols() == expected.getCols() &&
+                      grid.getRows() == expected.getRows(), name + " read " +
+                      "as " + grid.getCols() + "x" + grid.getRows())) {
+      return;
+    }
+    for(int cell = 0; cell < grid.size(); cell++) {
+      if(!Checks.expect(grid.isWall(cell) == expected.isWall(cell), name +
+                        " has the wrong wall at " + cell)) {
+        return;
+      }
+    }
+  }
+
+  private static void expectRefused(Path file, String map, String name)
+      throws IOException {
+    write(file, map);
+    try {
+      MapIO.readMap(file);
+      Checks.expect(false, "map with " + name + " was read");
+    } catch(IOException e) {
+      Checks.expect(true, "");
+    }
+  }
+
+  private static void write(Path file, String text) throws IOException {
+    Files.write(file, text.getBytes(StandardCharsets.US_ASCII));
+  }
+}
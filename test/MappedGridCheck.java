@@ -0,0 +1,131 @@
+/*
+ * Writes random grids in the binary format and opens them again as mapped
+ * grids: every cell has to match, and A*, JPS and JPS+ searching the mapped
+ * file have to find what they find on the grid it was written from. Files
+ * that are not grids or are cut short are refused.
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MappedGridCheck {
+
+  public static void main(String[] args) throws IOException {
+    Random random = Checks.random(args);
+    Path file = Files.createTempFile("check", ".grid");
+
+    try {
+      for(int i = 0; i < 60; i++) {
+        checkRoundTrip(random, file);
+      }
+      checkBroken(file);
+    } finally {
+      Files.delete(file);
+    }
+    Checks.finish("MappedGridCheck");
+  }
+
+  private static void checkRoundTrip(Random random, Path file)
+      throws IOException {
+    //rows of more than one word too
+    Grid grid = new Grid(1 + random.nextInt(150), 1 + random.nextInt(60));
+    Checks.edit(random, grid, random.nextInt(grid.size() + 1), false);
+    int cellSize = 1 + random.nextInt(40);
+
+    MapIO.writeGrid(grid, cellSize, file);
+    MappedGrid mapped = MapIO.openGrid(file);
+    String name = "mapped grid of " + grid.getCols() + "x" + grid.getRows();
+
+    if(!Checks.expect(mapped.getCols() == grid.getCols() &&
+                      mapped.getRows() == grid.getRows() &&
+                      mapped.getCellSize() == cellSize, name + " opened as " +
+                      mapped.getCols() + "x" + mapped.getRows() + " of " +
+                      mapped.getCellSize())) {
+      return;
+    }
+    for(int row = -1; row <= grid.getRows(); row++) {
+      for(int col = -1; col <= grid.getCols(); col++) {
+        if(!Checks.expect(mapped.isWall(col, row) == grid.isWall(col, row),
+                          name + " has the wrong wall at " + col + "," +
+                          row)) {
+          return;
+        }
+      }
+    }
+    for(int row = 0; row < grid.getRows(); row++) {
+      for(int word = 0; word < grid.getWordsPerRow(); word++) {
+        Checks.expect(mapped.getWallWord(row, word) ==
+                      grid.getWallWord(row, word), name + " has the wrong " +
+                      "word " + word + " in row " + row);
+      }
+    }
+
+    Solver solver = new Solver(mapped);
+    Solver heap = new Solver(grid);
+    Algorithm[] algorithms = {Algorithm.ASTAR, Algorithm.JUMP_POINT,
+                              Algorithm.JUMP_POINT_PLUS};
+    for(int q = 0; q < 4; q++) {
+      int start = Checks.randomFree(random, grid);
+      int end = Checks.randomFree(random, grid);
+      if(start < 0 || end < 0) {
+        break;
+      }
+      SearchResult best = Checks.dijkstra(grid, start, end);
+      for(Algorithm algorithm : algorithms) {
+        SearchResult result = solver.begin(start, end, algorithm,
+                                           Heuristics.OCTILE).run();
+        Checks.check(mapped, name + " " + algorithm, start, end, result,
+                     best);
+        SearchResult expected = heap.begin(start, end, algorithm,
+                                           Heuristics.OCTILE).run();
+        Checks.expect(Arrays.equals(result.getPath(), expected.getPath()),
+                      name + " " + algorithm + " took another path than on " +
+                      "the heap grid");
+      }
+    }
+
+    try {
+      mapped.setWall(0, 0, !mapped.isWall(0, 0));
+      Checks.expect(false, name + " took a wall");
+    } catch(UnsupportedOperationException e) {
+      Checks.expect(mapped.isWall(0, 0) == grid.isWall(0, 0), name +
+                    " changed after refusing a wall");
+    }
+  }
+
+  private static void checkBroken(Path file) throws IOException {
+    Grid grid = new Grid(100, 10);
+    grid.setWall(99, 9, true);
+    MapIO.writeGrid(grid, 4, file);
+    byte[] bytes = Files.readAllBytes(file);
+
+    //one byte short of the last word
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+    expectRefused(file, "a grid cut short");
+
+    byte[] wrong = bytes.clone();
+    wrong[0] = 'X';
+    Files.write(file, wrong);
+    expectRefused(file, "a file without the magic");
+
+    wrong = bytes.clone();
+    wrong[4] = 9;
+    Files.write(file, wrong);
+    expectRefused(file, "an unknown version");
+
+    Files.write(file, new byte[8]);
+    expectRefused(file, "a file shorter than the header");
+  }
+
+  private static void expectRefused(Path file, String name) {
+    try {
+      MapIO.openGrid(file);
+      Checks.expect(false, name + " was opened");
+    } catch(IOException e) {
+      Checks.expect(true, "");
+    }
+  }
+}
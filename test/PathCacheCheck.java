@@ -0,0 +1,58 @@
+/*
+ * Changes walls between cached queries, the cache must never answer from
+ * before a change, must not keep a search that began before one, and hands
+ * out copies of its paths.
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class PathCacheCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 60; i++) {
+      Grid grid = Checks.randomGrid(random, 6 + random.nextInt(30), false);
+      Solver solver = new Solver(grid);
+      PathCache cache = new PathCache(grid, 16);
+      solver.setCache(cache);
+
+      for(int round = 0; round < 25; round++) {
+        int start = Checks.randomFree(random, grid);
+        int end = Checks.randomFree(random, grid);
+        if(start < 0 || end < 0) {
+          break;
+        }
+        SearchResult best = Checks.dijkstra(grid, start, end);
+        Checks.check(grid, "cached ASTAR", start, end, solver.solve(start, end,
+                     Algorithm.ASTAR, Heuristics.OCTILE), best);
+
+        //callers get a copy of the path, what they do with it stays theirs
+        Arrays.fill(solver.solve(start, end, Algorithm.ASTAR,
+                                 Heuristics.OCTILE).getPath(), -1);
+        Checks.check(grid, "cached ASTAR", start, end, solver.solve(start, end,
+                     Algorithm.ASTAR, Heuristics.OCTILE), best);
+
+        //nor is a search that began before a change kept after it
+        int version = grid.getVersion();
+        SearchResult early = new Solver(grid).solve(start, end,
+            Algorithm.DIJKSTRA, Heuristics.ZERO);
+        Checks.edit(random, grid, 1 + random.nextInt(4), false);
+        grid.setWall(grid.getCol(start), grid.getRow(start), false);
+        grid.setWall(grid.getCol(end), grid.getRow(end), false);
+        cache.put(start, end, Algorithm.DIJKSTRA, Heuristics.ZERO, early,
+                  version);
+        Checks.expect(grid.getVersion() == version || cache.get(start, end,
+                      Algorithm.DIJKSTRA, Heuristics.ZERO) == null,
+                      "cache kept a result from before a change");
+
+        //and what it held from before the change is not answered after it
+        Checks.check(grid, "cached ASTAR", start, end, solver.solve(start, end,
+                     Algorithm.ASTAR, Heuristics.OCTILE),
+                     Checks.dijkstra(grid, start, end));
+      }
+    }
+    Checks.finish("PathCacheCheck");
+  }
+}
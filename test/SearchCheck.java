@@ -0,0 +1,117 @@
+/*
+ * Checks the indexed binary heap against a plain array of its cells under
+ * random adds, key changes and removals, and Dijkstra and A* with it
+ * against the reference Dijkstra on random grids with walls.
+ * The other algorithms are checked by a *Check class of their own.
+ */
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class SearchCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 20; i++) {
+      checkHeap(random);
+    }
+    for(int i = 0; i < 150; i++) {
+      checkSearches(random);
+    }
+    Checks.finish("SearchCheck");
+  }
+
+  /*
+   * Every poll hands out a cell of the lowest F cost, ties on the lowest G
+   * cost, and the heap holds the cells and costs the array does.
+   */
+  private static void checkHeap(Random random) {
+    int capacity = 1 + random.nextInt(200);
+    BinaryHeap heap = new BinaryHeap(capacity);
+    //costs of the cells in the heap, F cost of -1 for the others
+    double[] f = new double[capacity];
+    double[] g = new double[capacity];
+    Arrays.fill(f, -1);
+
+    for(int op = 0; op < 1000; op++) {
+      int cell = random.nextInt(capacity);
+      double fCost = random.nextInt(50);
+      double gCost = random.nextInt(50);
+
+      switch(random.nextInt(5)) {
+        case 0:
+        case 1:
+          if(f[cell] < 0) {
+            heap.add(cell, fCost, gCost);
+          } else if(fCost < f[cell]) {
+            heap.decreaseKey(cell, fCost, gCost);
+          } else {
+            heap.update(cell, fCost, gCost);
+          }
+          f[cell] = fCost;
+          g[cell] = gCost;
+          break;
+        case 2:
+          if(f[cell] >= 0) {
+            heap.remove(cell);
+            f[cell] = -1;
+          }
+          break;
+        default:
+          int min = -1;
+          for(int c = 0; c < capacity; c++) {
+            if(f[c] >= 0 && (min < 0 || f[c] < f[min] ||
+                             f[c] == f[min] && g[c] < g[min])) {
+              min = c;
+            }
+          }
+          int polled = heap.poll();
+          if(!Checks.expect(min < 0 ? polled == -1 : polled >= 0 &&
+                            f[polled] == f[min] && g[polled] == g[min],
+                            "heap polled " + polled + " instead of " + min)) {
+            return;
+          }
+          if(polled >= 0) {
+            f[polled] = -1;
+          }
+      }
+
+      int size = 0;
+      for(int c = 0; c < capacity; c++) {
+        if(f[c] < 0) {
+          if(!Checks.expect(!heap.contains(c), "heap kept " + c)) {
+            return;
+          }
+          continue;
+        }
+        size++;
+        if(!Checks.expect(heap.contains(c) && heap.getF(c) == f[c] &&
+                          heap.getG(c) == g[c], "heap lost the costs of " +
+                          c)) {
+          return;
+        }
+      }
+      Checks.expect(heap.size() == size, "heap holds " + heap.size() +
+                    " cells instead of " + size);
+    }
+  }
+
+  private static void checkSearches(Random random) {
+    Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37), false);
+    Solver solver = new Solver(grid);
+
+    for(int q = 0; q < 4; q++) {
+      int start = Checks.randomFree(random, grid);
+      int end = Checks.randomFree(random, grid);
+      if(start < 0 || end < 0) {
+        return;
+      }
+      SearchResult best = Checks.dijkstra(grid, start, end);
+      Checks.expectCheapest(grid, solver, start, end, Algorithm.DIJKSTRA,
+                            Heuristics.ZERO, best);
+      Checks.expectCheapest(grid, solver, start, end, Algorithm.ASTAR,
+                            Heuristics.OCTILE, best);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Checks that Theta* finds a path whenever Dijkstra does, with corners in
+ * line of sight of each other and a cost that is the lines between them,
+ * on grids with walls and mud. Sight is tested against the box of every
+ * wall, nothing of LineOfSight but its weights is used.
+ */
+
+import java.util.Random;
+
+public class ThetaStarCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 150; i++) {
+      Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37),
+                                    random.nextBoolean());
+      Solver solver = new Solver(grid);
+
+      for(int q = 0; q < 4; q++) {
+        int start = Checks.randomFree(random, grid);
+        int end = Checks.randomFree(random, grid);
+        if(start < 0 || end < 0) {
+          break;
+        }
+        expectInSight(grid, solver, start, end,
+                      Checks.dijkstra(grid, start, end));
+      }
+    }
+    Checks.finish("ThetaStarCheck");
+  }
+
+  /*
+   * Theta* corners see each other and the path costs the lines between
+   * them.
+   */
+  private static void expectInSight(Grid grid, Solver solver, int start,
+                                    int end, SearchResult best) {
+    SearchResult result = solver.begin(start, end, Algorithm.THETA_STAR,
+                                       Heuristics.EUCLIDEAN).run();
+    if(!Checks.expect(result.isFound() == best.isFound(),
+                      "THETA_STAR found " + result.isFound()) ||
+        !result.isFound()) {
+      return;
+    }
+
+    int[] path = result.getPath();
+    LineOfSight sight = new LineOfSight(grid);
+    double cost = 0;
+    for(int i = 1; i < path.length; i++) {
+      if(!Checks.expect(inSight(grid, path[i - 1], path[i]),
+                        "THETA_STAR corner " + path[i - 1] + " cannot see " +
+                        path[i])) {
+        return;
+      }
+      int dx = grid.getCol(path[i]) - grid.getCol(path[i - 1]);
+      int dy = grid.getRow(path[i]) - grid.getRow(path[i - 1]);
+      cost += Grid.DIAGONAL_COST * Math.sqrt((dx * dx + dy * dy) / 2.0) *
+          sight.maxWeight(path[i - 1], path[i]);
+    }
+
+    Checks.expect(path[0] == start && path[path.length - 1] == end &&
+                  Math.abs(cost - result.getCost()) < Checks.EPSILON,
+                  "THETA_STAR path costs " + cost + " but the search says " +
+                  result.getCost());
+  }
+
+  /*
+   * True if the segment between the centers of two cells touches no wall,
+   * tested against the box of every wall, in half cells.
+   */
+  private static boolean inSight(Grid grid, int a, int b) {
+    long x0 = 2 * grid.getCol(a) + 1;
+    long y0 = 2 * grid.getRow(a) + 1;
+    long x1 = 2 * grid.getCol(b) + 1;
+    long y1 = 2 * grid.getRow(b) + 1;
+
+    for(int row = 0; row < grid.getRows(); row++) {
+      for(int col = 0; col < grid.getCols(); col++) {
+        long left = 2 * col;
+        long top = 2 * row;
+        if(!grid.isWall(col, row) || Math.max(x0, x1) < left ||
+            Math.min(x0, x1) > left + 2 || Math.max(y0, y1) < top ||
+            Math.min(y0, y1) > top + 2) {
+          continue;
+        }
+
+        //the segment misses the box if every corner is on the same side
+        int above = 0;
+        int below = 0;
+        for(int corner = 0; corner < 4; corner++) {
+          long x = left + 2 * (corner & 1);
+          long y = top + (corner & 2);
+          long cross = (x1 - x0) * (y - y0) - (y1 - y0) * (x - x0);
+          if(cross > 0) {
+            above++;
+          } else if(cross < 0) {
+            below++;
+          }
+        }
+        if(above < 4 && below < 4) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Checks the searches that came before terrain weights against Dijkstra on
+ * grids with mud, with the binary heap and the bucket queue, and those that
+ * follow the grid also after weights changed under them. Jump point search
+ * ignores weights and only has to give a valid path.
+ */
+
+import java.util.Random;
+
+public class WeightCheck {
+
+  public static void main(String[] args) {
+    Random random = Checks.random(args);
+
+    for(int i = 0; i < 150; i++) {
+      checkWeights(random);
+    }
+    for(int i = 0; i < 40; i++) {
+      checkEdits(random);
+    }
+    Checks.finish("WeightCheck");
+  }
+
+  private static void checkWeights(Random random) {
+    Grid grid = Checks.randomGrid(random, 4 + random.nextInt(37), true);
+    Solver solver = new Solver(grid);
+
+    for(int q = 0; q < 4; q++) {
+      int start = Checks.randomFree(random, grid);
+      int end = Checks.randomFree(random, grid);
+      if(start < 0 || end < 0) {
+        return;
+      }
+      SearchResult best = Checks.dijkstra(grid, start, end);
+
+      for(int queue = 0; queue < 2; queue++) {
+        solver.setBucketQueue(queue == 1);
+        Checks.expectCheapest(grid, solver, start, end, Algorithm.DIJKSTRA,
+                              Heuristics.ZERO, best);
+        Checks.expectCheapest(grid, solver, start, end, Algorithm.ASTAR,
+                              Heuristics.OCTILE, best);
+      }
+      solver.setBucketQueue(false);
+
+      Checks.expectCheapest(grid, solver, start, end,
+                            Algorithm.BIDIRECTIONAL_DIJKSTRA, Heuristics.ZERO,
+                            best);
+      Checks.expectCheapest(grid, solver, start, end,
+                            Algorithm.BIDIRECTIONAL_ASTAR, Heuristics.OCTILE,
+                            best);
+      Checks.expectCheapest(grid, solver, start, end, Algorithm.ASTAR,
+                            new LandmarkHeuristic(grid, 4), best);
+      Checks.expectCheapest(grid, solver, start, end, Algorithm.DSTAR_LITE,
+                            Heuristics.OCTILE, best);
+      Checks.expectValid(grid, "HIERARCHICAL", start, end, solver.begin(start,
+                         end, Algorithm.HIERARCHICAL, Heuristics.OCTILE).run(),
+                         best);
+
+      //the solver runs A* for jump point search, which on its own finds a
+      //path that costs what it says
+      Checks.expectCheapest(grid, solver, start, end, Algorithm.JUMP_POINT,
+                            Heuristics.OCTILE, best);
+      Checks.expectCheapest(grid, solver, start, end,
+                            Algorithm.JUMP_POINT_PLUS, Heuristics.OCTILE,
+                            best);
+      JumpPointSearch jumpPoint = new JumpPointSearch(grid, q % 2 == 0);
+      jumpPoint.begin(start, end, Heuristics.OCTILE);
+      Checks.expectValid(grid, "JumpPointSearch", start, end, jumpPoint.run(),
+                         best);
+    }
+  }
+
+  /*
+   * D* Lite and HPA* repair themselves when mud changes, not only walls.
+   */
+  private static void checkEdits(Random random) {
+    Grid grid = Checks.randomGrid(random, 6 + random.nextInt(30), true);
+    Solver solver = new Solver(grid);
+    int start = Checks.randomFree(random, grid);
+    int end = Checks.randomFree(random, grid);
+    if(start < 0 || end < 0) {
+      return;
+    }
+    DStarLiteSearch dStarLite = new DStarLiteSearch(grid);
+    dStarLite.begin(start, end, Heuristics.OCTILE);
+
+    for(int round = 0; round < 25; round++) {
+      Checks.edit(random, grid, 1 + random.nextInt(6), true);
+      grid.setWall(grid.getCol(start), grid.getRow(start), false);
+      grid.setWall(grid.getCol(end), grid.getRow(end), false);
+
+      SearchResult best = Checks.dijkstra(grid, start, end);
+      Checks.check(grid, "DSTAR_LITE repaired", start, end, dStarLite.run(),
+                   best);
+      Checks.expectValid(grid, "HIERARCHICAL", start, end, solver.begin(start,
+                         end, Algorithm.HIERARCHICAL, Heuristics.OCTILE).run(),
+                         best);
+    }
+    dStarLite.close();
+    solver.close();
+  }
+}